@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
 import se.sprinta.headhunterbackend.accountInfo.AccountInfo;
 import se.sprinta.headhunterbackend.job.Job;
 
@@ -44,9 +45,12 @@ public class Account implements Serializable {
 
     /**
      * An Account object has an integer number of jobs.
+     * Like Job.numberOfAds, it is only written when the account is first saved, after that it is kept up to date with
+     * AccountRepository.incrementNumberOfJobs and decrementNumberOfJobs, and repaired by CounterReconciler.
      */
 
     @Getter
+    @Column(updatable = false)
     private long number_of_jobs;
 
     /**
@@ -56,15 +60,18 @@ public class Account implements Serializable {
     @OneToOne(mappedBy = "account")
     private AccountInfo accountInfo;
 
+    private boolean isVerified = false;
+
     /**
      * An Account object has an array of Job objects.
      * Relationship: [Account] 1...* [Job]
+     * <p>
+     * They are only loaded when they are used, or up front with AccountRepository.findWithJobsByEmail by callers that
+     * use all of them. They are left out of equals, hashCode and toString for that reason.
      */
 
-    private boolean isVerified = false;
-
     @Getter
-    @OneToMany(mappedBy = "account", fetch = FetchType.EAGER, cascade = CascadeType.REMOVE)
+    @OneToMany(mappedBy = "account", fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)
     @JsonIgnore
     private List<Job> jobs = new ArrayList<>();
 
@@ -77,25 +84,26 @@ public class Account implements Serializable {
         this.roles = roles;
     }
 
+    /**
+     * The jobs of a persisted account are only added to if they are already loaded, and its number of jobs in the
+     * database is changed by the caller, see AccountRepository.incrementNumberOfJobs.
+     */
+
     public void addJob(Job newJob) {
         if (newJob == null) throw new NullPointerException("Can't add null Job");
         if (newJob.getAccount() != null) throw new NullPointerException("Job already has a user");
-        this.getJobs().add(newJob);
-        this.setNumber_of_jobs();
+        if (Hibernate.isInitialized(this.jobs)) this.jobs.add(newJob);
+        this.number_of_jobs++;
         newJob.setAccount(this);
     }
 
     public void removeJob(Job oldJob) {
         if (oldJob == null) throw new NullPointerException("Can't remove null Job");
-        this.getJobs().remove(oldJob);
-        this.setNumber_of_jobs();
+        if (Hibernate.isInitialized(this.jobs)) this.jobs.remove(oldJob);
+        if (this.number_of_jobs > 0) this.number_of_jobs--;
         oldJob.setAccount(null);
     }
 
-    public void setNumber_of_jobs() {
-        this.number_of_jobs = this.jobs.size();
-    }
-
     public void setJobs(List<Job> jobs) {
         this.jobs = jobs;
     }
@@ -125,12 +133,12 @@ public class Account implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Account account = (Account) o;
-        return number_of_jobs == account.number_of_jobs && isVerified == account.isVerified && Objects.equals(email, account.email) && Objects.equals(roles, account.roles) && Objects.equals(accountInfo, account.accountInfo) && Objects.equals(jobs, account.jobs);
+        return number_of_jobs == account.number_of_jobs && isVerified == account.isVerified && Objects.equals(email, account.email) && Objects.equals(roles, account.roles) && Objects.equals(accountInfo, account.accountInfo);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(email, roles, number_of_jobs, accountInfo, isVerified, jobs);
+        return Objects.hash(email, roles, number_of_jobs, accountInfo, isVerified);
     }
 
 // TODO: 04/07/2024 Remove when going into production?
@@ -144,7 +152,6 @@ public class Account implements Serializable {
                 ", number_of_jobs=" + number_of_jobs +
                 ", accountInfo=" + accountInfo +
                 ", isVerified=" + isVerified +
-                ", jobs=" + jobs +
                 '}';
     }
 }
@@ -0,0 +1,110 @@
+package se.sprinta.headhunterbackend.account;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.sprinta.headhunterbackend.account.dto.AccountDtoCredentials;
+import se.sprinta.headhunterbackend.utils.ExpiringLruCache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the credentials that AccountService.loadUserByUsername reads, so that logging in with HTTP Basic doesn't
+ * query the account table every time. At most account.principal-cache.max-size accounts are kept, each for at most
+ * account.principal-cache.ttl-seconds, which is also the longest that a change made on another instance goes
+ * unnoticed here.
+ * <p>
+ * Every change to the cached columns invalidates the account: AccountService.save, update and delete,
+ * VerificationService.verifyRegistration and JobService.addJob and delete. Inside a transaction the account is
+ * invalidated again when the transaction ends, so that a login in between can't keep what is about to be
+ * overwritten.
+ * Accounts that don't exist are never cached, so a new account can log in right away.
+ * <p>
+ * Hits and misses are counted in the account.principal.cache metric, with the hit ratio in
+ * account.principal.cache.hit-ratio, and the time to read an account on a miss in account.principal.load.
+ */
+
+@Component
+public class AccountPrincipalCache {
+
+    private final boolean enabled;
+    private final ExpiringLruCache<String, AccountDtoCredentials> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loads;
+
+    // Counts invalidations, so that a load that overlaps one doesn't store what it read
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AccountPrincipalCache(MeterRegistry meterRegistry,
+                                 @Value("${account.principal-cache.enabled:true}") boolean enabled,
+                                 @Value("${account.principal-cache.max-size:10000}") int maxSize,
+                                 @Value("${account.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = new ExpiringLruCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+        this.hits = Counter.builder("account.principal.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("account.principal.cache").tag("result", "miss").register(meterRegistry);
+        this.loads = Timer.builder("account.principal.load").register(meterRegistry);
+        Gauge.builder("account.principal.cache.size", this.cache, ExpiringLruCache::size).register(meterRegistry);
+        Gauge.builder("account.principal.cache.hit-ratio", this, AccountPrincipalCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * @param loader Reads the credentials from the database, on a miss.
+     * @return The cached credentials of the account, or what loader returns.
+     */
+
+    public Optional<AccountDtoCredentials> get(String email, Supplier<Optional<AccountDtoCredentials>> loader) {
+        if (!this.enabled) return loader.get();
+
+        AccountDtoCredentials cached = this.cache.get(email);
+        if (cached != null) {
+            this.hits.increment();
+            return Optional.of(cached);
+        }
+        this.misses.increment();
+
+        long invalidationsBefore = this.invalidations.get();
+        Optional<AccountDtoCredentials> loaded = this.loads.record(loader);
+
+        if (loaded != null && loaded.isPresent() && this.invalidations.get() == invalidationsBefore)
+            this.cache.put(email, loaded.get());
+        return loaded;
+    }
+
+    public void invalidate(String email) {
+        evict(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(email);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        this.invalidations.incrementAndGet();
+        this.cache.clear();
+    }
+
+    private void evict(String email) {
+        this.invalidations.incrementAndGet();
+        this.cache.invalidate(email);
+    }
+
+    double hitRatio() {
+        double total = this.hits.count() + this.misses.count();
+        return total == 0 ? 0 : this.hits.count() / total;
+    }
+}
@@ -1,12 +1,16 @@
 package se.sprinta.headhunterbackend.account;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import se.sprinta.headhunterbackend.account.dto.AccountDtoCredentials;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +28,21 @@ public interface AccountRepository extends JpaRepository<Account, String> {
 
     Optional<Account> findAccountByEmail(String email);
 
+    /**
+     * Returns an Account object with its jobs, for callers that go through all of them, like deleting the account
+     * along with its jobs. Everywhere else the jobs are only loaded when they are used.
+     */
+
+    @EntityGraph(attributePaths = "jobs")
+    Optional<Account> findWithJobsByEmail(String email);
+
+    /**
+     * Returns what logging in needs of an Account object, with a single query on the account table.
+     */
+
+    @Query("SELECT new se.sprinta.headhunterbackend.account.dto.AccountDtoCredentials(ac.email, ac.password, ac.roles, ac.number_of_jobs, ac.isVerified) FROM Account ac WHERE ac.email = :email")
+    Optional<AccountDtoCredentials> getAccountCredentialsByEmail(String email);
+
     @Query("SELECT COUNT(ac) = 0 FROM Account ac WHERE ac.email = :email")
     boolean validateEmailAvailable(String email);
 
@@ -33,6 +52,37 @@ public interface AccountRepository extends JpaRepository<Account, String> {
     @Query("SELECT new se.sprinta.headhunterbackend.account.dto.AccountDtoView(ac.email, ac.roles, ac.number_of_jobs, ac.isVerified) FROM Account ac")
     List<AccountDtoView> getAccountDtos();
 
+    /**
+     * Adds count to the number of jobs of an account in the database, without loading the account or its jobs.
+     *
+     * @return 1 if the account exists, otherwise 0.
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account ac SET ac.number_of_jobs = ac.number_of_jobs + :count WHERE ac.email = :email")
+    int incrementNumberOfJobs(String email, long count);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account ac SET ac.number_of_jobs = ac.number_of_jobs - :count WHERE ac.email = :email AND ac.number_of_jobs >= :count")
+    int decrementNumberOfJobs(String email, long count);
+
+    @Query("SELECT ac.email FROM Account ac WHERE ac.email > :afterEmail ORDER BY ac.email")
+    List<String> findEmailsAfter(String afterEmail, Pageable pageable);
+
+    /**
+     * Sets the number of jobs of the given accounts to the number of jobs they have, where it is off.
+     *
+     * @return The number of accounts that were repaired.
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account ac SET ac.number_of_jobs = (SELECT COUNT(j) FROM Job j WHERE j.account = ac) " +
+            "WHERE ac.email IN :emails AND ac.number_of_jobs <> (SELECT COUNT(j) FROM Job j WHERE j.account = ac)")
+    int reconcileNumberOfJobs(Collection<String> emails);
+
     @Modifying
     @Transactional
     @Query(value = "DELETE FROM account", nativeQuery = true)
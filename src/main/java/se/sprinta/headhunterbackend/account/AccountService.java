@@ -30,16 +30,19 @@ public class AccountService implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final MicrosoftGraphAuth microsoftGraphAuth;
     private final VerificationService verificationService;
+    private final AccountPrincipalCache accountPrincipalCache;
 
     public AccountService(
             AccountRepository accountRepository,
             PasswordEncoder passwordEncoder,
             MicrosoftGraphAuth microsoftGraphAuth,
-            VerificationService verificationService) {
+            VerificationService verificationService,
+            AccountPrincipalCache accountPrincipalCache) {
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
         this.microsoftGraphAuth = microsoftGraphAuth;
         this.verificationService = verificationService;
+        this.accountPrincipalCache = accountPrincipalCache;
     }
 
     public List<Account> findAll() {
@@ -72,6 +75,7 @@ public class AccountService implements UserDetailsService {
             throw new NullPointerException("Account object cannot be null");
 
         account.setPassword(this.passwordEncoder.encode(account.getPassword()));
+        this.accountPrincipalCache.invalidate(account.getEmail());
         return this.accountRepository.save(account);
     }
 
@@ -97,17 +101,22 @@ public class AccountService implements UserDetailsService {
 
         String rolesFixed = update.roles().replace("\"", "");
         foundAccount.setRoles(rolesFixed);
+        this.accountPrincipalCache.invalidate(accountEmail);
         return this.accountRepository.save(foundAccount);
     }
 
     public void delete(String email) {
-        Account foundAccount = this.accountRepository.findAccountByEmail(email)
+        // The jobs are deleted along with the account, so they are loaded in the same query
+        Account foundAccount = this.accountRepository.findWithJobsByEmail(email)
                 .orElseThrow(() -> new ObjectNotFoundException("account", email));
+        this.accountPrincipalCache.invalidate(email);
         this.accountRepository.delete(foundAccount);
     }
 
     /**
      * AccountDetails is fetched to Spring Security to check authentication.
+     * It runs on every login, so it only reads the credentials of the account, not the Account entity, and only when
+     * they aren't in AccountPrincipalCache.
      *
      * @param email Is used to find the Account object that tries to log in.
      * @return AccountDetails Here are the credentials that are being matched with
@@ -118,7 +127,7 @@ public class AccountService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        return this.accountRepository.findAccountByEmail(email) // First, we need to find this user from database.
+        return this.accountPrincipalCache.get(email, () -> this.accountRepository.getAccountCredentialsByEmail(email)) // First, we need to find this user from database.
                 .map(MyAccountPrincipal::new) // If found, wrap the returned user instance in a MyAccountPrincipal instance.
                 .orElseThrow(() -> new UsernameNotFoundException("email " + email + " is not found"));
     }
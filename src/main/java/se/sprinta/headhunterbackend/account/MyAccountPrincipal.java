@@ -4,38 +4,44 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.util.StringUtils;
+import se.sprinta.headhunterbackend.account.dto.AccountDtoCredentials;
+import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 
 import java.util.Arrays;
 import java.util.Collection;
 
+/**
+ * The logged in account, as Spring Security sees it. It is made from the credentials of the account only, see
+ * AccountService.loadUserByUsername.
+ */
 
 public class MyAccountPrincipal implements UserDetails {
 
-    private final Account account;
+    private final AccountDtoCredentials account;
 
-    public MyAccountPrincipal(Account account) {
+    public MyAccountPrincipal(AccountDtoCredentials account) {
         this.account = account;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Arrays.stream(StringUtils.tokenizeToStringArray(this.account.getRoles(), " "))
+        return Arrays.stream(StringUtils.tokenizeToStringArray(this.account.roles(), " "))
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                 .toList();
     }
 
     @Override
     public String getPassword() {
-        return this.account.getPassword();
+        return this.account.password();
     }
 
     @Override
     public String getUsername() {
-        return account.getEmail();
+        return account.email();
     }
 
     public String getName() {
-        return account.getEmail();
+        return account.email();
     }
 
     @Override
@@ -58,7 +64,12 @@ public class MyAccountPrincipal implements UserDetails {
         return true;
     }
 
-    public Account getUser() {
-        return account;
+    /**
+     * The account without its password, to send to the client that logged in.
+     */
+
+    public AccountDtoView toAccountDtoView() {
+        return new AccountDtoView(this.account.email(), this.account.roles(), this.account.number_of_jobs(),
+                this.account.isVerified());
     }
 }
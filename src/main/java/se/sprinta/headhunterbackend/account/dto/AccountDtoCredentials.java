@@ -0,0 +1,37 @@
+package se.sprinta.headhunterbackend.account.dto;
+
+/**
+ * The columns of an Account that Spring Security needs to log in, read without the Account entity, so that logging
+ * in never loads the jobs or the account info of the account. It holds the password hash, so it is never sent to a
+ * client, see MyAccountPrincipal.toAccountDtoView.
+ *
+ * @param email          The email of the Account object.
+ * @param password       The encoded password of the Account object.
+ * @param roles          The roles of the Account object, separated by spaces.
+ * @param number_of_jobs The number of jobs of the Account object.
+ * @param isVerified     Whether the Account object has been verified.
+ */
+
+public record AccountDtoCredentials(
+
+        String email,
+
+        String password,
+
+        String roles,
+
+        long number_of_jobs,
+
+        boolean isVerified
+
+) {
+    @Override
+    public String toString() {
+        return "AccountDtoCredentials{" +
+                "email='" + email + '\'' +
+                ", roles='" + roles + '\'' +
+                ", number_of_jobs=" + number_of_jobs +
+                ", isVerified=" + isVerified +
+                '}';
+    }
+}
@@ -1,10 +1,14 @@
 package se.sprinta.headhunterbackend.ad;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.hibernate.annotations.Type;
 import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.system.id.BinaryUuidType;
+import se.sprinta.headhunterbackend.system.id.Uuid7Id;
 
 import java.io.Serializable;
 import java.time.LocalDate;
@@ -18,18 +22,46 @@ import java.util.Objects;
 @Getter
 @AllArgsConstructor
 @Entity
-@Table(name = "ad")
+@Table(name = "ad", indexes = @Index(name = "idx_ad_job_date_id", columnList = "job_id, dateCreated, id"))
 public class Ad implements Serializable {
 
+    /**
+     * id is a version 7 UUID, which sorts by the time the ad was created, stored in 16 bytes.
+     * It is a String in its canonical form everywhere else, see BinaryUuidType.
+     */
+
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Uuid7Id
+    @Type(BinaryUuidType.class)
+    @Column(length = BinaryUuidType.LENGTH)
     private String id;
 
     /**
-     * htmlCode holds a String that makes up a job ad in Html-format
+     * content holds the Html-code of the ad, which is stored once for all ads with the same Html-code.
+     * It is set by AdRepository when the ad is saved, see AdRepositoryCustomImpl.
+     * Relationship: [Ad] *...1 [AdContent]
      */
 
-    @Column(columnDefinition = "TEXT")
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "content_hash")
+    private AdContent content;
+
+    /**
+     * legacyHtmlCode is the Html-code of an ad that was saved before AdContent, until AdContentMigration has moved it.
+     */
+
+    @JsonIgnore
+    @Convert(converter = HtmlCodeConverter.class)
+    @Column(name = "html_code", length = HtmlCodeConverter.MAX_LENGTH, insertable = false, updatable = false)
+    private String legacyHtmlCode;
+
+    /**
+     * htmlCode holds a String that makes up a job ad in Html-format, as it was last set, until the ad is saved.
+     * After that it is read from content.
+     */
+
+    @Transient
     private String htmlCode;
 
     /**
@@ -68,10 +100,27 @@ public class Ad implements Serializable {
         this.id = id;
     }
 
+    public String getHtmlCode() {
+        if (this.htmlCode != null) return this.htmlCode;
+        return this.content != null ? this.content.getHtmlCode() : this.legacyHtmlCode;
+    }
+
     public void setHtmlCode(String htmlCode) {
         this.htmlCode = htmlCode;
     }
 
+    /**
+     * @return The Html-code that was set since the ad was loaded, which AdRepository has to store when saving the ad.
+     */
+
+    String getUnsavedHtmlCode() {
+        return this.htmlCode;
+    }
+
+    void setContent(AdContent content) {
+        this.content = content;
+    }
+
     public void setJob(Job job) {
         this.job = job;
     }
@@ -81,12 +130,12 @@ public class Ad implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Ad ad = (Ad) o;
-        return Objects.equals(id, ad.id) && Objects.equals(htmlCode, ad.htmlCode) && Objects.equals(dateCreated, ad.dateCreated) && Objects.equals(job, ad.job);
+        return Objects.equals(id, ad.id) && Objects.equals(getHtmlCode(), ad.getHtmlCode()) && Objects.equals(dateCreated, ad.dateCreated) && Objects.equals(job, ad.job);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, htmlCode, dateCreated, job);
+        return Objects.hash(id, getHtmlCode(), dateCreated, job);
     }
 
     // TODO: 04/07/2024 Remove when going into production?
@@ -95,7 +144,7 @@ public class Ad implements Serializable {
     public String toString() {
         return "Ad{" +
                 "id='" + id + '\'' +
-                ", htmlCode='" + htmlCode + '\'' +
+                ", htmlCode='" + getHtmlCode() + '\'' +
                 ", dateCreated=" + dateCreated +
                 ", job=" + job +
                 '}';
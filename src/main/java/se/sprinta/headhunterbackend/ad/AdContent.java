@@ -0,0 +1,125 @@
+package se.sprinta.headhunterbackend.ad;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import se.sprinta.headhunterbackend.utils.HtmlTextSummary;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * AdContent is the HTML code of one or more ads, stored once no matter how many ads have it.
+ * It is keyed by the SHA-256 hash of the HTML code, and counts the ads that reference it.
+ * Relationship: [Ad] *...1 [AdContent]
+ * <p>
+ * AdContent is written by AdRepository (see AdRepositoryCustomImpl), and collected by AdContentCollector once no ad
+ * references it anymore.
+ */
+
+@Getter
+@Entity
+@Table(name = "ad_content", indexes = @Index(name = "idx_ad_content_ref_count", columnList = "refCount"))
+public class AdContent implements Serializable {
+
+    public static final int HASH_LENGTH = 64;
+    public static final int EXCERPT_LENGTH = 200;
+
+    /**
+     * hash is the SHA-256 hash of the UTF-8 bytes of htmlCode, in lower case hex.
+     */
+
+    @Id
+    @Column(length = HASH_LENGTH)
+    private String hash;
+
+    /**
+     * htmlCode holds a String that makes up a job ad in Html-format.
+     * It is stored compressed, see HtmlCodeConverter.
+     */
+
+    @Convert(converter = HtmlCodeConverter.class)
+    @Column(length = HtmlCodeConverter.MAX_LENGTH, updatable = false)
+    private String htmlCode;
+
+    /**
+     * htmlSize is the length of htmlCode in UTF-8 bytes, so that ads can be listed with their size without reading it.
+     */
+
+    private int htmlSize;
+
+    /**
+     * excerpt is the start of the plain text of htmlCode, and wordCount the number of words in it, see HtmlTextSummary.
+     * Like htmlSize, they are computed once, when the content is first stored, so that list views don't need htmlCode.
+     */
+
+    @Column(length = EXCERPT_LENGTH)
+    private String excerpt;
+
+    private int wordCount;
+
+    /**
+     * refCount is the number of ads that reference this content.
+     * It is kept up to date by AdRepository, and corrected by AdContentCollector for ads that were deleted along with
+     * their job or account.
+     */
+
+    private long refCount;
+
+    /**
+     * lastReferenced is when an ad last started to reference this content.
+     * Content is only collected some time after that, so that an ad that is being saved never loses its content.
+     */
+
+    private LocalDateTime lastReferenced;
+
+    public AdContent() {
+    }
+
+    public AdContent(String htmlCode) {
+        this.hash = hash(htmlCode);
+        this.htmlCode = htmlCode;
+        this.htmlSize = htmlCode.getBytes(StandardCharsets.UTF_8).length;
+        HtmlTextSummary textSummary = HtmlTextSummary.of(htmlCode, EXCERPT_LENGTH);
+        this.excerpt = textSummary.excerpt();
+        this.wordCount = textSummary.wordCount();
+        this.lastReferenced = LocalDateTime.now();
+    }
+
+    public static String hash(String htmlCode) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(htmlCode.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AdContent adContent)) return false;
+        return Objects.equals(hash, adContent.getHash());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return "AdContent{" +
+                "hash='" + hash + '\'' +
+                ", htmlSize=" + htmlSize +
+                ", wordCount=" + wordCount +
+                ", refCount=" + refCount +
+                ", lastReferenced=" + lastReferenced +
+                '}';
+    }
+}
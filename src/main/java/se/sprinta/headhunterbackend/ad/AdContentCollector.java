@@ -0,0 +1,68 @@
+package se.sprinta.headhunterbackend.ad;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deletes the AdContent that no ad references anymore, every ad.content.gc-interval-ms, in the background.
+ * <p>
+ * Content is only deleted ad.content.gc-grace-minutes after it was last referenced, so that an ad that is being saved
+ * never loses the content it was given. Every sweep also recounts the references of the next ad.content.gc-batch-size
+ * contents, which corrects the counts of ads that were deleted along with their job or account, without going
+ * through AdRepository.delete. That way every count is corrected once per (number of contents / batch size) sweeps.
+ */
+
+@Component
+public class AdContentCollector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdContentCollector.class);
+
+    private final AdContentRepository adContentRepository;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final Counter collected;
+
+    private String lastRecountedHash = "";
+
+    public AdContentCollector(AdContentRepository adContentRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${ad.content.gc-grace-minutes:60}") long graceMinutes,
+                              @Value("${ad.content.gc-batch-size:500}") int batchSize) {
+        this.adContentRepository = adContentRepository;
+        this.gracePeriod = Duration.ofMinutes(graceMinutes);
+        this.batchSize = batchSize;
+        this.collected = Counter.builder("ad.content.collected").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${ad.content.gc-interval-ms:600000}", fixedDelayString = "${ad.content.gc-interval-ms:600000}")
+    public synchronized void collect() {
+        recountBatch();
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(this.gracePeriod);
+        List<String> hashes = this.adContentRepository.findUnreferencedHashes(cutoff, PageRequest.ofSize(this.batchSize));
+        if (hashes.isEmpty()) return;
+
+        int deleted = this.adContentRepository.deleteUnreferenced(hashes, cutoff);
+        this.collected.increment(deleted);
+        LOGGER.debug("Collected {} unreferenced ad content(s)", deleted);
+    }
+
+    private void recountBatch() {
+        List<String> hashes = this.adContentRepository.findHashesAfter(this.lastRecountedHash, PageRequest.ofSize(this.batchSize));
+
+        if (!hashes.isEmpty()) this.adContentRepository.recountReferences(hashes);
+
+        // Start over from the first content once the last one has been recounted
+        this.lastRecountedHash = hashes.size() < this.batchSize ? "" : hashes.getLast();
+    }
+}
@@ -0,0 +1,89 @@
+package se.sprinta.headhunterbackend.ad;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.sprinta.headhunterbackend.system.id.BinaryUuidType;
+
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Moves the Html-code of the ads that were saved before AdContent, from the html_code column of the ad to AdContent,
+ * one batch of ad.content.migration-batch-size rows every ad.content.migration-interval-ms, so that the database isn't
+ * kept busy. The rows are walked by id, and the migration stops by itself once it has seen every row.
+ * <p>
+ * Old rows read correctly without it, this only deduplicates them. Once the migration has finished, the html_code
+ * column can be dropped, in the same release that removes Ad.legacyHtmlCode, which prod validates against the schema:
+ * <pre>
+ * ALTER TABLE ad DROP COLUMN html_code;
+ * </pre>
+ * Rows are read as they are stored, so both the TEXT column from before HtmlCodeConverter and the compressed bytes
+ * written by it are understood.
+ */
+
+@Component
+public class AdContentMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdContentMigration.class);
+
+    private final AdRepository adRepository;
+    private final int batchSize;
+
+    private byte[] lastId = new byte[BinaryUuidType.LENGTH];
+    private boolean finished;
+    private long migratedRows;
+
+    public AdContentMigration(AdRepository adRepository,
+                              @Value("${ad.content.migration-enabled:true}") boolean enabled,
+                              @Value("${ad.content.migration-batch-size:200}") int batchSize) {
+        this.adRepository = adRepository;
+        this.finished = !enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${ad.content.migration-interval-ms:5000}", fixedDelayString = "${ad.content.migration-interval-ms:5000}")
+    public synchronized void migrateBatch() {
+        if (this.finished) return;
+
+        List<Object[]> rows = this.adRepository.getLegacyHtmlCodesAfter(this.lastId, this.batchSize);
+
+        for (Object[] row : rows) {
+            this.lastId = (byte[]) row[0];
+
+            // An ad that was saved or deleted in between is left alone
+            if (this.adRepository.moveToContent(BinaryUuidType.fromBytes(this.lastId), toHtmlCode(row[1])))
+                this.migratedRows++;
+        }
+
+        if (rows.size() < this.batchSize) {
+            this.finished = true;
+            if (this.migratedRows > 0)
+                LOGGER.info("Moved the Html-code of {} stored ad(s) to ad_content", this.migratedRows);
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return this.finished;
+    }
+
+    public synchronized long getMigratedRows() {
+        return this.migratedRows;
+    }
+
+    private static String toHtmlCode(Object column) {
+        try {
+            return switch (column) {
+                case String text -> text;
+                case byte[] bytes -> HtmlCodeConverter.decode(bytes);
+                case Blob blob -> HtmlCodeConverter.decode(blob.getBytes(1, (int) blob.length()));
+                default -> throw new IllegalStateException("Unexpected html_code column type " + column.getClass());
+            };
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not read html_code", ex);
+        }
+    }
+}
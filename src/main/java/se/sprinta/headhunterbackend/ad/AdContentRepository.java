@@ -0,0 +1,94 @@
+package se.sprinta.headhunterbackend.ad;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for AdContent objects
+ * <p>
+ * The reference counts are only ever changed with single statements, so that ads that are saved and deleted at the
+ * same time never lose an update.
+ */
+
+@Repository
+public interface AdContentRepository extends JpaRepository<AdContent, String> {
+
+  /**
+   * Adds references to existing content, without reading or sending its HTML code.
+   *
+   * @return 1 if the content exists, otherwise 0.
+   */
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE AdContent c SET c.refCount = c.refCount + :count, c.lastReferenced = :now WHERE c.hash = :hash")
+  int addReferences(String hash, long count, LocalDateTime now);
+
+  /**
+   * Stores new content with count references, or adds count references if another transaction stored it first.
+   *
+   * @param htmlCode The HTML code as encoded by HtmlCodeConverter.
+   * @param htmlSize The length of the HTML code in UTF-8 bytes.
+   * @param excerpt  The excerpt of the plain text of the HTML code.
+   * @param wordCount The number of words in the plain text of the HTML code.
+   */
+
+  @Modifying
+  @Transactional
+  @Query(value = "INSERT INTO ad_content (hash, html_code, html_size, excerpt, word_count, ref_count, last_referenced) " +
+      "VALUES (:hash, :htmlCode, :htmlSize, :excerpt, :wordCount, :count, :now) " +
+      "ON DUPLICATE KEY UPDATE ref_count = ref_count + :count, last_referenced = :now", nativeQuery = true)
+  void insertOrAddReferences(String hash, byte[] htmlCode, int htmlSize, String excerpt, int wordCount, long count, LocalDateTime now);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE AdContent c SET c.refCount = c.refCount - :count WHERE c.hash = :hash AND c.refCount >= :count")
+  int removeReferences(String hash, long count);
+
+  /**
+   * Returns content that no ad references anymore, and that wasn't referenced since before cutoff.
+   */
+
+  @Query("SELECT c.hash FROM AdContent c WHERE c.refCount <= 0 AND c.lastReferenced < :cutoff")
+  List<String> findUnreferencedHashes(LocalDateTime cutoff, Pageable pageable);
+
+  /**
+   * Deletes the given content, as long as it is still unreferenced. The ads themselves are checked as well, in case a
+   * reference count is off.
+   *
+   * @return The number of deleted rows.
+   */
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM AdContent c WHERE c.hash IN :hashes AND c.refCount <= 0 AND c.lastReferenced < :cutoff " +
+      "AND NOT EXISTS (SELECT ad.id FROM Ad ad WHERE ad.content = c)")
+  int deleteUnreferenced(Collection<String> hashes, LocalDateTime cutoff);
+
+  @Query("SELECT c.hash FROM AdContent c WHERE c.hash > :afterHash ORDER BY c.hash")
+  List<String> findHashesAfter(String afterHash, Pageable pageable);
+
+  /**
+   * Sets the reference counts of the given content to the number of ads that reference it.
+   *
+   * @return The number of content rows that were counted.
+   */
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE AdContent c SET c.refCount = (SELECT COUNT(ad) FROM Ad ad WHERE ad.content = c) WHERE c.hash IN :hashes")
+  int recountReferences(Collection<String> hashes);
+
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM ad_content", nativeQuery = true)
+  void deleteAdContentTable();
+}
@@ -5,6 +5,7 @@ import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.ad.converter.AdToAdDtoView;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoForm;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryPageDtoView;
 import se.sprinta.headhunterbackend.system.Result;
 import se.sprinta.headhunterbackend.system.StatusCode;
 
@@ -50,6 +51,27 @@ public class AdController {
     return new Result(true, StatusCode.SUCCESS, "Get Ad Dtos by Job Id Success", foundAdDtos);
   }
 
+  /**
+   * Lists the ads of a job newest first, a page at a time, without their Html-code, which is fetched with getHtmlCode
+   * for the ads that are shown.
+   *
+   * @param cursor The nextCursor of the previous page, left out for the first page.
+   */
+
+  @GetMapping("/getAdSummariesByJobId/{jobId}")
+  public Result getAdSummariesByJobId(@PathVariable long jobId,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "20") int limit) {
+    AdSummaryPageDtoView adSummaryPage = this.adService.getAdSummariesByJobId(jobId, cursor, limit);
+    return new Result(true, StatusCode.SUCCESS, "Get Ad Summaries by Job Id Success", adSummaryPage);
+  }
+
+  @GetMapping("/getHtmlCode/{adId}")
+  public Result getHtmlCode(@PathVariable String adId) {
+    String htmlCode = this.adService.getHtmlCode(adId);
+    return new Result(true, StatusCode.SUCCESS, "Get Html Code Success", htmlCode);
+  }
+
   @GetMapping("/getNumberOfAdsByJobId/{jobId}")
   public Result getNumberOfAds(@PathVariable Long jobId) {
     Long numberOfAds = this.adService.getNumberOfAdsByJobId(jobId);
@@ -1,41 +1,100 @@
 package se.sprinta.headhunterbackend.ad;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryDtoView;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for Ad objects
+ * <p>
+ * The Html-code of ads is stored in AdContent, which save and delete keep in step, see AdRepositoryCustomImpl.
+ * Ads that were saved before AdContent still have their Html-code in legacyHtmlCode, until AdContentMigration has moved it.
  */
 
 @Repository
-public interface AdRepository extends JpaRepository<Ad, String> {
+public interface AdRepository extends JpaRepository<Ad, String>, AdRepositoryCustom {
+
+  /**
+   * save, saveAll and delete are declared by both CrudRepository and AdRepositoryCustom. They are redeclared here so
+   * that calls to them resolve to a single method, which is implemented by AdRepositoryCustomImpl.
+   */
+
+  @Override
+  <S extends Ad> S save(S ad);
+
+  @Override
+  <S extends Ad> List<S> saveAll(Iterable<S> ads);
+
+  @Override
+  void delete(Ad ad);
 
   /**
    * Returns Ad objects that are related a Job object
    * Relationship: [Ad] *...1 [Job]
    */
 
-  @Query("SELECT new se.sprinta.headhunterbackend.ad.dto.AdDtoView(ad.id, ad.dateCreated, ad.htmlCode) FROM Ad ad")
+  @Query("SELECT new se.sprinta.headhunterbackend.ad.dto.AdDtoView(ad.id, ad.dateCreated, COALESCE(c.htmlCode, ad.legacyHtmlCode)) " +
+      "FROM Ad ad LEFT JOIN ad.content c")
   List<AdDtoView> getAdDtos();
 
-  @Query("SELECT ad FROM Ad ad WHERE ad.job.id = :jobId")
+  @Query("SELECT ad FROM Ad ad LEFT JOIN FETCH ad.content WHERE ad.job.id = :jobId")
   List<Ad> getAdsByJobId(Long jobId);
 
-  @Query("SELECT new se.sprinta.headhunterbackend.ad.dto.AdDtoView(ad.id, ad.dateCreated, ad.htmlCode) FROM Ad ad WHERE ad.job.id = :jobId")
+  @Query("SELECT new se.sprinta.headhunterbackend.ad.dto.AdDtoView(ad.id, ad.dateCreated, COALESCE(c.htmlCode, ad.legacyHtmlCode)) " +
+      "FROM Ad ad LEFT JOIN ad.content c WHERE ad.job.id = :jobId")
   List<AdDtoView> getAdDtosByJobId(long jobId);
 
+  /**
+   * Returns the first page of ads of a Job, newest first, without their Html-code.
+   * Ads of the same day are ordered by id, which is the order they were created in, since ids are version 7 UUIDs.
+   */
+
+  @Query("SELECT new se.sprinta.headhunterbackend.ad.dto.AdSummaryDtoView(ad.id, ad.dateCreated, c.htmlSize, c.hash, c.excerpt, c.wordCount) " +
+      "FROM Ad ad LEFT JOIN ad.content c WHERE ad.job.id = :jobId ORDER BY ad.dateCreated DESC, ad.id DESC")
+  List<AdSummaryDtoView> getAdSummariesByJobId(long jobId, Pageable pageable);
+
+  /**
+   * Returns the page of ads of a Job that comes after the ad with beforeDateCreated and beforeId, in the same order as
+   * getAdSummariesByJobId. The index on (job_id, date_created, id) lets the database start right there, instead of
+   * skipping all the ads of the pages before.
+   */
+
+  @Query("SELECT new se.sprinta.headhunterbackend.ad.dto.AdSummaryDtoView(ad.id, ad.dateCreated, c.htmlSize, c.hash, c.excerpt, c.wordCount) " +
+      "FROM Ad ad LEFT JOIN ad.content c WHERE ad.job.id = :jobId " +
+      "AND (ad.dateCreated < :beforeDateCreated OR (ad.dateCreated = :beforeDateCreated AND ad.id < :beforeId)) " +
+      "ORDER BY ad.dateCreated DESC, ad.id DESC")
+  List<AdSummaryDtoView> getAdSummariesByJobIdBefore(long jobId, LocalDate beforeDateCreated, String beforeId, Pageable pageable);
+
+  @Query("SELECT COALESCE(c.htmlCode, ad.legacyHtmlCode) FROM Ad ad LEFT JOIN ad.content c WHERE ad.id = :adId")
+  Optional<String> getHtmlCodeByAdId(String adId);
+
   @Query("SELECT new se.sprinta.headhunterbackend.account.dto.AccountDtoView(ad.job.account.email, ad.job.account.roles, ad.job.account.number_of_jobs, ad.job.account.isVerified) FROM Ad ad where ad.id = :adId")
   AccountDtoView getAccountDtoByAdId(String adId);
 
-  @Query("SELECT COUNT(ad) FROM Ad ad WHERE ad.job.id = :jobId")
-  long getNumberOfAdsByJobId(long jobId);
+  /**
+   * Returns the most recently created Ad of a Job, if it has any.
+   * dateCreated is a date, so ads created on the same day are told apart by their id, which is time-ordered.
+   */
+
+  Optional<Ad> findFirstByJobIdOrderByDateCreatedDescIdDesc(Long jobId);
+
+  /**
+   * Returns the id and the html_code column as stored, without BinaryUuidType and HtmlCodeConverter, of the next batch of ads by id that
+   * were saved before AdContent. Used by AdContentMigration.
+   */
+
+  @Query(value = "SELECT id, html_code FROM ad WHERE id > :afterId AND content_hash IS NULL AND html_code IS NOT NULL ORDER BY id LIMIT :limit", nativeQuery = true)
+  List<Object[]> getLegacyHtmlCodesAfter(byte[] afterId, int limit);
 
   @Modifying
   @Transactional
@@ -0,0 +1,24 @@
+package se.sprinta.headhunterbackend.ad;
+
+import java.util.List;
+
+/**
+ * The methods of AdRepository that store and release the AdContent of ads, see AdRepositoryCustomImpl.
+ */
+
+public interface AdRepositoryCustom {
+
+  <S extends Ad> S save(S ad);
+
+  <S extends Ad> List<S> saveAll(Iterable<S> ads);
+
+  void delete(Ad ad);
+
+  /**
+   * Moves the Html-code of an ad that was saved before AdContent to AdContent, see AdContentMigration.
+   *
+   * @return true if the ad was moved, false if it was saved or deleted in the meantime.
+   */
+
+  boolean moveToContent(String adId, String htmlCode);
+}
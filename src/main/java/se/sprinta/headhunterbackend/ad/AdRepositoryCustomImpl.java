@@ -0,0 +1,136 @@
+package se.sprinta.headhunterbackend.ad;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import se.sprinta.headhunterbackend.system.id.BinaryUuidType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves and deletes ads the way SimpleJpaRepository does, and keeps their AdContent in step.
+ * <p>
+ * Saving an ad with new Html-code makes it reference the AdContent with the hash of that Html-code, which is only
+ * stored if no other ad has the same Html-code. Deleting an ad, or saving it with other Html-code, releases its
+ * reference to the AdContent it had. Unreferenced AdContent is deleted later on by AdContentCollector.
+ * <p>
+ * Ads that are deleted along with their job or account don't release their AdContent here; AdContentCollector
+ * corrects the reference counts for those.
+ */
+
+public class AdRepositoryCustomImpl implements AdRepositoryCustom {
+
+  private final EntityManager entityManager;
+  private final AdContentRepository adContentRepository;
+
+  public AdRepositoryCustomImpl(EntityManager entityManager, AdContentRepository adContentRepository) {
+    this.entityManager = entityManager;
+    this.adContentRepository = adContentRepository;
+  }
+
+  @Override
+  @Transactional
+  public <S extends Ad> S save(S ad) {
+    storeContent(List.of(ad));
+    return persistOrMerge(ad);
+  }
+
+  @Override
+  @Transactional
+  public <S extends Ad> List<S> saveAll(Iterable<S> ads) {
+    // All content in one go, so that identical ads cost a single statement
+    storeContent(ads);
+
+    List<S> savedAds = new ArrayList<>();
+    for (S ad : ads) savedAds.add(persistOrMerge(ad));
+    return savedAds;
+  }
+
+  @Override
+  @Transactional
+  public void delete(Ad ad) {
+    if (ad.getId() == null) return;
+
+    Ad foundAd = this.entityManager.contains(ad) ? ad : this.entityManager.find(Ad.class, ad.getId());
+    if (foundAd == null) return;
+
+    AdContent content = foundAd.getContent();
+    this.entityManager.remove(foundAd);
+
+    if (content != null) this.adContentRepository.removeReferences(content.getHash(), 1);
+  }
+
+  @Override
+  @Transactional
+  public boolean moveToContent(String adId, String htmlCode) {
+    String hash = AdContent.hash(htmlCode);
+    addReferences(Map.of(hash, htmlCode), Map.of(hash, 1L));
+
+    int moved = this.entityManager
+        .createNativeQuery("UPDATE ad SET content_hash = :hash, html_code = NULL WHERE id = :id AND content_hash IS NULL")
+        .setParameter("hash", hash)
+        .setParameter("id", BinaryUuidType.toBytes(adId))
+        .executeUpdate();
+
+    if (moved == 0) this.adContentRepository.removeReferences(hash, 1);
+    return moved > 0;
+  }
+
+  private <S extends Ad> S persistOrMerge(S ad) {
+    if (ad.getId() == null) {
+      this.entityManager.persist(ad);
+      return ad;
+    }
+
+    S mergedAd = this.entityManager.merge(ad);
+    // htmlCode is transient, so merge doesn't copy it
+    mergedAd.setHtmlCode(ad.getUnsavedHtmlCode());
+    return mergedAd;
+  }
+
+  private void storeContent(Iterable<? extends Ad> ads) {
+    Map<String, String> htmlCodeByHash = new HashMap<>();
+    Map<String, Long> addedReferences = new HashMap<>();
+    Map<String, Long> removedReferences = new HashMap<>();
+
+    for (Ad ad : ads) {
+      String htmlCode = ad.getUnsavedHtmlCode();
+      if (htmlCode == null) continue;
+
+      String hash = AdContent.hash(htmlCode);
+      AdContent previousContent = ad.getContent();
+      if (previousContent != null) {
+        if (previousContent.getHash().equals(hash)) continue;
+        removedReferences.merge(previousContent.getHash(), 1L, Long::sum);
+      }
+
+      htmlCodeByHash.putIfAbsent(hash, htmlCode);
+      addedReferences.merge(hash, 1L, Long::sum);
+      ad.setContent(this.entityManager.getReference(AdContent.class, hash));
+    }
+
+    addReferences(htmlCodeByHash, addedReferences);
+    removedReferences.forEach(this.adContentRepository::removeReferences);
+  }
+
+  /**
+   * Adds the references to AdContent that exists, which doesn't send the Html-code to the database, and stores the
+   * AdContent that doesn't.
+   */
+
+  private void addReferences(Map<String, String> htmlCodeByHash, Map<String, Long> referencesByHash) {
+    LocalDateTime now = LocalDateTime.now();
+
+    referencesByHash.forEach((hash, count) -> {
+      if (this.adContentRepository.addReferences(hash, count, now) == 0) {
+        // Computes the size and the excerpt, only for content that isn't stored yet
+        AdContent content = new AdContent(htmlCodeByHash.get(hash));
+        this.adContentRepository.insertOrAddReferences(hash, HtmlCodeConverter.encode(content.getHtmlCode()),
+            content.getHtmlSize(), content.getExcerpt(), content.getWordCount(), count, now);
+      }
+    });
+  }
+}
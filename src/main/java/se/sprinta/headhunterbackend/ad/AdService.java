@@ -1,14 +1,22 @@
 package se.sprinta.headhunterbackend.ad;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoForm;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryPageDtoView;
 import se.sprinta.headhunterbackend.job.Job;
 import se.sprinta.headhunterbackend.job.JobRepository;
+import se.sprinta.headhunterbackend.system.exception.InvalidCursorException;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -19,6 +27,8 @@ import java.util.List;
 @Transactional
 public class AdService {
 
+  public static final int MAX_PAGE_SIZE = 100;
+
   private final AdRepository adRepository;
   private final JobRepository jobRepository;
 
@@ -47,6 +57,41 @@ public class AdService {
     return this.adRepository.getAdDtosByJobId(jobId);
   }
 
+  /**
+   * Lists the ads of a Job newest first, a page at a time, without their Html-code.
+   *
+   * @param cursor The nextCursor of the previous page, or null for the first page.
+   * @param limit  The number of ads per page, at most MAX_PAGE_SIZE.
+   * @throws InvalidCursorException If cursor isn't a cursor that this method returned.
+   */
+
+  public AdSummaryPageDtoView getAdSummariesByJobId(Long jobId, String cursor, int limit) {
+    this.jobRepository.findById(jobId)
+        .orElseThrow(() -> new ObjectNotFoundException("job", jobId));
+
+    int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+    // One more than the page size, to know whether there is a next page
+    PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+
+    List<AdSummaryDtoView> adSummaries;
+    if (cursor == null || cursor.isBlank()) {
+      adSummaries = this.adRepository.getAdSummariesByJobId(jobId, pageRequest);
+    } else {
+      Cursor position = decodeCursor(cursor);
+      adSummaries = this.adRepository.getAdSummariesByJobIdBefore(jobId, position.dateCreated(), position.id(), pageRequest);
+    }
+
+    if (adSummaries.size() <= pageSize) return new AdSummaryPageDtoView(adSummaries, null);
+
+    List<AdSummaryDtoView> page = List.copyOf(adSummaries.subList(0, pageSize));
+    return new AdSummaryPageDtoView(page, encodeCursor(page.getLast()));
+  }
+
+  public String getHtmlCode(String adId) {
+    return this.adRepository.getHtmlCodeByAdId(adId)
+        .orElseThrow(() -> new ObjectNotFoundException("ad", adId));
+  }
+
   public AccountDtoView getAccountDtoByAdId(String adId) {
     this.adRepository.findById(adId)
         .orElseThrow(() -> new ObjectNotFoundException("ad", adId));
@@ -54,36 +99,88 @@ public class AdService {
     return this.adRepository.getAccountDtoByAdId(adId);
   }
 
+  /**
+   * Returns the stored number of ads of a Job, see JobRepository.incrementNumberOfAds, instead of counting them.
+   */
+
   public long getNumberOfAdsByJobId(long jobId) {
-    this.jobRepository.findById(jobId)
+    return this.jobRepository.getNumberOfAdsById(jobId)
         .orElseThrow(() -> new ObjectNotFoundException("job", jobId));
-
-    return this.adRepository.getNumberOfAdsByJobId(jobId);
   }
 
   public Ad save(Ad ad) {
     return this.adRepository.save(ad);
   }
 
-  public Ad addAd(Long jobId, AdDtoForm adDtoForm) {
+  /**
+   * Adds an ad to a Job with one insert and one update of the job's number of ads, without loading the job or its
+   * other ads.
+   */
 
-    Job foundJob = this.jobRepository.findById(jobId)
-        .orElseThrow(() -> new ObjectNotFoundException("job", jobId));
+  public Ad addAd(Long jobId, AdDtoForm adDtoForm) {
+    // Also tells whether the job exists
+    if (this.jobRepository.incrementNumberOfAds(jobId, 1) == 0)
+      throw new ObjectNotFoundException("job", jobId);
 
     Ad newAd = new Ad();
     newAd.setHtmlCode(adDtoForm.htmlCode());
+    newAd.setJob(this.jobRepository.getReferenceById(jobId));
+
+    return this.adRepository.save(newAd);
+  }
 
-    foundJob.addAd(newAd);
+  /**
+   * Adds a generated ad to a Job that the caller has already loaded, in a transaction of its own. JobService generates
+   * ads outside of any transaction, so the ad has been committed by the time this method returns.
+   *
+   * @param job      The job that the ad was generated for, may be detached.
+   * @param htmlCode The generated Html-code.
+   * @return The persisted Ad.
+   */
 
-    // Dirty check on foundUser, so is automatically persisted
+  public Ad addGeneratedAd(Job job, String htmlCode) {
+    // Also tells whether the job still exists, it may have been deleted while the ad was being generated
+    if (this.jobRepository.incrementNumberOfAds(job.getId(), 1) == 0)
+      throw new ObjectNotFoundException("job", job.getId());
+
+    Ad newAd = new Ad(htmlCode);
+    job.addAd(newAd);
 
     return this.adRepository.save(newAd);
   }
 
+  /**
+   * Deletes an ad, which releases its reference to its AdContent. The content itself is deleted later on by
+   * AdContentCollector, once no ad references it anymore.
+   */
+
   public void delete(String adId) {
     Ad foundAd = this.adRepository.findById(adId)
         .orElseThrow(() -> new ObjectNotFoundException("ad", adId));
 
     this.adRepository.delete(foundAd);
+    if (foundAd.getJob() != null) this.jobRepository.decrementNumberOfAds(foundAd.getJob().getId(), 1);
+  }
+
+  /**
+   * A cursor is the dateCreated and id of the last ad of a page, which the next page starts after.
+   */
+
+  static String encodeCursor(AdSummaryDtoView lastAdSummary) {
+    String position = lastAdSummary.dateCreated() + "|" + lastAdSummary.id();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Cursor decodeCursor(String cursor) {
+    try {
+      String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+      if (position.length != 2) throw new InvalidCursorException(cursor);
+      return new Cursor(LocalDate.parse(position[0]), position[1]);
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+
+  record Cursor(LocalDate dateCreated, String id) {
   }
 }
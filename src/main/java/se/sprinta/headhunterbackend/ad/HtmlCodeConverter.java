@@ -0,0 +1,125 @@
+package se.sprinta.headhunterbackend.ad;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores the Html-code of ads compressed, since HTML ads compress 5-10x and the ad table is by far the largest table.
+ * <p>
+ * The first byte of a stored value says how the rest is stored:
+ * <ul>
+ *     <li>FORMAT_DEFLATE: deflated (zlib) UTF-8.</li>
+ *     <li>FORMAT_PLAIN: plain UTF-8, for values too short to get smaller when deflated.</li>
+ *     <li>Anything else: a row that was written as TEXT before this converter, which is plain UTF-8 as a whole.
+ *     HTML never starts with a 0x00 or 0x01 byte, so these can't be mistaken for each other.</li>
+ * </ul>
+ * Old rows are moved to AdContent, and with that rewritten in the new format, by AdContentMigration.
+ */
+
+@Converter
+public class HtmlCodeConverter implements AttributeConverter<String, byte[]> {
+
+    public static final byte FORMAT_PLAIN = 0x00;
+    public static final byte FORMAT_DEFLATE = 0x01;
+
+    /**
+     * The column length, which makes the column a MEDIUMBLOB on MySQL.
+     */
+    public static final int MAX_LENGTH = 16_777_215;
+
+    // Below this many bytes deflating doesn't pay off
+    private static final int MIN_DEFLATE_LENGTH = 128;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String htmlCode) {
+        return htmlCode == null ? null : encode(htmlCode);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return stored == null ? null : decode(stored);
+    }
+
+    public static byte[] encode(String htmlCode) {
+        byte[] utf8 = htmlCode.getBytes(StandardCharsets.UTF_8);
+
+        if (utf8.length >= MIN_DEFLATE_LENGTH) {
+            byte[] deflated = deflate(utf8);
+            if (deflated != null) return deflated;
+        }
+
+        byte[] plain = new byte[utf8.length + 1];
+        plain[0] = FORMAT_PLAIN;
+        System.arraycopy(utf8, 0, plain, 1, utf8.length);
+        return plain;
+    }
+
+    public static String decode(byte[] stored) {
+        if (stored.length == 0) return "";
+
+        return switch (stored[0]) {
+            case FORMAT_DEFLATE -> new String(inflate(stored), StandardCharsets.UTF_8);
+            case FORMAT_PLAIN -> new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            default -> new String(stored, StandardCharsets.UTF_8);
+        };
+    }
+
+    /**
+     * @return true if stored was written by this converter, false if it is an old TEXT row.
+     */
+
+    public static boolean isEncoded(byte[] stored) {
+        return stored.length > 0 && (stored[0] == FORMAT_DEFLATE || stored[0] == FORMAT_PLAIN);
+    }
+
+    /**
+     * @return The format byte followed by the deflated bytes, or null if that isn't shorter than utf8.
+     */
+
+    private static byte[] deflate(byte[] utf8) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+
+            byte[] buffer = new byte[utf8.length];
+            buffer[0] = FORMAT_DEFLATE;
+            int length = 1;
+            while (!deflater.finished()) {
+                if (length == buffer.length) return null;
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+
+            ByteArrayOutputStream utf8 = new ByteArrayOutputStream(stored.length * 6);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalStateException("Stored ad HTML code is truncated");
+                utf8.write(buffer, 0, length);
+            }
+            return utf8.toByteArray();
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Stored ad HTML code is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package se.sprinta.headhunterbackend.ad.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Ad data for listing ads, without the Html-code, which is fetched separately per ad.
+ *
+ * @param id          The unique identifier of the Ad object.
+ * @param dateCreated The timestamp for when the database entry was originally created.
+ * @param size        The length of the Html-code in UTF-8 bytes, or null for an ad that AdContentMigration hasn't moved yet.
+ * @param contentHash The hash of the Html-code, which is the same for ads with the same Html-code, or null like size.
+ * @param excerpt     The start of the plain text of the Html-code, to preview the ad with, or null like size.
+ * @param wordCount   The number of words in the plain text of the Html-code, or null like size.
+ */
+
+public record AdSummaryDtoView(
+        String id,
+        LocalDate dateCreated,
+        Integer size,
+        String contentHash,
+        String excerpt,
+        Integer wordCount
+) {
+
+}
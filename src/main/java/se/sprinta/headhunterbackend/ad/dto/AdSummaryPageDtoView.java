@@ -0,0 +1,17 @@
+package se.sprinta.headhunterbackend.ad.dto;
+
+import java.util.List;
+
+/**
+ * One page of ad summaries, newest first.
+ *
+ * @param ads        The ads on this page.
+ * @param nextCursor The cursor to get the next page with, or null if this is the last page.
+ */
+
+public record AdSummaryPageDtoView(
+        List<AdSummaryDtoView> ads,
+        String nextCursor
+) {
+
+}
@@ -0,0 +1,67 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many calls may be in flight at once, and adapts the limit with AIMD
+ * (additive increase, multiplicative decrease), the same way TCP finds the capacity of a link:
+ * <p>
+ * SUCCESS  - the limit grows by 1/limit, i.e. by about one for every "limit" successful calls.
+ * OVERLOAD - the limit is halved, e.g. on a 429 or 5xx from the AI API.
+ * IGNORE   - the limit stays as it is, e.g. on a 400 that says nothing about load.
+ */
+
+class AdaptiveConcurrencyLimit {
+
+    enum Outcome {SUCCESS, OVERLOAD, IGNORE}
+
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = this.lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int maxLimit) {
+        if (maxLimit < 1) throw new IllegalArgumentException("maxLimit must be at least 1");
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    void acquire() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.inFlight >= (int) this.limit)
+                this.permitReleased.await();
+            this.inFlight++;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void release(Outcome outcome) {
+        this.lock.lock();
+        try {
+            this.inFlight--;
+            switch (outcome) {
+                case SUCCESS -> this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+                case OVERLOAD -> this.limit = Math.max(1, this.limit / 2);
+                case IGNORE -> {
+                }
+            }
+            this.permitReleased.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    double getLimit() {
+        this.lock.lock();
+        try {
+            return this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.utils.ExpiringLruCache;
+
+import java.util.function.Consumer;
+
+/**
+ * A ChatClient decorator that remembers completions, so that asking the exact same question twice only costs one call.
+ * The cache key is the ChatRequestDigest of the request (model + messages + n).
+ * <p>
+ * A request with useCache set to false skips the lookup but still stores the fresh completion,
+ * which makes it a way to "regenerate" and replace a cached answer.
+ * <p>
+ * A cached completion is returned without usage, since it didn't cost any tokens this time.
+ * <p>
+ * Hits and misses are counted in the ai.completion.cache metric.
+ */
+
+public class CachingChatClient implements ChatClient {
+
+    private final ChatClient delegate;
+    private final ExpiringLruCache<String, ChatResponse> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingChatClient(ChatClient delegate, ExpiringLruCache<String, ChatResponse> cache, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.hits = Counter.builder("ai.completion.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("ai.completion.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("ai.completion.cache.size", cache, ExpiringLruCache::size).register(meterRegistry);
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        String key = ChatRequestDigest.of(chatRequest);
+
+        ChatResponse cachedResponse = lookup(chatRequest, key);
+        if (cachedResponse != null) return cachedResponse;
+
+        return store(key, this.delegate.generate(chatRequest));
+    }
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        String key = ChatRequestDigest.of(chatRequest);
+
+        ChatResponse cachedResponse = lookup(chatRequest, key);
+        if (cachedResponse != null) {
+            onDelta.accept(cachedResponse.choices().get(0).message().content());
+            return cachedResponse;
+        }
+
+        return store(key, this.delegate.generateStream(chatRequest, onDelta));
+    }
+
+    private ChatResponse lookup(ChatRequest chatRequest, String key) {
+        if (!chatRequest.useCache()) return null;
+
+        ChatResponse cachedResponse = this.cache.get(key);
+        if (cachedResponse == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+        return cachedResponse.withoutUsage();
+    }
+
+    private ChatResponse store(String key, ChatResponse chatResponse) {
+        if (chatResponse != null && chatResponse.choices() != null && !chatResponse.choices().isEmpty())
+            this.cache.put(key, chatResponse);
+        return chatResponse;
+    }
+}
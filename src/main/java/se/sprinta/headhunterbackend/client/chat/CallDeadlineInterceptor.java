@@ -0,0 +1,148 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the whole of an outbound call, reading its response body included, by ai.http.call-deadline-ms.
+ * <p>
+ * The read timeout of the JDK HttpClient only bounds the wait for the response headers. After that, a body that stalls,
+ * e.g. a stream that stops sending chunks, would be read from for as long as the connection stays open. When the
+ * deadline expires, the response body is closed, and a read that is still going on fails with an HttpTimeoutException,
+ * also if the closed body would otherwise just look like it had ended.
+ * The wait for the headers is bounded by the deadline through the read timeout, see RestClientBuilderConfiguration.
+ */
+
+public class CallDeadlineInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Duration deadline;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param deadline  How long a call may take, from when it is sent until its body has been read.
+     * @param scheduler Closes the responses whose deadline expires, owned by the caller.
+     */
+    public CallDeadlineInterceptor(Duration deadline, ScheduledExecutorService scheduler) {
+        this.deadline = deadline;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        long start = System.nanoTime();
+        ClientHttpResponse response = execution.execute(request, body);
+
+        long remainingNanos = this.deadline.toNanos() - (System.nanoTime() - start);
+        if (remainingNanos <= 0) {
+            response.close();
+            throw deadlineExceeded();
+        }
+
+        return new DeadlineClientHttpResponse(response, remainingNanos);
+    }
+
+    private HttpTimeoutException deadlineExceeded() {
+        return new HttpTimeoutException("AI call took longer than its deadline of " + this.deadline.toMillis() + " ms");
+    }
+
+    /**
+     * A response whose body is closed when its call's deadline expires, unless it has been closed before that.
+     */
+
+    private class DeadlineClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final AtomicBoolean expired = new AtomicBoolean();
+        private final ScheduledFuture<?> expiry;
+
+        private DeadlineClientHttpResponse(ClientHttpResponse delegate, long remainingNanos) {
+            this.delegate = delegate;
+            this.expiry = scheduler.schedule(this::expire, remainingNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void expire() {
+            this.expired.set(true);
+            try {
+                // Not the response itself, closing it first reads what is left of the body, which is what stalled
+                this.delegate.getBody().close();
+            } catch (IOException ignored) {
+                // Closed anyway
+            }
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return this.delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return this.delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return new DeadlineInputStream(this.delegate.getBody());
+        }
+
+        @Override
+        public void close() {
+            this.expiry.cancel(false);
+            this.delegate.close();
+        }
+
+        /**
+         * Tells a read that failed or ended because the deadline closed the body apart from one that failed or
+         * ended by itself.
+         */
+
+        private class DeadlineInputStream extends FilterInputStream {
+
+            private DeadlineInputStream(InputStream body) {
+                super(body);
+            }
+
+            @Override
+            public int read() throws IOException {
+                try {
+                    return checkEnd(super.read());
+                } catch (IOException ex) {
+                    throw expired.get() ? deadlineExceeded() : ex;
+                }
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                try {
+                    return checkEnd(super.read(buffer, offset, length));
+                } catch (IOException ex) {
+                    throw expired.get() ? deadlineExceeded() : ex;
+                }
+            }
+
+            private int checkEnd(int result) throws IOException {
+                if (result < 0 && expired.get()) throw deadlineExceeded();
+                return result;
+            }
+        }
+    }
+}
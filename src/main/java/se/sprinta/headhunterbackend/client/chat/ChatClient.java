@@ -3,6 +3,8 @@ package se.sprinta.headhunterbackend.client.chat;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
 
+import java.util.function.Consumer;
+
 /**
  * The ChatClient interface interacts with an AI model (e.g., OpenAI GPT model) by sending requests and retrieving their responses.
  */
@@ -16,4 +18,18 @@ public interface ChatClient {
      */
     ChatResponse generate(ChatRequest chatRequest);
 
+    /**
+     * Returns a ChatResponse given a ChatRequest, and hands every piece of generated text to onDelta as soon as it arrives.
+     * Implementations that can't stream hand over the whole completion in one piece.
+     *
+     * @param chatRequest the input that guides an AI model to generate specific outputs
+     * @param onDelta     receives the generated text piece by piece, in order
+     * @return the assembled completion from an AI model in a ChatResponse
+     */
+    default ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        ChatResponse chatResponse = generate(chatRequest);
+        onDelta.accept(chatResponse.choices().get(0).message().content());
+        return chatResponse;
+    }
+
 }
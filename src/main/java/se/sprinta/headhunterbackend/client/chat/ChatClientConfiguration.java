@@ -0,0 +1,190 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.client.RestClient;
+import se.sprinta.headhunterbackend.client.chat.cassette.Cassette;
+import se.sprinta.headhunterbackend.client.chat.cassette.RecordingChatClient;
+import se.sprinta.headhunterbackend.client.chat.cassette.ReplayChatClient;
+import se.sprinta.headhunterbackend.utils.ExpiringLruCache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Assembles the ChatClient that the rest of the app talks to.
+ * OpenAiChatClient does the actual HTTP calls, and each decorator wraps the one before it:
+ * <p>
+ * CachingChatClient -> CircuitBreakerChatClient -> RateLimitedChatClient -> [RecordingChatClient ->] [RoutingChatClient ->] OpenAiChatClient
+ * <p>
+ * The cache comes first, so that a cache hit never uses any of the AI API quota.
+ * The circuit breaker comes before the rate limiter, so that an open circuit fails right away instead of queueing,
+ * and so that a call only counts as failed once the rate limiter has given up retrying it.
+ * With ai.routing.enabled, RoutingChatClient spreads the calls over ai.openai.* and the ai.routing.endpoints,
+ * with one OpenAiChatClient per endpoint.
+ * <p>
+ * ai.cassette.mode record saves every AI call to the ai.cassette.path cassette, and replay answers from the cassette
+ * instead of calling the AI API at all, at the recorded speed or, with ai.cassette.replay-speed fast, right away.
+ */
+
+@Configuration
+@EnableConfigurationProperties(RoutingProperties.class)
+public class ChatClientConfiguration {
+
+    @Value("${ai.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${ai.cache.max-size:500}")
+    private int cacheMaxSize;
+
+    @Value("${ai.cache.ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    @Value("${ai.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${ai.rate-limit.requests-per-minute:500}")
+    private int requestsPerMinute;
+
+    @Value("${ai.rate-limit.tokens-per-minute:200000}")
+    private int tokensPerMinute;
+
+    @Value("${ai.rate-limit.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${ai.rate-limit.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${ai.rate-limit.base-backoff-ms:500}")
+    private long baseBackoffMillis;
+
+    @Value("${ai.rate-limit.max-backoff-ms:20000}")
+    private long maxBackoffMillis;
+
+    @Value("${ai.rate-limit.expected-completion-tokens:1500}")
+    private int expectedCompletionTokens;
+
+    @Value("${ai.circuit-breaker.enabled:true}")
+    private boolean circuitBreakerEnabled;
+
+    @Value("${ai.circuit-breaker.window-size:20}")
+    private int circuitBreakerWindowSize;
+
+    @Value("${ai.circuit-breaker.minimum-calls:10}")
+    private int circuitBreakerMinimumCalls;
+
+    @Value("${ai.circuit-breaker.failure-rate-threshold:50}")
+    private int circuitBreakerFailureRateThreshold;
+
+    @Value("${ai.circuit-breaker.slow-call-ms:60000}")
+    private long circuitBreakerSlowCallMillis;
+
+    @Value("${ai.circuit-breaker.slow-call-rate-threshold:80}")
+    private int circuitBreakerSlowCallRateThreshold;
+
+    @Value("${ai.circuit-breaker.open-ms:30000}")
+    private long circuitBreakerOpenMillis;
+
+    @Value("${ai.circuit-breaker.half-open-calls:3}")
+    private int circuitBreakerHalfOpenCalls;
+
+    @Value("${ai.cassette.mode:off}")
+    private String cassetteMode;
+
+    @Value("${ai.cassette.path:cassettes/chat.jsonl.gz}")
+    private String cassettePath;
+
+    @Value("${ai.cassette.replay-speed:original}")
+    private String cassetteReplaySpeed;
+
+    @Bean
+    @Primary
+    public ChatClient chatClient(OpenAiChatClient openAiChatClient,
+                                 RoutingProperties routingProperties,
+                                 RestClient.Builder restClientBuilder,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        ChatClient chatClient = openAiChatClient;
+
+        if (routingProperties.enabled())
+            chatClient = routingChatClient(openAiChatClient, routingProperties, restClientBuilder, objectMapper, meterRegistry);
+
+        switch (this.cassetteMode.toLowerCase(Locale.ROOT)) {
+            case "record" -> chatClient = new RecordingChatClient(chatClient, new Cassette(Path.of(this.cassettePath), objectMapper));
+            case "replay" -> chatClient = new ReplayChatClient(
+                    new Cassette(Path.of(this.cassettePath), objectMapper).load(),
+                    ReplayChatClient.Speed.valueOf(this.cassetteReplaySpeed.toUpperCase(Locale.ROOT)));
+            case "off" -> {
+            }
+            default -> throw new IllegalArgumentException("ai.cassette.mode must be off, record or replay, was " + this.cassetteMode);
+        }
+
+        if (this.rateLimitEnabled)
+            chatClient = new RateLimitedChatClient(
+                    chatClient,
+                    new RateLimitSettings(
+                            this.requestsPerMinute,
+                            this.tokensPerMinute,
+                            this.maxConcurrency,
+                            this.maxAttempts,
+                            this.baseBackoffMillis,
+                            this.maxBackoffMillis,
+                            this.expectedCompletionTokens),
+                    meterRegistry);
+
+        if (this.circuitBreakerEnabled)
+            chatClient = new CircuitBreakerChatClient(
+                    chatClient,
+                    new CircuitBreakerSettings(
+                            this.circuitBreakerWindowSize,
+                            this.circuitBreakerMinimumCalls,
+                            this.circuitBreakerFailureRateThreshold,
+                            this.circuitBreakerSlowCallMillis,
+                            this.circuitBreakerSlowCallRateThreshold,
+                            this.circuitBreakerOpenMillis,
+                            this.circuitBreakerHalfOpenCalls),
+                    meterRegistry);
+
+        if (this.cacheEnabled)
+            chatClient = new CachingChatClient(
+                    chatClient,
+                    new ExpiringLruCache<>(this.cacheMaxSize, Duration.ofMinutes(this.cacheTtlMinutes)),
+                    meterRegistry);
+
+        return chatClient;
+    }
+
+    private static RoutingChatClient routingChatClient(OpenAiChatClient openAiChatClient,
+                                                       RoutingProperties routingProperties,
+                                                       RestClient.Builder restClientBuilder,
+                                                       ObjectMapper objectMapper,
+                                                       MeterRegistry meterRegistry) {
+        List<RoutingChatClient.Route> routes = new ArrayList<>();
+        routes.add(new RoutingChatClient.Route("default", openAiChatClient, routingProperties.defaultWeight(), null));
+
+        for (RoutingProperties.Endpoint endpoint : routingProperties.endpoints())
+            routes.add(new RoutingChatClient.Route(
+                    endpoint.name(),
+                    new OpenAiChatClient(endpoint.endpoint(), endpoint.apiKey(), restClientBuilder, objectMapper),
+                    endpoint.weight(),
+                    endpoint.model()));
+
+        return new RoutingChatClient(
+                routes,
+                new RoutingSettings(
+                        routingProperties.hedgeDelayMs(),
+                        routingProperties.minHedgeDelayMs(),
+                        routingProperties.hedgeQuantile(),
+                        routingProperties.ejectAfterFailures(),
+                        routingProperties.ejectMs()),
+                meterRegistry);
+    }
+}
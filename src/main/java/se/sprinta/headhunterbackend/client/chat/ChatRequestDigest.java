@@ -0,0 +1,79 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Computes a content hash of everything in a ChatRequest that affects the completion: the model, the messages and n.
+ * Two requests with the same digest ask the AI model the exact same question.
+ * Transport options, such as stream, are not part of the digest.
+ */
+
+public final class ChatRequestDigest {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ChatRequestDigest() {
+    }
+
+    public static String of(ChatRequest chatRequest) {
+        MessageDigest digest = sha256();
+        update(digest, chatRequest.model());
+        if (chatRequest.messages() != null) {
+            for (Message message : chatRequest.messages()) {
+                update(digest, message.role());
+                update(digest, message.content());
+            }
+        }
+        update(digest, chatRequest.n() == null ? null : chatRequest.n().toString());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * A looser digest than of, for matching recorded requests (see Cassette): the model is left out, and runs of
+     * whitespace in the messages count as a single space, so a recording survives a model upgrade or a reformatted prompt.
+     */
+
+    public static String ofPrompt(ChatRequest chatRequest) {
+        MessageDigest digest = sha256();
+        if (chatRequest.messages() != null) {
+            for (Message message : chatRequest.messages()) {
+                update(digest, message.role());
+                update(digest, message.content() == null ? null : WHITESPACE.matcher(message.content()).replaceAll(" ").strip());
+            }
+        }
+        update(digest, chatRequest.n() == null ? null : chatRequest.n().toString());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Every value is length-prefixed, so that ("ab", "c") and ("a", "bc") don't produce the same digest.
+     */
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0xFF);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex); // Every JVM is required to support SHA-256
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A count-based circuit breaker.
+ * <p>
+ * CLOSED    - every call is let through. The outcome of the latest windowSize calls is kept in a ring buffer,
+ * and when either the failure rate or the slow-call rate reaches its threshold, the circuit opens.
+ * OPEN      - no call is let through until openMillis have passed, then the circuit is half-open.
+ * HALF_OPEN - halfOpenCalls trial calls are let through. If they all succeed in time the circuit closes,
+ * if any of them fails or is slow the circuit opens again.
+ */
+
+class CircuitBreaker {
+
+    enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final CircuitBreakerSettings settings;
+    private final LongSupplier nanoTime;
+    private final BiConsumer<State, State> onTransition;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failedCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * @param onTransition Called with (from, to) on every state change, while holding the lock, so keep it short.
+     */
+
+    CircuitBreaker(CircuitBreakerSettings settings, LongSupplier nanoTime, BiConsumer<State, State> onTransition) {
+        if (settings.windowSize() < 1) throw new IllegalArgumentException("windowSize must be at least 1");
+        this.settings = settings;
+        this.nanoTime = nanoTime;
+        this.onTransition = onTransition;
+        this.failedCalls = new boolean[settings.windowSize()];
+        this.slowCalls = new boolean[settings.windowSize()];
+    }
+
+    /**
+     * @return true if the call may go ahead, in which case onResult must be called when it is done.
+     */
+
+    synchronized boolean tryAcquirePermission() {
+        if (this.state == State.OPEN) {
+            if (this.nanoTime.getAsLong() - this.openUntil < 0) return false;
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (this.state == State.HALF_OPEN) {
+            if (this.halfOpenPermits == 0) return false;
+            this.halfOpenPermits--;
+        }
+
+        return true;
+    }
+
+    synchronized void onResult(boolean failed, long durationNanos) {
+        boolean slow = durationNanos > this.settings.slowCallMillis() * 1_000_000;
+
+        switch (this.state) {
+            case CLOSED -> {
+                record(failed, slow);
+                if (this.recordedCalls >= this.settings.minimumCalls()
+                        && (rate(this.failedCount) >= this.settings.failureRateThreshold()
+                        || rate(this.slowCount) >= this.settings.slowCallRateThreshold()))
+                    transitionTo(State.OPEN);
+            }
+            case HALF_OPEN -> {
+                if (failed || slow) transitionTo(State.OPEN);
+                else if (++this.halfOpenSuccesses >= this.settings.halfOpenCalls()) transitionTo(State.CLOSED);
+            }
+            case OPEN -> {
+                // A call that started before the circuit opened; it doesn't change anything
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return this.state;
+    }
+
+    /**
+     * @return Milliseconds until trial calls are let through, 0 unless the circuit is open.
+     */
+
+    synchronized long remainingOpenMillis() {
+        if (this.state != State.OPEN) return 0;
+        return Math.max(0, (this.openUntil - this.nanoTime.getAsLong()) / 1_000_000);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (this.recordedCalls == this.failedCalls.length) {
+            // The window is full, the oldest call falls out
+            if (this.failedCalls[this.nextIndex]) this.failedCount--;
+            if (this.slowCalls[this.nextIndex]) this.slowCount--;
+        } else {
+            this.recordedCalls++;
+        }
+
+        this.failedCalls[this.nextIndex] = failed;
+        this.slowCalls[this.nextIndex] = slow;
+        if (failed) this.failedCount++;
+        if (slow) this.slowCount++;
+        this.nextIndex = (this.nextIndex + 1) % this.failedCalls.length;
+    }
+
+    private int rate(int count) {
+        return count * 100 / this.recordedCalls;
+    }
+
+    private void transitionTo(State newState) {
+        State oldState = this.state;
+        this.state = newState;
+
+        switch (newState) {
+            case OPEN -> this.openUntil = this.nanoTime.getAsLong() + this.settings.openMillis() * 1_000_000;
+            case HALF_OPEN -> {
+                this.halfOpenPermits = this.settings.halfOpenCalls();
+                this.halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                this.nextIndex = 0;
+                this.recordedCalls = 0;
+                this.failedCount = 0;
+                this.slowCount = 0;
+            }
+        }
+
+        this.onTransition.accept(oldState, newState);
+    }
+}
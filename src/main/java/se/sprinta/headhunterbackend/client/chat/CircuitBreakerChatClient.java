@@ -0,0 +1,101 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.system.exception.AiServiceUnavailableException;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A ChatClient decorator that stops calling the AI API while it is failing or slow, see CircuitBreaker.
+ * While the circuit is open, calls fail right away with AiServiceUnavailableException instead of waiting for a timeout.
+ * <p>
+ * Only signs of an unhealthy AI API count as failures: 5xx, 429 and I/O errors (ResourceAccessException).
+ * Any other error, like a 400, means that the AI API answered, so it counts as a successful call.
+ * <p>
+ * When the delegate is a RateLimitedChatClient, the time a call waited for the rate limit or for retry backoff is not
+ * counted towards its duration, so that local throttling can't open the circuit while the AI API is healthy.
+ * <p>
+ * The state is exported as the ai.circuit-breaker.state gauge (0 closed, 1 open, 2 half-open)
+ * and every transition is counted in ai.circuit-breaker.transitions.
+ */
+
+public class CircuitBreakerChatClient implements ChatClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerChatClient.class);
+
+    private final ChatClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final LongSupplier nanoTime;
+    private final LongSupplier delegateWaitNanos;
+
+    public CircuitBreakerChatClient(ChatClient delegate, CircuitBreakerSettings settings, MeterRegistry meterRegistry) {
+        this(delegate, settings, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreakerChatClient(ChatClient delegate, CircuitBreakerSettings settings, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.delegate = delegate;
+        this.nanoTime = nanoTime;
+        this.delegateWaitNanos = delegate instanceof RateLimitedChatClient rateLimitedChatClient
+                ? rateLimitedChatClient::lastWaitNanos
+                : () -> 0;
+        this.circuitBreaker = new CircuitBreaker(settings, nanoTime, (from, to) -> {
+            LOGGER.warn("AI circuit breaker {} -> {}", from, to);
+            Counter.builder("ai.circuit-breaker.transitions")
+                    .tag("from", from.name())
+                    .tag("to", to.name())
+                    .register(meterRegistry)
+                    .increment();
+        });
+        Gauge.builder("ai.circuit-breaker.state", this.circuitBreaker, circuitBreaker -> circuitBreaker.getState().ordinal())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        return execute(() -> this.delegate.generate(chatRequest));
+    }
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        return execute(() -> this.delegate.generateStream(chatRequest, onDelta));
+    }
+
+    CircuitBreaker.State getState() {
+        return this.circuitBreaker.getState();
+    }
+
+    private ChatResponse execute(Supplier<ChatResponse> call) {
+        if (!this.circuitBreaker.tryAcquirePermission())
+            throw new AiServiceUnavailableException(Math.max(1, (this.circuitBreaker.remainingOpenMillis() + 999) / 1000));
+
+        long start = this.nanoTime.getAsLong();
+        boolean failed = false;
+        try {
+            return call.get();
+        } catch (RuntimeException ex) {
+            failed = isFailure(ex);
+            throw ex;
+        } finally {
+            long upstreamNanos = this.nanoTime.getAsLong() - start - this.delegateWaitNanos.getAsLong();
+            this.circuitBreaker.onResult(failed, Math.max(0, upstreamNanos));
+        }
+    }
+
+    static boolean isFailure(RuntimeException ex) {
+        if (ex instanceof ResourceAccessException) return true;
+        if (ex instanceof HttpStatusCodeException httpEx)
+            return httpEx.getStatusCode().is5xxServerError() || httpEx.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        return false;
+    }
+}
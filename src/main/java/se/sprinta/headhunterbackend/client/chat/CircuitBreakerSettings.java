@@ -0,0 +1,24 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+/**
+ * Settings for CircuitBreaker, read from ai.circuit-breaker.* in ChatClientConfiguration.
+ *
+ * @param windowSize            How many of the latest calls the failure and slow-call rates are calculated over.
+ * @param minimumCalls          The circuit never opens before this many calls have been recorded.
+ * @param failureRateThreshold  Percentage of failed calls in the window that opens the circuit.
+ * @param slowCallMillis        A call that takes longer than this counts as slow.
+ * @param slowCallRateThreshold Percentage of slow calls in the window that opens the circuit.
+ * @param openMillis            How long the circuit stays open before trial calls are let through.
+ * @param halfOpenCalls         How many trial calls must succeed in a row to close the circuit again.
+ */
+
+public record CircuitBreakerSettings(
+        int windowSize,
+        int minimumCalls,
+        int failureRateThreshold,
+        long slowCallMillis,
+        int slowCallRateThreshold,
+        long openMillis,
+        int halfOpenCalls
+) {
+}
@@ -0,0 +1,108 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Adds gzip to outbound calls, which the JDK HttpClient doesn't do on its own.
+ * <p>
+ * Responses: asks for gzip with Accept-Encoding and unzips a gzip response before it reaches the message converters.
+ * Requests: if compressRequests is true, bodies of at least MIN_COMPRESS_BYTES are sent gzipped.
+ * This is off by default, since not every API accepts a gzipped request body.
+ */
+
+public class GzipClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String GZIP = "gzip";
+
+    // Below this size, the gzip header and CPU time cost more than they save
+    static final int MIN_COMPRESS_BYTES = 1024;
+
+    private final boolean compressRequests;
+
+    public GzipClientHttpRequestInterceptor(boolean compressRequests) {
+        this.compressRequests = compressRequests;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+
+        if (this.compressRequests && body.length >= MIN_COMPRESS_BYTES) {
+            body = gzip(body);
+            request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            request.getHeaders().setContentLength(body.length);
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)))
+            return new GunzippingClientHttpResponse(response);
+
+        return response;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * A response whose body is unzipped while it is read.
+     * Content-Encoding and Content-Length are removed, since they describe the zipped body.
+     */
+
+    private static class GunzippingClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        private GunzippingClientHttpResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(delegate.getHeaders());
+            this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return this.delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return this.delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (this.body == null) this.body = new GZIPInputStream(this.delegate.getBody());
+            return this.body;
+        }
+
+        @Override
+        public void close() {
+            this.delegate.close();
+        }
+    }
+}
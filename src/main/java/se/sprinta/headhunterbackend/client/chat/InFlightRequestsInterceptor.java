@@ -0,0 +1,87 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports how many outbound calls are in progress right now, as the ai.http.client.in-flight gauge.
+ * A call counts from when it is sent until its response is closed, so a streamed response counts for as long as its
+ * body is being read, and holds its connection.
+ * The JDK HttpClient doesn't expose its connection pool, so this is what jdk.httpclient.connectionPoolSize is sized
+ * against, see RestClientBuilderConfiguration.
+ * Latency is recorded by Spring Boot's http.client.requests metric.
+ */
+
+public class InFlightRequestsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public InFlightRequestsInterceptor(MeterRegistry meterRegistry) {
+        Gauge.builder("ai.http.client.in-flight", this.inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        this.inFlight.incrementAndGet();
+        try {
+            return new CountedClientHttpResponse(execution.execute(request, body));
+        } catch (IOException | RuntimeException | Error ex) {
+            this.inFlight.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    /**
+     * A response that ends its call's count when it is closed, once, however often close is called.
+     */
+
+    private class CountedClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private CountedClientHttpResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return this.delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return this.delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return this.delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                this.delegate.close();
+            } finally {
+                if (this.closed.compareAndSet(false, true)) inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import java.util.Arrays;
+
+/**
+ * The latest latencies of a call, in a ring buffer, to calculate quantiles such as p95 from.
+ */
+
+class LatencyWindow {
+
+    private final long[] latencies;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.latencies = new long[size];
+    }
+
+    synchronized void record(long latencyNanos) {
+        this.latencies[this.next] = latencyNanos;
+        this.next = (this.next + 1) % this.latencies.length;
+        if (this.count < this.latencies.length) this.count++;
+    }
+
+    synchronized int count() {
+        return this.count;
+    }
+
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.95 for p95.
+     * @return The latency that this share of the recorded latencies is at or below, 0 if nothing has been recorded.
+     */
+
+    long quantile(double quantile) {
+        long[] sorted;
+        synchronized (this) {
+            if (this.count == 0) return 0;
+            sorted = Arrays.copyOf(this.latencies, this.count);
+        }
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+}
@@ -1,11 +1,21 @@
 package se.sprinta.headhunterbackend.client.chat;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
-import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
-import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import org.springframework.web.client.RestClientException;
+import se.sprinta.headhunterbackend.client.chat.dto.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The OpenAiChatClient class is an implementation of the ChatClient interface.
@@ -14,24 +24,91 @@ import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
 @Component
 public class OpenAiChatClient implements ChatClient {
 
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE_MARKER = "[DONE]";
+
     private final RestClient restClient;
+    private final ObjectMapper objectMapper;
 
     public OpenAiChatClient(@Value("${ai.openai.endpoint}") String endpoint,
                             @Value("${ai.openai.api-key}") String apiKey,
-                            RestClient.Builder restClientBuilder) {
-        this.restClient = restClientBuilder
+                            RestClient.Builder restClientBuilder,
+                            ObjectMapper objectMapper) {
+        // The builder is shared, and RoutingChatClient builds one OpenAiChatClient per endpoint from it
+        this.restClient = restClientBuilder.clone()
                 .baseUrl(endpoint)
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .build();
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * A body that can't be read, e.g. because CallDeadlineInterceptor closed it, is thrown as a ResourceAccessException,
+     * like any other I/O error, instead of the RestClientException that RestClient wraps it in.
+     */
+
     @Override
     public ChatResponse generate(ChatRequest chatRequest) {
+        try {
+            return this.restClient
+                    .post()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(chatRequest)
+                    .retrieve()
+                    .body(ChatResponse.class);
+        } catch (RestClientException ex) {
+            if (ex.getClass() == RestClientException.class && ex.getCause() instanceof IOException ioException)
+                throw new ResourceAccessException(ex.getMessage(), ioException);
+            throw ex;
+        }
+    }
+
+    /**
+     * Sends the request with stream set to true and reads the server-sent events line by line.
+     * Every "data:" line holds a ChatChunk, and the stream ends with "data: [DONE]".
+     * The chunk just before [DONE] has no choices but carries the Usage.
+     * Errors are turned into the same HttpClientErrorException/HttpServerErrorException as generate throws.
+     */
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
         return this.restClient
                 .post()
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(chatRequest)
-                .retrieve()
-                .body(ChatResponse.class);
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .body(chatRequest.withStream())
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError())
+                        new DefaultResponseErrorHandler().handleError(response);
+
+                    StringBuilder content = new StringBuilder();
+                    Usage usage = null;
+                    String finishReason = null;
+
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith(DATA_PREFIX)) continue; // Blank separator lines and comments
+
+                            String data = line.substring(DATA_PREFIX.length()).trim();
+                            if (DONE_MARKER.equals(data)) break;
+
+                            ChatChunk chunk = this.objectMapper.readValue(data, ChatChunk.class);
+                            if (chunk.usage() != null) usage = chunk.usage();
+                            if (chunk.choices() == null || chunk.choices().isEmpty()) continue;
+
+                            // The last chunk of the choice has an empty delta and the finish reason
+                            if (chunk.choices().get(0).finishReason() != null) finishReason = chunk.choices().get(0).finishReason();
+
+                            Message delta = chunk.choices().get(0).delta();
+                            if (delta == null || delta.content() == null || delta.content().isEmpty()) continue;
+
+                            content.append(delta.content());
+                            onDelta.accept(delta.content());
+                        }
+                    }
+
+                    return new ChatResponse(List.of(new Choice(0, new Message("assistant", content.toString()), finishReason)), usage);
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+/**
+ * Settings for RateLimitedChatClient, read from ai.rate-limit.* in ChatClientConfiguration.
+ *
+ * @param requestsPerMinute        The requests-per-minute quota of our AI API account.
+ * @param tokensPerMinute          The tokens-per-minute quota of our AI API account.
+ * @param maxConcurrency           The most calls that may be in flight at once, the AIMD limit never goes above it.
+ * @param maxAttempts              How many times a call is tried before a 429 or 5xx is passed on, 1 means no retries.
+ * @param baseBackoffMillis        The backoff before the first retry, doubled for every following retry.
+ * @param maxBackoffMillis         The backoff never grows beyond this, unless Retry-After asks for more.
+ * @param expectedCompletionTokens How many completion tokens a call is assumed to use, before the answer is known.
+ */
+
+public record RateLimitSettings(
+        int requestsPerMinute,
+        int tokensPerMinute,
+        int maxConcurrency,
+        int maxAttempts,
+        long baseBackoffMillis,
+        long maxBackoffMillis,
+        int expectedCompletionTokens
+) {
+}
@@ -0,0 +1,212 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.prompt.TokenEstimator;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A ChatClient decorator that keeps our calls within the AI API quota, instead of letting the AI API answer with 429.
+ * <p>
+ * Before a call:
+ * - one permit is taken from the requests-per-minute bucket, and the estimated number of tokens from the
+ * tokens-per-minute bucket (see TokenBucket). If either bucket is in debt, the call waits until it isn't.
+ * - a slot is taken from the AdaptiveConcurrencyLimit, which shrinks on 429/5xx and grows back on success.
+ * <p>
+ * A call that fails with 429 or 5xx is retried up to maxAttempts times, with exponential backoff and full jitter.
+ * If the AI API sent a Retry-After header, the retry waits at least that long.
+ * A stream is only retried if it failed before any text was handed to onDelta.
+ * <p>
+ * The time a call spends waiting in here, rather than for the AI API, is available from lastWaitNanos, so that
+ * CircuitBreakerChatClient doesn't mistake our own throttling for a slow AI API.
+ */
+
+public class RateLimitedChatClient implements ChatClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitedChatClient.class);
+
+    private static final int BURST_SECONDS = 10;
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final ChatClient delegate;
+    private final RateLimitSettings settings;
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Sleeper sleeper;
+    private final Counter retries;
+
+    // The time the current call on each thread has spent waiting for the buckets, a slot and backoff
+    private final ThreadLocal<long[]> waitNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public RateLimitedChatClient(ChatClient delegate, RateLimitSettings settings, MeterRegistry meterRegistry) {
+        this(delegate, settings, meterRegistry, Thread::sleep);
+    }
+
+    RateLimitedChatClient(ChatClient delegate, RateLimitSettings settings, MeterRegistry meterRegistry, Sleeper sleeper) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.requestBucket = new TokenBucket(settings.requestsPerMinute(), BURST_SECONDS, System::nanoTime);
+        this.tokenBucket = new TokenBucket(settings.tokensPerMinute(), BURST_SECONDS, System::nanoTime);
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(settings.maxConcurrency());
+        this.sleeper = sleeper;
+        this.retries = Counter.builder("ai.rate-limit.retries").register(meterRegistry);
+        Gauge.builder("ai.rate-limit.concurrency-limit", this.concurrencyLimit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        return execute(chatRequest, () -> this.delegate.generate(chatRequest), () -> false);
+    }
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        AtomicBoolean started = new AtomicBoolean();
+        return execute(chatRequest,
+                () -> this.delegate.generateStream(chatRequest, delta -> {
+                    started.set(true);
+                    onDelta.accept(delta);
+                }),
+                started::get);
+    }
+
+    double getConcurrencyLimit() {
+        return this.concurrencyLimit.getLimit();
+    }
+
+    /**
+     * Returns how long the last call on the current thread waited for the rate limit, the concurrency limit and retry
+     * backoff. Calls run on the calling thread, so right after generate or generateStream this is the call that
+     * just returned or threw.
+     */
+
+    long lastWaitNanos() {
+        return this.waitNanos.get()[0];
+    }
+
+    private ChatResponse execute(ChatRequest chatRequest, Supplier<ChatResponse> call, BooleanSupplier started) {
+        long estimatedTokens = estimateTokens(chatRequest);
+        this.waitNanos.get()[0] = 0;
+
+        for (int attempt = 1; ; attempt++) {
+            long waitNanos = Math.max(this.requestBucket.reserve(1), this.tokenBucket.reserve(estimatedTokens));
+            if (waitNanos > 0) sleep(Duration.ofNanos(waitNanos).toMillis() + 1);
+
+            acquireSlot();
+            ChatResponse chatResponse;
+            try {
+                chatResponse = call.get();
+            } catch (HttpStatusCodeException ex) {
+                boolean overload = isOverload(ex);
+                this.concurrencyLimit.release(overload ? AdaptiveConcurrencyLimit.Outcome.OVERLOAD : AdaptiveConcurrencyLimit.Outcome.IGNORE);
+
+                if (!overload || attempt >= this.settings.maxAttempts() || started.getAsBoolean()) throw ex;
+
+                long backoffMillis = backoffMillis(attempt, retryAfterMillis(ex.getResponseHeaders()));
+                LOGGER.warn("AI API answered {}, retry {} of {} in {} ms",
+                        ex.getStatusCode().value(), attempt, this.settings.maxAttempts() - 1, backoffMillis);
+                this.retries.increment();
+                sleep(backoffMillis);
+                continue;
+            } catch (RuntimeException | Error ex) {
+                this.concurrencyLimit.release(AdaptiveConcurrencyLimit.Outcome.IGNORE);
+                throw ex;
+            }
+
+            this.concurrencyLimit.release(AdaptiveConcurrencyLimit.Outcome.SUCCESS);
+            return chatResponse;
+        }
+    }
+
+    private void acquireSlot() {
+        long start = System.nanoTime();
+        try {
+            this.concurrencyLimit.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the AI API concurrency limit", ex);
+        } finally {
+            this.waitNanos.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    private void sleep(long millis) {
+        this.waitNanos.get()[0] += Duration.ofMillis(millis).toNanos();
+        try {
+            this.sleeper.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the AI API rate limit", ex);
+        }
+    }
+
+    private static boolean isOverload(HttpStatusCodeException ex) {
+        return ex.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value() || ex.getStatusCode().is5xxServerError();
+    }
+
+    /**
+     * Full jitter: a random wait between 0 and the exponential backoff, so that clients that failed together
+     * don't retry together. Retry-After, when present, is a lower bound.
+     */
+
+    private long backoffMillis(int attempt, long retryAfterMillis) {
+        long exponentialMillis = Math.min(this.settings.maxBackoffMillis(), this.settings.baseBackoffMillis() << Math.min(attempt - 1, 20));
+        long jitterMillis = ThreadLocalRandom.current().nextLong(exponentialMillis + 1);
+        return retryAfterMillis > 0 ? retryAfterMillis + jitterMillis / 4 : jitterMillis;
+    }
+
+    /**
+     * Retry-After is either a number of seconds or an HTTP date.
+     *
+     * @return The number of milliseconds the AI API asked us to wait, 0 if it didn't say.
+     */
+
+    static long retryAfterMillis(HttpHeaders headers) {
+        String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null || retryAfter.isBlank()) return 0;
+
+        try {
+            return Math.max(0, Math.round(Double.parseDouble(retryAfter.trim()) * 1000));
+        } catch (NumberFormatException ignored) {
+            // Not a number of seconds, try an HTTP date
+        }
+
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt).toMillis());
+        } catch (DateTimeParseException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * An estimate of the tokens a call uses: the prompt tokens according to TokenEstimator,
+     * plus the expected completion tokens for every requested choice.
+     */
+
+    private long estimateTokens(ChatRequest chatRequest) {
+        int choices = chatRequest.n() == null ? 1 : chatRequest.n();
+        return TokenEstimator.estimate(chatRequest.messages()) + (long) this.settings.expectedCompletionTokens() * choices;
+    }
+}
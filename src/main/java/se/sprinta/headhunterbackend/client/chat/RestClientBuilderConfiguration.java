@@ -1,22 +1,95 @@
 package se.sprinta.headhunterbackend.client.chat;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The HTTP transport for outbound AI calls, configured with ai.http.*.
+ * <p>
+ * All calls share one HttpClient, and with it one connection pool. It keeps its default executor: on a virtual thread
+ * executor, its internal tasks could pin every carrier thread, and calls then stalled until their read timeout.
+ * Connect timeout and read timeout (the deadline for the response headers of a single call) are explicit. A call as
+ * a whole, reading its response body included, is bounded by ai.http.call-deadline-ms, see CallDeadlineInterceptor.
+ * HTTP/2 is preferred, so that concurrent calls are multiplexed over few connections.
+ * <p>
+ * Keep-alive and the maximum number of HTTP/1.1 connections can only be set through system properties, which apply to
+ * every HttpClient in the JVM and are read once, when the JDK HttpClient classes are loaded. They are therefore JVM
+ * options rather than ai.http.* properties:
+ * <pre>
+ * java -Djdk.httpclient.keepalive.timeout=30 -Djdk.httpclient.connectionPoolSize=0 ...
+ * </pre>
+ * keepalive.timeout is in seconds, 30 by default. connectionPoolSize is 0, unlimited, by default; size it against
+ * the ai.http.client.in-flight gauge, see InFlightRequestsInterceptor.
+ */
+
 @Configuration
-public class RestClientBuilderConfiguration {
+public class RestClientBuilderConfiguration implements DisposableBean {
+
+    @Value("${ai.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMillis;
+
+    @Value("${ai.http.read-timeout-ms:120000}")
+    private long readTimeoutMillis;
+
+    @Value("${ai.http.call-deadline-ms:120000}")
+    private long callDeadlineMillis;
+
+    @Value("${ai.http.version:HTTP_2}")
+    private HttpClient.Version httpVersion;
+
+    @Value("${ai.http.gzip-requests:false}")
+    private boolean gzipRequests;
+
+    private final ScheduledExecutorService deadlineScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ai-call-deadline").daemon().factory());
+
+    @Bean
+    public HttpClient aiHttpClient() {
+        return HttpClient.newBuilder()
+                .version(this.httpVersion)
+                .connectTimeout(Duration.ofMillis(this.connectTimeoutMillis))
+                .build();
+    }
 
     /**
      * Replace the autoconfigured RestClient.Builder bean which defaults to a SimpleClientHttpRequestFactory.
-     * This bean will use JdkClientHttpRequestFactory.
+     * This bean will use JdkClientHttpRequestFactory with the shared aiHttpClient.
+     * The RestClientCustomizers are applied like on the autoconfigured builder, which gives us the http.client.requests metric.
      *
      * @return RestClient.Builder
      */
     @Bean
-    public RestClient.Builder restClientBuilder() {
-        return RestClient.builder()
-                .requestFactory(new JdkClientHttpRequestFactory());
+    public RestClient.Builder restClientBuilder(HttpClient aiHttpClient,
+                                                ObjectProvider<RestClientCustomizer> restClientCustomizers,
+                                                MeterRegistry meterRegistry) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(aiHttpClient);
+        // The headers can't take longer than the whole call
+        requestFactory.setReadTimeout(Duration.ofMillis(Math.min(this.readTimeoutMillis, this.callDeadlineMillis)));
+
+        RestClient.Builder restClientBuilder = RestClient.builder()
+                .requestFactory(requestFactory)
+                .requestInterceptor(new CallDeadlineInterceptor(Duration.ofMillis(this.callDeadlineMillis), this.deadlineScheduler))
+                .requestInterceptor(new InFlightRequestsInterceptor(meterRegistry))
+                .requestInterceptor(new GzipClientHttpRequestInterceptor(this.gzipRequests));
+
+        restClientCustomizers.orderedStream().forEach(customizer -> customizer.customize(restClientBuilder));
+        return restClientBuilder;
+    }
+
+    @Override
+    public void destroy() {
+        this.deadlineScheduler.shutdownNow();
     }
 }
@@ -0,0 +1,302 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.ResourceAccessException;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * A ChatClient that spreads calls over several endpoints (or models), each served by its own ChatClient.
+ * <ul>
+ *     <li>Weighted routing: every call goes to an endpoint picked at random, in proportion to the endpoint weights.</li>
+ *     <li>Hedging: if the endpoint hasn't answered within the hedge delay, the same call is sent to another endpoint,
+ *     and whichever answers first wins. The other call is cancelled. The hedge delay follows the observed latency,
+ *     e.g. p95, so only the slowest calls are hedged. A streamed call is hedged until its first delta arrives.</li>
+ *     <li>Failover: if the endpoint fails with 5xx, 429 or an I/O error, the call is sent to another endpoint right away.</li>
+ *     <li>Ejection: an endpoint that fails ejectAfterFailures calls in a row is left out for ejectMillis.
+ *     If all endpoints are ejected, the one that comes back first is used anyway.</li>
+ * </ul>
+ * A call is sent to at most two endpoints. Hedged and failed over calls are counted in ai.routing.hedges,
+ * and ai.routing.endpoint.ejected tells which endpoints are out of the rotation.
+ */
+
+public class RoutingChatClient implements ChatClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoutingChatClient.class);
+
+    /**
+     * Below this many observed latencies, hedgeDelayMillis is used as hedge delay.
+     */
+    static final int MIN_LATENCY_SAMPLES = 20;
+
+    private static final int LATENCY_WINDOW_SIZE = 200;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final RoutingSettings settings;
+    private final DoubleSupplier random;
+    private final LongSupplier nanoTime;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final LatencyWindow firstDeltaLatencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final Counter slowHedges;
+    private final Counter failovers;
+    private final Counter hedgeWins;
+
+    // The attempts block on HTTP calls, virtual threads are cheap to park there and need no shutdown
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-route-", 0).factory());
+
+    public RoutingChatClient(List<Route> routes, RoutingSettings settings, MeterRegistry meterRegistry) {
+        this(routes, settings, meterRegistry, () -> ThreadLocalRandom.current().nextDouble(), System::nanoTime);
+    }
+
+    RoutingChatClient(List<Route> routes, RoutingSettings settings, MeterRegistry meterRegistry,
+                      DoubleSupplier random, LongSupplier nanoTime) {
+        if (routes.isEmpty()) throw new IllegalArgumentException("RoutingChatClient needs at least one route");
+
+        this.settings = settings;
+        this.random = random;
+        this.nanoTime = nanoTime;
+
+        for (Route route : routes) {
+            Endpoint endpoint = new Endpoint(route);
+            this.endpoints.add(endpoint);
+            Gauge.builder("ai.routing.endpoint.ejected", endpoint, e -> e.isEjected(nanoTime.getAsLong()) ? 1 : 0)
+                    .tag("endpoint", route.name())
+                    .register(meterRegistry);
+        }
+
+        this.slowHedges = Counter.builder("ai.routing.hedges").tag("reason", "slow").register(meterRegistry);
+        this.failovers = Counter.builder("ai.routing.hedges").tag("reason", "failed").register(meterRegistry);
+        this.hedgeWins = Counter.builder("ai.routing.hedge.wins").register(meterRegistry);
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        return execute(chatRequest, null);
+    }
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        return execute(chatRequest, onDelta);
+    }
+
+    /**
+     * The delay before a hedged request, in milliseconds. 0 means that calls are not hedged.
+     */
+
+    long hedgeDelayMillis(boolean stream) {
+        if (this.settings.hedgeDelayMillis() <= 0) return 0;
+
+        LatencyWindow window = stream ? this.firstDeltaLatencies : this.latencies;
+        if (this.settings.hedgeQuantile() <= 0 || window.count() < MIN_LATENCY_SAMPLES) return this.settings.hedgeDelayMillis();
+
+        return Math.max(this.settings.minHedgeDelayMillis(), TimeUnit.NANOSECONDS.toMillis(window.quantile(this.settings.hedgeQuantile())));
+    }
+
+    boolean isEjected(String name) {
+        long now = this.nanoTime.getAsLong();
+        return this.endpoints.stream().anyMatch(endpoint -> endpoint.route.name().equals(name) && endpoint.isEjected(now));
+    }
+
+    private ChatResponse execute(ChatRequest chatRequest, Consumer<String> onDelta) {
+        boolean stream = onDelta != null;
+        long hedgeDelayMillis = hedgeDelayMillis(stream);
+
+        // With a stream, the first attempt that sends a delta gets to talk to onDelta, and the other one is stopped
+        AtomicReference<Endpoint> streaming = new AtomicReference<>();
+        CompletionService<ChatResponse> completionService = new ExecutorCompletionService<>(this.executor);
+        Map<Future<ChatResponse>, Endpoint> running = new HashMap<>(2);
+
+        Endpoint primary = choose(null);
+        running.put(submit(completionService, primary, chatRequest, onDelta, streaming), primary);
+        boolean hedged = false;
+        RuntimeException failure = null;
+
+        try {
+            while (!running.isEmpty()) {
+                Future<ChatResponse> done;
+                if (!hedged && hedgeDelayMillis > 0) {
+                    done = completionService.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        hedged = true;
+                        if (streaming.get() != null) continue; // The stream has started, too late to hedge
+
+                        Endpoint hedge = choose(primary);
+                        LOGGER.debug("No answer from {} after {} ms, hedging to {}", primary.route.name(), hedgeDelayMillis, hedge.route.name());
+                        this.slowHedges.increment();
+                        running.put(submit(completionService, hedge, chatRequest, onDelta, streaming), hedge);
+                        continue;
+                    }
+                } else {
+                    done = completionService.take();
+                }
+
+                Endpoint endpoint = running.remove(done);
+                try {
+                    ChatResponse chatResponse = done.get();
+                    if (endpoint != primary) this.hedgeWins.increment();
+                    return chatResponse;
+                } catch (ExecutionException ex) {
+                    if (!(ex.getCause() instanceof RuntimeException cause)) throw new IllegalStateException(ex.getCause());
+                    if (cause instanceof CancellationException) continue; // Lost the race for the stream
+
+                    if (failure == null) failure = cause;
+
+                    // Fail over once, unless the stream has already started or the error is not the endpoint's fault
+                    if (hedged || !running.isEmpty() || streaming.get() != null || !CircuitBreakerChatClient.isFailure(cause))
+                        continue;
+
+                    hedged = true;
+                    Endpoint failover = choose(primary);
+                    if (failover == primary) continue;
+
+                    LOGGER.debug("{} failed with {}, failing over to {}", primary.route.name(), cause.getMessage(), failover.route.name());
+                    this.failovers.increment();
+                    running.put(submit(completionService, failover, chatRequest, onDelta, streaming), failover);
+                }
+            }
+
+            throw failure != null ? failure : new ResourceAccessException("No AI endpoint answered");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for the AI API");
+        } finally {
+            running.keySet().forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Future<ChatResponse> submit(CompletionService<ChatResponse> completionService, Endpoint endpoint,
+                                        ChatRequest chatRequest, Consumer<String> onDelta, AtomicReference<Endpoint> streaming) {
+        Route route = endpoint.route;
+        ChatRequest routedChatRequest = route.model() == null || route.model().isBlank() ? chatRequest : chatRequest.withModel(route.model());
+
+        return completionService.submit(() -> {
+            long start = this.nanoTime.getAsLong();
+            try {
+                ChatResponse chatResponse;
+                if (onDelta == null) {
+                    chatResponse = route.chatClient().generate(routedChatRequest);
+                    this.latencies.record(this.nanoTime.getAsLong() - start);
+                } else {
+                    chatResponse = route.chatClient().generateStream(routedChatRequest, delta -> {
+                        if (streaming.compareAndSet(null, endpoint))
+                            this.firstDeltaLatencies.record(this.nanoTime.getAsLong() - start);
+                        else if (streaming.get() != endpoint)
+                            throw new CancellationException("Another endpoint is already streaming");
+
+                        onDelta.accept(delta);
+                    });
+                }
+                endpoint.onSuccess();
+                return chatResponse;
+            } catch (RuntimeException ex) {
+                // A cancelled attempt says nothing about the endpoint
+                if (!Thread.currentThread().isInterrupted() && CircuitBreakerChatClient.isFailure(ex))
+                    endpoint.onFailure(this.nanoTime.getAsLong());
+                throw ex;
+            }
+        });
+    }
+
+    /**
+     * Picks an endpoint at random, in proportion to the weights, among the endpoints that are not ejected.
+     *
+     * @param exclude An endpoint that should not be picked, or null.
+     * @return The picked endpoint. If no other endpoint is available, the excluded one.
+     */
+
+    private Endpoint choose(Endpoint exclude) {
+        long now = this.nanoTime.getAsLong();
+        List<Endpoint> candidates = new ArrayList<>(this.endpoints.size());
+        for (Endpoint endpoint : this.endpoints)
+            if (endpoint != exclude && endpoint.route.weight() > 0 && !endpoint.isEjected(now)) candidates.add(endpoint);
+
+        if (candidates.isEmpty()) {
+            if (exclude != null) return exclude;
+
+            // Everything is ejected, so take the endpoint that is closest to getting another chance
+            Endpoint soonest = null;
+            for (Endpoint endpoint : this.endpoints)
+                if (endpoint.route.weight() > 0 && (soonest == null || endpoint.ejectedUntil() < soonest.ejectedUntil())) soonest = endpoint;
+            return soonest != null ? soonest : this.endpoints.get(0);
+        }
+
+        int totalWeight = 0;
+        for (Endpoint candidate : candidates) totalWeight += candidate.route.weight();
+
+        double pick = this.random.getAsDouble() * totalWeight;
+        for (Endpoint candidate : candidates) {
+            pick -= candidate.route.weight();
+            if (pick < 0) return candidate;
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    /**
+     * One endpoint to route calls to.
+     *
+     * @param name       Used in logs and metrics.
+     * @param chatClient The ChatClient that calls the endpoint.
+     * @param weight     The share of the calls the endpoint gets, relative to the others. 0 means never.
+     * @param model      The AI model to ask the endpoint for, or null to keep the model of the ChatRequest.
+     */
+
+    public record Route(String name, ChatClient chatClient, int weight, String model) {
+    }
+
+    private class Endpoint {
+
+        private final Route route;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+
+        private Endpoint(Route route) {
+            this.route = route;
+        }
+
+        private synchronized boolean isEjected(long now) {
+            return this.consecutiveFailures >= RoutingChatClient.this.settings.ejectAfterFailures() && now - this.ejectedUntil < 0;
+        }
+
+        private synchronized long ejectedUntil() {
+            return this.ejectedUntil;
+        }
+
+        private synchronized void onSuccess() {
+            this.consecutiveFailures = 0;
+        }
+
+        /**
+         * Once ejected, an endpoint that fails its next call is ejected again right away.
+         */
+
+        private synchronized void onFailure(long now) {
+            if (++this.consecutiveFailures < RoutingChatClient.this.settings.ejectAfterFailures()) return;
+
+            this.ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(RoutingChatClient.this.settings.ejectMillis());
+            LOGGER.warn("AI endpoint {} failed {} calls in a row, ejected for {} ms",
+                    this.route.name(), this.consecutiveFailures, RoutingChatClient.this.settings.ejectMillis());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * The ai.routing.* configuration. Unlike the other ChatClient settings it holds a list of endpoints,
+ * which @Value can't bind, so it is bound as a whole by Spring Boot.
+ *
+ * @param enabled            If false, all calls go to ai.openai.* directly.
+ * @param defaultWeight      The weight of the ai.openai.* endpoint, next to the extra endpoints. 0 leaves it out.
+ * @param hedgeDelayMs       See RoutingSettings.
+ * @param minHedgeDelayMs    See RoutingSettings.
+ * @param hedgeQuantile      See RoutingSettings.
+ * @param ejectAfterFailures See RoutingSettings.
+ * @param ejectMs            See RoutingSettings.
+ * @param endpoints          The extra endpoints to route to, next to ai.openai.*.
+ */
+
+@ConfigurationProperties("ai.routing")
+public record RoutingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1") int defaultWeight,
+        @DefaultValue("20000") long hedgeDelayMs,
+        @DefaultValue("2000") long minHedgeDelayMs,
+        @DefaultValue("0.95") double hedgeQuantile,
+        @DefaultValue("3") int ejectAfterFailures,
+        @DefaultValue("30000") long ejectMs,
+        List<Endpoint> endpoints
+) {
+
+    public RoutingProperties {
+        endpoints = endpoints == null ? List.of() : List.copyOf(endpoints);
+    }
+
+    /**
+     * @param name     Used in logs and metrics.
+     * @param endpoint The URL of the chat completions API.
+     * @param apiKey   The API key for the endpoint.
+     * @param model    The AI model to ask the endpoint for, empty to use ai.openai.model.
+     * @param weight   The share of the calls the endpoint gets, relative to the others.
+     */
+
+    public record Endpoint(String name, String endpoint, String apiKey, String model, @DefaultValue("1") int weight) {
+    }
+}
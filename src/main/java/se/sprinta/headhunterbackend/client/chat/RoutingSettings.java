@@ -0,0 +1,22 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+/**
+ * Settings for RoutingChatClient, read from ai.routing.* in ChatClientConfiguration.
+ *
+ * @param hedgeDelayMillis    How long to wait for an endpoint before a hedged request is sent to another one,
+ *                            until enough latencies have been observed. 0 turns hedging off.
+ * @param minHedgeDelayMillis The hedge delay never goes below this, however fast the endpoints have been.
+ * @param hedgeQuantile       Once enough latencies have been observed, the hedge delay is this quantile of them,
+ *                            e.g. 0.95 for p95. 0 keeps the hedge delay at hedgeDelayMillis.
+ * @param ejectAfterFailures  How many failed calls in a row take an endpoint out of the rotation.
+ * @param ejectMillis         How long an endpoint stays out of the rotation before it gets another chance.
+ */
+
+public record RoutingSettings(
+        long hedgeDelayMillis,
+        long minHedgeDelayMillis,
+        double hedgeQuantile,
+        int ejectAfterFailures,
+        long ejectMillis
+) {
+}
@@ -0,0 +1,59 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket that refills continuously at a per-minute rate.
+ * <p>
+ * reserve never rejects: it takes the permits right away, letting the bucket go into debt, and returns how long the
+ * caller has to wait before the permits would have been there. That way callers queue up in arrival order and the
+ * permits are handed out at exactly the configured rate, instead of everyone retrying at the same time.
+ */
+
+class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final LongSupplier nanoTime;
+
+    private double available;
+    private long lastRefill;
+
+    /**
+     * @param permitsPerMinute The rate the bucket refills at.
+     * @param burstSeconds     How many seconds' worth of permits the bucket holds when it is full.
+     * @param nanoTime         Source of time, System::nanoTime outside of tests.
+     */
+
+    TokenBucket(long permitsPerMinute, int burstSeconds, LongSupplier nanoTime) {
+        if (permitsPerMinute < 1) throw new IllegalArgumentException("permitsPerMinute must be at least 1");
+        this.refillPerNano = permitsPerMinute / 60_000_000_000d;
+        this.capacity = Math.max(1, permitsPerMinute * burstSeconds / 60d);
+        this.nanoTime = nanoTime;
+        this.available = this.capacity;
+        this.lastRefill = nanoTime.getAsLong();
+    }
+
+    /**
+     * @param permits The number of permits to take.
+     * @return The number of nanoseconds to wait before using the permits, 0 if they are available now.
+     */
+
+    synchronized long reserve(long permits) {
+        refill();
+        // A reservation bigger than the bucket would never fit, so it is capped to a full bucket
+        this.available -= Math.min(permits, this.capacity);
+        return this.available >= 0 ? 0 : (long) Math.ceil(-this.available / this.refillPerNano);
+    }
+
+    synchronized double available() {
+        refill();
+        return this.available;
+    }
+
+    private void refill() {
+        long now = this.nanoTime.getAsLong();
+        this.available = Math.min(this.capacity, this.available + (now - this.lastRefill) * this.refillPerNano);
+        this.lastRefill = now;
+    }
+}
@@ -0,0 +1,79 @@
+package se.sprinta.headhunterbackend.client.chat.cassette;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import se.sprinta.headhunterbackend.client.chat.ChatRequestDigest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A file of recorded AI calls, one CassetteEntry per line, as gzipped JSON lines.
+ * <p>
+ * Every append writes its line as a gzip member of its own, so nothing has to be kept open or closed between calls,
+ * and an application that is killed while recording leaves a readable cassette behind.
+ * GZIPInputStream reads the members back as one stream.
+ */
+
+public class Cassette {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public Cassette(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return The key that recorded calls are matched on.
+     */
+
+    public static String key(ChatRequest chatRequest) {
+        return ChatRequestDigest.ofPrompt(chatRequest);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public synchronized void append(CassetteEntry entry) throws IOException {
+        byte[] line = (this.objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        Path parent = this.path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(this.path, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            out.write(line);
+        }
+    }
+
+    /**
+     * @return All recorded calls, in the order they were recorded.
+     * @throws UncheckedIOException if the cassette can't be read, e.g. because it doesn't exist.
+     */
+
+    public List<CassetteEntry> load() {
+        List<CassetteEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(this.path)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                if (!line.isBlank()) entries.add(this.objectMapper.readValue(line, CassetteEntry.class));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read cassette " + this.path, ex);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,29 @@
+package se.sprinta.headhunterbackend.client.chat.cassette;
+
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+
+import java.util.List;
+
+/**
+ * One recorded AI call in a Cassette.
+ *
+ * @param key           The prompt digest the call is matched on, see ChatRequestDigest.ofPrompt.
+ * @param model         The AI model that answered, for reference only.
+ * @param latencyMillis How long the AI API took to answer.
+ * @param response      The answer.
+ * @param deltas        For a streamed call, the pieces of the answer and when they arrived. Null for a plain call.
+ */
+
+public record CassetteEntry(String key,
+                            String model,
+                            long latencyMillis,
+                            ChatResponse response,
+                            List<Delta> deltas) {
+
+    /**
+     * @param atMillis The time since the start of the call that the piece arrived at.
+     * @param content  The piece of the answer.
+     */
+    public record Delta(long atMillis, String content) {
+    }
+}
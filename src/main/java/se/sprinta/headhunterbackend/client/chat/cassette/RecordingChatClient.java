@@ -0,0 +1,71 @@
+package se.sprinta.headhunterbackend.client.chat.cassette;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A ChatClient decorator that records every successful call to a Cassette, with its latency and, for a stream,
+ * the timing of every delta. Failed calls are not recorded. A cassette that can't be written to is logged,
+ * but never fails the call.
+ */
+
+public class RecordingChatClient implements ChatClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecordingChatClient.class);
+
+    private final ChatClient delegate;
+    private final Cassette cassette;
+    private final LongSupplier nanoTime;
+
+    public RecordingChatClient(ChatClient delegate, Cassette cassette) {
+        this(delegate, cassette, System::nanoTime);
+    }
+
+    RecordingChatClient(ChatClient delegate, Cassette cassette, LongSupplier nanoTime) {
+        this.delegate = delegate;
+        this.cassette = cassette;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        long start = this.nanoTime.getAsLong();
+        ChatResponse chatResponse = this.delegate.generate(chatRequest);
+        record(chatRequest, chatResponse, millisSince(start), null);
+        return chatResponse;
+    }
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        List<CassetteEntry.Delta> deltas = new ArrayList<>();
+        long start = this.nanoTime.getAsLong();
+        ChatResponse chatResponse = this.delegate.generateStream(chatRequest, delta -> {
+            deltas.add(new CassetteEntry.Delta(millisSince(start), delta));
+            onDelta.accept(delta);
+        });
+        record(chatRequest, chatResponse, millisSince(start), deltas);
+        return chatResponse;
+    }
+
+    private void record(ChatRequest chatRequest, ChatResponse chatResponse, long latencyMillis, List<CassetteEntry.Delta> deltas) {
+        try {
+            this.cassette.append(new CassetteEntry(Cassette.key(chatRequest), chatRequest.model(), latencyMillis, chatResponse, deltas));
+        } catch (IOException ex) {
+            LOGGER.warn("Could not record AI call to cassette {}", this.cassette.getPath(), ex);
+        }
+    }
+
+    private long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(this.nanoTime.getAsLong() - start);
+    }
+}
@@ -0,0 +1,106 @@
+package se.sprinta.headhunterbackend.client.chat.cassette;
+
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A ChatClient that answers from a Cassette instead of calling the AI API, so it works offline and costs nothing.
+ * <p>
+ * Requests are matched on their prompt digest (see ChatRequestDigest.ofPrompt). A prompt that was recorded several
+ * times gets its recordings in turn. A prompt that was never recorded fails with IllegalStateException.
+ * <p>
+ * With Speed.ORIGINAL every answer takes as long as it took when it was recorded, and a stream sends its deltas
+ * with the recorded timing. With Speed.FAST everything is answered right away, which leaves only our own overhead
+ * to measure.
+ */
+
+public class ReplayChatClient implements ChatClient {
+
+    public enum Speed {
+        ORIGINAL,
+        FAST
+    }
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final Map<String, List<CassetteEntry>> entriesByKey = new HashMap<>();
+    private final Map<String, AtomicInteger> nextByKey = new HashMap<>();
+    private final Speed speed;
+    private final Sleeper sleeper;
+
+    public ReplayChatClient(List<CassetteEntry> entries, Speed speed) {
+        this(entries, speed, Thread::sleep);
+    }
+
+    ReplayChatClient(List<CassetteEntry> entries, Speed speed, Sleeper sleeper) {
+        this.speed = speed;
+        this.sleeper = sleeper;
+        for (CassetteEntry entry : entries) {
+            this.entriesByKey.computeIfAbsent(entry.key(), key -> new ArrayList<>()).add(entry);
+            this.nextByKey.putIfAbsent(entry.key(), new AtomicInteger());
+        }
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        CassetteEntry entry = find(chatRequest);
+        sleepUntil(entry.latencyMillis(), 0);
+        return entry.response();
+    }
+
+    /**
+     * A call that was recorded without stream is replayed as one delta, when the answer is complete.
+     */
+
+    @Override
+    public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        CassetteEntry entry = find(chatRequest);
+        if (entry.deltas() == null) {
+            sleepUntil(entry.latencyMillis(), 0);
+            onDelta.accept(entry.response().choices().get(0).message().content());
+            return entry.response();
+        }
+
+        long elapsedMillis = 0;
+        for (CassetteEntry.Delta delta : entry.deltas()) {
+            elapsedMillis = sleepUntil(delta.atMillis(), elapsedMillis);
+            onDelta.accept(delta.content());
+        }
+        sleepUntil(entry.latencyMillis(), elapsedMillis);
+        return entry.response();
+    }
+
+    private CassetteEntry find(ChatRequest chatRequest) {
+        String key = Cassette.key(chatRequest);
+        List<CassetteEntry> entries = this.entriesByKey.get(key);
+        if (entries == null) throw new IllegalStateException("No recorded AI call in the cassette matches the request, key " + key);
+
+        return entries.get(Math.floorMod(this.nextByKey.get(key).getAndIncrement(), entries.size()));
+    }
+
+    /**
+     * @return The time since the start of the call, once at atMillis.
+     */
+
+    private long sleepUntil(long atMillis, long elapsedMillis) {
+        if (this.speed == Speed.FAST || atMillis <= elapsedMillis) return elapsedMillis;
+
+        try {
+            this.sleeper.sleep(atMillis - elapsedMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying an AI call", ex);
+        }
+        return atMillis;
+    }
+}
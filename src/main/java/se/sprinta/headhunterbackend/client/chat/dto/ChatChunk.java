@@ -0,0 +1,17 @@
+package se.sprinta.headhunterbackend.client.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * The ChatChunk record holds one server-sent event of a streamed chat completion.
+ * Each chunk carries a small piece (a delta) of the generated text for each choice.
+ *
+ * @param choices a list of chunk choices
+ * @param usage   only set in the last chunk, when the request asked for it with StreamOptions
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChatChunk(List<ChunkChoice> choices,
+                        Usage usage) {
+}
@@ -1,5 +1,9 @@
 package se.sprinta.headhunterbackend.client.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 /**
@@ -9,10 +13,54 @@ import java.util.List;
  * examples and pertinent contextual information.
  * <p>
  * In a nutshell, the prompt helps the AI model "understand" the structure and intent of the user's query, leading to more precise and relevant responses.
+ * <p>
+ * Optional fields are left out of the JSON body when they are null, so the AI model uses its defaults.
+ * Fields marked @JsonIgnore are instructions for our own ChatClient decorators and are never sent.
  *
- * @param model    the AI model to use
- * @param messages the prompt information
+ * @param model         the AI model to use
+ * @param messages      the prompt information
+ * @param n             how many alternative completions (choices) to generate, null means one
+ * @param stream        if true, the AI model sends the completion as a stream of server-sent events
+ * @param streamOptions options for a streamed completion, e.g. to get the Usage at the end of the stream
+ * @param useCache      if false, a cached completion is not used (see CachingChatClient)
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ChatRequest(String model,
-                          List<Message> messages) {
+                          List<Message> messages,
+                          Integer n,
+                          Boolean stream,
+                          @JsonProperty("stream_options") StreamOptions streamOptions,
+                          @JsonIgnore boolean useCache) {
+
+    public ChatRequest(String model, List<Message> messages) {
+        this(model, messages, null, null, null, true);
+    }
+
+    /**
+     * Returns a copy of this request that asks the AI model to stream the completion, followed by the Usage.
+     */
+    public ChatRequest withStream() {
+        return new ChatRequest(this.model, this.messages, this.n, true, new StreamOptions(true), this.useCache);
+    }
+
+    /**
+     * Returns a copy of this request that asks the AI model for n alternative completions.
+     */
+    public ChatRequest withChoices(int n) {
+        return new ChatRequest(this.model, this.messages, n, this.stream, this.streamOptions, this.useCache);
+    }
+
+    /**
+     * Returns a copy of this request for another AI model, e.g. the one a RoutingChatClient endpoint serves.
+     */
+    public ChatRequest withModel(String model) {
+        return new ChatRequest(model, this.messages, this.n, this.stream, this.streamOptions, this.useCache);
+    }
+
+    /**
+     * Returns a copy of this request that bypasses the completion cache.
+     */
+    public ChatRequest withoutCache() {
+        return new ChatRequest(this.model, this.messages, this.n, this.stream, this.streamOptions, false);
+    }
 }
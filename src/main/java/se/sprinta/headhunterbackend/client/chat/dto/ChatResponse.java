@@ -1,5 +1,7 @@
 package se.sprinta.headhunterbackend.client.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import java.util.List;
 
 /**
@@ -12,6 +14,20 @@ import java.util.List;
  * chatResponse.choices().get(0).message().content().
  *
  * @param choices a list of chat completion choices
+ * @param usage   the number of tokens the completion cost, null if unknown (e.g. when it came from a cache)
  */
-public record ChatResponse(List<Choice> choices) {
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChatResponse(List<Choice> choices,
+                           Usage usage) {
+
+    public ChatResponse(List<Choice> choices) {
+        this(choices, null);
+    }
+
+    /**
+     * Returns a copy of this response without usage, for a completion that didn't cost anything this time.
+     */
+    public ChatResponse withoutUsage() {
+        return new ChatResponse(this.choices, null);
+    }
 }
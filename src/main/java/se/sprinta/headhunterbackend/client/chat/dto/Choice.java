@@ -1,12 +1,33 @@
 package se.sprinta.headhunterbackend.client.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * The Choice record encapsulates a Message that represents the output text generated by the AI model from a single prompt.
  * By default, the AI model will only return one choice.
  *
  * @param index
  * @param message
+ * @param finishReason the reason the AI model stopped (e.g., "stop", or "length" when it ran out of tokens), null if unknown
  */
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record Choice(int index,
-                     Message message) {
+                     Message message,
+                     @JsonProperty("finish_reason") String finishReason) {
+
+    public static final String FINISH_REASON_LENGTH = "length";
+
+    public Choice(int index, Message message) {
+        this(index, message, null);
+    }
+
+    /**
+     * Returns true if the AI model was cut off by the token limit, so that the message is incomplete.
+     */
+    @JsonIgnore
+    public boolean isTruncated() {
+        return FINISH_REASON_LENGTH.equals(this.finishReason);
+    }
 }
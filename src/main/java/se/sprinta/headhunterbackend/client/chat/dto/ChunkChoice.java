@@ -0,0 +1,18 @@
+package se.sprinta.headhunterbackend.client.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The ChunkChoice record holds the delta of one choice in a ChatChunk.
+ * The delta has the same shape as a Message, but only carries the text that was generated since the previous chunk.
+ *
+ * @param index        the index of the choice
+ * @param delta        the newly generated text
+ * @param finishReason null while the AI model is generating, then the reason it stopped (e.g., "stop" or "length")
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChunkChoice(int index,
+                          Message delta,
+                          @JsonProperty("finish_reason") String finishReason) {
+}
@@ -1,8 +1,11 @@
 package se.sprinta.headhunterbackend.client.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 /**
  * The Message record has a conversational role (either "system", "user", or "assistant") and a textual content.
  */
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record Message(String role,
                       String content) {
 }
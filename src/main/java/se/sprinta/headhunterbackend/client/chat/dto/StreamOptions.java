@@ -0,0 +1,11 @@
+package se.sprinta.headhunterbackend.client.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Options for a streamed chat completion.
+ *
+ * @param includeUsage if true, the AI model sends the Usage in a last chunk before [DONE]
+ */
+public record StreamOptions(@JsonProperty("include_usage") boolean includeUsage) {
+}
@@ -0,0 +1,17 @@
+package se.sprinta.headhunterbackend.client.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The Usage record holds the number of tokens a chat completion cost, as counted by the AI model.
+ *
+ * @param promptTokens     tokens in the prompt (the messages sent)
+ * @param completionTokens tokens in the generated completion, summed over all choices
+ * @param totalTokens      promptTokens + completionTokens
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Usage(@JsonProperty("prompt_tokens") long promptTokens,
+                    @JsonProperty("completion_tokens") long completionTokens,
+                    @JsonProperty("total_tokens") long totalTokens) {
+}
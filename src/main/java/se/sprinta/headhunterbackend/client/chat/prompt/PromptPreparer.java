@@ -0,0 +1,184 @@
+package se.sprinta.headhunterbackend.client.chat.prompt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.system.exception.PromptTooLargeException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Prepares the instruction and description of a job before they are sent to the AI model.
+ * <p>
+ * Descriptions are often pasted from Word or exported from an ATS, full of markup, odd whitespace and repeated
+ * boilerplate. That costs tokens, latency and quota without changing the ad. prepare strips the markup of the
+ * description, normalises its whitespace and drops lines that are repeated. The instruction is written by the user
+ * for the AI model and may well ask for markup, like "use <h2> for headings", so only its whitespace is normalised.
+ * Then the size of the prompt is checked with TokenEstimator:
+ * <ul>
+ *     <li>Above ai.prompt.reject-tokens the job is rejected, without calling the AI model.</li>
+ *     <li>Above ai.prompt.max-tokens the description is cut at the last paragraph or sentence that fits.</li>
+ * </ul>
+ */
+
+@Component
+public class PromptPreparer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PromptPreparer.class);
+
+    /**
+     * Shorter lines, like "- Java" or a heading, may well be repeated on purpose.
+     */
+    static final int MIN_REPEATED_LINE_LENGTH = 30;
+
+    private static final Pattern MARKUP = Pattern.compile("<[a-zA-Z/!][^>]*>");
+    private static final Pattern SCRIPT_OR_STYLE = Pattern.compile("<(script|style)\\b[^>]*>.*?</\\1\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern LIST_ITEM = Pattern.compile("<li\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BLOCK_TAG = Pattern.compile("</?(p|div|br|hr|ul|ol|h[1-6]|tr|table|section|article|header|footer)\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+
+    private static final Pattern INVISIBLE = Pattern.compile("[\\u00AD\\u200B-\\u200D\\u2060\\uFEFF]");
+    private static final Pattern BULLET = Pattern.compile("[\\u2022\\u25E6\\u25AA\\u25CF\\u2023\\u2043\\uF0B7]");
+    private static final Pattern HORIZONTAL_SPACE = Pattern.compile("[\\h\\x0B\\f]+");
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r\\n?");
+    private static final Pattern EMPTY_LINES = Pattern.compile("\\n{3,}");
+
+    private static final int CHAT_FORMAT_TOKENS = TokenEstimator.TOKENS_PER_REPLY + 2 * TokenEstimator.TOKENS_PER_MESSAGE + 2;
+
+    private final int maxTokens;
+    private final int rejectTokens;
+
+    public PromptPreparer(@Value("${ai.prompt.max-tokens:4000}") int maxTokens,
+                          @Value("${ai.prompt.reject-tokens:20000}") int rejectTokens) {
+        this.maxTokens = maxTokens;
+        this.rejectTokens = rejectTokens;
+    }
+
+    /**
+     * @param instruction The instruction of the job, sent as system message.
+     * @param description The description of the job, sent as user message.
+     * @return The system and user message to send to the AI model.
+     * @throws PromptTooLargeException if the prompt is too large to send, even after compaction.
+     */
+
+    public List<Message> prepare(String instruction, String description) {
+        String system = normalizeWhitespace(instruction);
+        String user = compact(description);
+
+        int systemTokens = TokenEstimator.estimate(system);
+        int userTokens = TokenEstimator.estimate(user);
+        int promptTokens = CHAT_FORMAT_TOKENS + systemTokens + userTokens;
+
+        if (promptTokens > this.rejectTokens)
+            throw new PromptTooLargeException(promptTokens, this.rejectTokens);
+
+        if (promptTokens > this.maxTokens) {
+            int userBudget = this.maxTokens - CHAT_FORMAT_TOKENS - systemTokens;
+            if (userBudget <= 0) throw new PromptTooLargeException(promptTokens, this.maxTokens);
+
+            user = truncate(user, userBudget);
+            LOGGER.info("Description truncated from about {} to {} tokens to fit ai.prompt.max-tokens {}",
+                    userTokens, TokenEstimator.estimate(user), this.maxTokens);
+        }
+
+        return List.of(
+                new Message("system", system),
+                new Message("user", user));
+    }
+
+    /**
+     * Strips markup, normalises whitespace and drops repeated lines. Text without any of these is returned as is.
+     *
+     * @param text The text to compact, may be null.
+     * @return The compacted text.
+     */
+
+    public String compact(String text) {
+        if (text == null) return null;
+
+        String compacted = MARKUP.matcher(text).find() ? stripMarkup(text) : text;
+        compacted = BULLET.matcher(compacted).replaceAll("-");
+        compacted = normalizeWhitespace(compacted);
+
+        List<String> lines = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String line : compacted.split("\n", -1)) {
+            if (line.length() >= MIN_REPEATED_LINE_LENGTH && !seen.add(line.toLowerCase(Locale.ROOT))) continue;
+            lines.add(line);
+        }
+
+        return EMPTY_LINES.matcher(String.join("\n", lines)).replaceAll("\n\n").strip();
+    }
+
+    /**
+     * Removes invisible characters, collapses runs of spaces and tabs, trims every line and collapses runs of empty
+     * lines. Anything else, markup included, is left as it is.
+     *
+     * @param text The text to normalise, may be null.
+     * @return The normalised text.
+     */
+
+    public String normalizeWhitespace(String text) {
+        if (text == null) return null;
+
+        String normalized = INVISIBLE.matcher(text).replaceAll("");
+        normalized = LINE_BREAK.matcher(normalized).replaceAll("\n");
+        normalized = HORIZONTAL_SPACE.matcher(normalized).replaceAll(" ");
+
+        List<String> lines = new ArrayList<>();
+        for (String line : normalized.split("\n", -1)) lines.add(line.strip());
+
+        return EMPTY_LINES.matcher(String.join("\n", lines)).replaceAll("\n\n").strip();
+    }
+
+    /**
+     * Cuts the text at the last paragraph, sentence or word boundary where the estimate still fits the budget.
+     */
+
+    private static String truncate(String text, int budget) {
+        // The estimate only grows with the length of the text, so search for the longest prefix that fits
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (TokenEstimator.estimate(text.substring(0, middle)) <= budget) low = middle;
+            else high = middle - 1;
+        }
+
+        int end = low;
+        int paragraph = text.lastIndexOf("\n\n", end);
+        int sentence = Math.max(text.lastIndexOf(". ", end - 1), text.lastIndexOf(".\n", end - 1));
+        if (paragraph > end / 2) end = paragraph;
+        else if (sentence > end / 2) end = sentence + 1;
+        else {
+            int space = text.lastIndexOf(' ', end);
+            if (space > 0 && end < text.length() && !Character.isWhitespace(text.charAt(end))) end = space;
+        }
+
+        return text.substring(0, end).strip();
+    }
+
+    private static String stripMarkup(String text) {
+        String stripped = SCRIPT_OR_STYLE.matcher(text).replaceAll("");
+        stripped = COMMENT.matcher(stripped).replaceAll("");
+        stripped = LIST_ITEM.matcher(stripped).replaceAll("\n- ");
+        stripped = BLOCK_TAG.matcher(stripped).replaceAll("\n");
+        stripped = TAG.matcher(stripped).replaceAll("");
+
+        return stripped
+                .replace("&nbsp;", " ")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,93 @@
+package se.sprinta.headhunterbackend.client.chat.prompt;
+
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Estimates how many tokens a text is for the OpenAI models, without a network call or a vocabulary file.
+ * <p>
+ * The text is split with the same pre-tokenization pattern as the cl100k/o200k BPE encodings, so words, numbers,
+ * punctuation and whitespace end up in the same pieces as they would for the model. Every piece is then counted
+ * from its length instead of being merged with the real vocabulary. Common words are one token, long and
+ * non-ASCII words (e.g. Swedish) a few more. The estimate errs on the high side, which is the safe side for
+ * budgets and rate limits.
+ */
+
+public final class TokenEstimator {
+
+    /**
+     * Every chat message is wrapped in a few formatting tokens, and the reply is primed with a few more.
+     */
+    static final int TOKENS_PER_MESSAGE = 3;
+    static final int TOKENS_PER_REPLY = 3;
+
+    private static final Pattern PIECES = Pattern.compile(
+            "'(?i:[sdmt]|ll|ve|re)"
+                    + "|[^\\r\\n\\p{L}\\p{N}]?+\\p{L}+"
+                    + "|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]++[\\r\\n]*"
+                    + "|\\s*[\\r\\n]"
+                    + "|\\s+(?!\\S)"
+                    + "|\\s+");
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * @param text The text to estimate, may be null.
+     * @return The estimated number of tokens.
+     */
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) return 0;
+
+        int tokens = 0;
+        Matcher matcher = PIECES.matcher(text);
+        while (matcher.find())
+            tokens += estimatePiece(text, matcher.start(), matcher.end());
+
+        return tokens;
+    }
+
+    /**
+     * @param messages The messages of a chat request.
+     * @return The estimated number of prompt tokens, including the chat formatting.
+     */
+
+    public static int estimate(List<Message> messages) {
+        if (messages == null || messages.isEmpty()) return 0;
+
+        int tokens = TOKENS_PER_REPLY;
+        for (Message message : messages)
+            tokens += TOKENS_PER_MESSAGE + estimate(message.role()) + estimate(message.content());
+
+        return tokens;
+    }
+
+    private static int estimatePiece(String text, int start, int end) {
+        int letters = 0;
+        int nonAsciiLetters = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetter(c)) continue;
+            letters++;
+            if (c > 0x7F) nonAsciiLetters++;
+        }
+
+        if (letters == 0) {
+            // Numbers are split in groups of three digits, and whitespace runs are mostly one token. Punctuation runs
+            // merge less often
+            char first = text.charAt(start);
+            if (Character.isDigit(first) || Character.isWhitespace(first)) return 1;
+            return 1 + (end - start - 1) / 2;
+        }
+
+        // Words of up to seven letters are usually in the vocabulary, longer ones are split in parts of about four.
+        // Letters outside ASCII are encoded as several bytes, and rarely merged with their neighbours
+        int tokens = letters <= 7 ? 1 : (letters + 3) / 4;
+        return tokens + (nonAsciiLetters + 1) / 2;
+    }
+}
@@ -0,0 +1,98 @@
+package se.sprinta.headhunterbackend.generation;
+
+import se.sprinta.headhunterbackend.generation.dto.BulkGenerationDtoView;
+import se.sprinta.headhunterbackend.generation.dto.BulkGenerationJobDtoView;
+import se.sprinta.headhunterbackend.job.dto.JobCardDtoView;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The in-memory progress of generating ads for all jobs of an account.
+ * Worker threads update it while the client polls it, so every method is synchronized.
+ */
+
+public class BulkGeneration {
+
+    private final String id;
+    private final String email;
+    private final Map<Long, JobProgress> jobs = new LinkedHashMap<>();
+    private GenerationStatus status = GenerationStatus.RUNNING;
+
+    public BulkGeneration(String email, List<JobCardDtoView> jobCards) {
+        this.id = UUID.randomUUID().toString();
+        this.email = email;
+        jobCards.forEach(jobCard -> this.jobs.put(jobCard.id(), new JobProgress(jobCard.title())));
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getEmail() {
+        return this.email;
+    }
+
+    public synchronized List<Long> getJobIds() {
+        return List.copyOf(this.jobs.keySet());
+    }
+
+    public synchronized GenerationStatus getStatus() {
+        return this.status;
+    }
+
+    public synchronized void markRunning(Long jobId) {
+        this.jobs.get(jobId).status = GenerationStatus.RUNNING;
+    }
+
+    public synchronized void markDone(Long jobId, String adId) {
+        JobProgress jobProgress = this.jobs.get(jobId);
+        jobProgress.status = GenerationStatus.DONE;
+        jobProgress.adId = adId;
+    }
+
+    public synchronized void markFailed(Long jobId, String errorMessage) {
+        JobProgress jobProgress = this.jobs.get(jobId);
+        jobProgress.status = GenerationStatus.FAILED;
+        jobProgress.errorMessage = errorMessage;
+    }
+
+    public synchronized void finish() {
+        this.status = GenerationStatus.DONE;
+    }
+
+    public synchronized BulkGenerationDtoView toDto() {
+        int completed = 0;
+        int failed = 0;
+        List<BulkGenerationJobDtoView> jobDtos = new ArrayList<>(this.jobs.size());
+
+        for (Map.Entry<Long, JobProgress> entry : this.jobs.entrySet()) {
+            JobProgress jobProgress = entry.getValue();
+            if (jobProgress.status == GenerationStatus.DONE) completed++;
+            if (jobProgress.status == GenerationStatus.FAILED) failed++;
+            jobDtos.add(new BulkGenerationJobDtoView(
+                    entry.getKey(),
+                    jobProgress.title,
+                    jobProgress.status,
+                    jobProgress.adId,
+                    jobProgress.errorMessage));
+        }
+
+        return new BulkGenerationDtoView(this.id, this.email, this.status, this.jobs.size(), completed, failed, jobDtos);
+    }
+
+    private static class JobProgress {
+
+        private final String title;
+        private GenerationStatus status = GenerationStatus.QUEUED;
+        private String adId;
+        private String errorMessage;
+
+        private JobProgress(String title) {
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package se.sprinta.headhunterbackend.generation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import se.sprinta.headhunterbackend.account.AccountRepository;
+import se.sprinta.headhunterbackend.ad.Ad;
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.generation.dto.BulkGenerationDtoView;
+import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.job.JobRepository;
+import se.sprinta.headhunterbackend.job.JobService;
+import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+import se.sprinta.headhunterbackend.usage.TokenUsageService;
+import se.sprinta.headhunterbackend.utils.ExpiringLruCache;
+import se.sprinta.headhunterbackend.utils.HtmlUtilities;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Business logic for generating ads for all jobs of an account at once.
+ * <p>
+ * The jobs are sent to the ChatClient in parallel, but never more than generation.bulk.concurrency at a time
+ * across all running bulk generations. The generated ads are collected and persisted generation.bulk.batch-size
+ * at a time, so a bulk of 50 jobs doesn't mean 50 separate transactions.
+ * <p>
+ * Progress is kept in memory and can be polled with the id returned by start.
+ * Like GenerationTicketService, this class is intentionally not @Transactional.
+ */
+
+@Service
+public class BulkGenerationService implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkGenerationService.class);
+
+    private final AccountRepository accountRepository;
+    private final JobRepository jobRepository;
+    private final JobService jobService;
+    private final ChatClient chatClient;
+    private final HtmlUtilities htmlUtilities;
+    private final TokenUsageService tokenUsageService;
+    private final ContinuationService continuationService;
+    private final Semaphore permits;
+    private final int batchSize;
+
+    // Finished bulk generations can be polled for an hour
+    private final ExpiringLruCache<String, BulkGeneration> bulkGenerations = new ExpiringLruCache<>(1000, Duration.ofHours(1));
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BulkGenerationService(AccountRepository accountRepository,
+                                 JobRepository jobRepository,
+                                 JobService jobService,
+                                 ChatClient chatClient,
+                                 HtmlUtilities htmlUtilities,
+                                 TokenUsageService tokenUsageService,
+                                 ContinuationService continuationService,
+                                 @Value("${generation.bulk.concurrency:8}") int concurrency,
+                                 @Value("${generation.bulk.batch-size:10}") int batchSize) {
+        if (concurrency < 1) throw new IllegalArgumentException("generation.bulk.concurrency must be at least 1");
+        if (batchSize < 1) throw new IllegalArgumentException("generation.bulk.batch-size must be at least 1");
+
+        this.accountRepository = accountRepository;
+        this.jobRepository = jobRepository;
+        this.jobService = jobService;
+        this.chatClient = chatClient;
+        this.htmlUtilities = htmlUtilities;
+        this.tokenUsageService = tokenUsageService;
+        this.continuationService = continuationService;
+        this.permits = new Semaphore(concurrency, true);
+        this.batchSize = batchSize;
+    }
+
+    public BulkGeneration start(String email) {
+        if (!this.accountRepository.existsById(email))
+            throw new ObjectNotFoundException("account", email);
+
+        BulkGeneration bulkGeneration = new BulkGeneration(email, this.jobRepository.getJobCardDtosByEmail(email));
+        this.bulkGenerations.put(bulkGeneration.getId(), bulkGeneration);
+
+        this.executor.execute(() -> run(bulkGeneration));
+        return bulkGeneration;
+    }
+
+    public BulkGenerationDtoView getBulkGenerationDto(String bulkGenerationId) {
+        BulkGeneration bulkGeneration = this.bulkGenerations.get(bulkGenerationId);
+        if (bulkGeneration == null) throw new ObjectNotFoundException("bulk generation", bulkGenerationId);
+        return bulkGeneration.toDto();
+    }
+
+    void run(BulkGeneration bulkGeneration) {
+        Map<Long, Job> jobs = new HashMap<>();
+        this.jobRepository.findAllById(bulkGeneration.getJobIds()).forEach(job -> jobs.put(job.getId(), job));
+
+        Map<Long, String> pendingAds = new HashMap<>();
+
+        // Closing the executor waits for every job to finish
+        try (ExecutorService jobExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long jobId : bulkGeneration.getJobIds()) {
+                this.permits.acquireUninterruptibly(); // Don't start more threads than may call the ChatClient
+                jobExecutor.execute(() -> {
+                    try {
+                        generate(bulkGeneration, jobId, jobs.get(jobId), pendingAds);
+                    } finally {
+                        this.permits.release();
+                    }
+                });
+            }
+        }
+
+        synchronized (pendingAds) {
+            flush(bulkGeneration, new HashMap<>(pendingAds));
+        }
+
+        bulkGeneration.finish();
+        LOGGER.info("Bulk generation {} for {} finished", bulkGeneration.getId(), bulkGeneration.getEmail());
+    }
+
+    private void generate(BulkGeneration bulkGeneration, Long jobId, Job job, Map<Long, String> pendingAds) {
+        bulkGeneration.markRunning(jobId);
+
+        try {
+            if (job == null) throw new ObjectNotFoundException("job", jobId); // Deleted after the bulk generation started
+
+            this.tokenUsageService.checkQuota(job);
+
+            ChatResponse chatResponse = this.chatClient.generate(this.jobService.createChatRequest(job));
+
+            this.tokenUsageService.record(job, chatResponse.usage());
+            Choice choice = chatResponse.choices().get(0);
+            String content = choice.isTruncated()
+                    ? this.continuationService.complete(job, choice.message().content())
+                    : choice.message().content();
+            String htmlCode = this.htmlUtilities.makeHtmlResponseSubstring(content);
+
+            Map<Long, String> batch = null;
+            synchronized (pendingAds) {
+                pendingAds.put(jobId, htmlCode);
+                if (pendingAds.size() >= this.batchSize) {
+                    batch = new HashMap<>(pendingAds);
+                    pendingAds.clear();
+                }
+            }
+
+            if (batch != null) flush(bulkGeneration, batch);
+        } catch (Exception ex) {
+            LOGGER.warn("Bulk generation {} failed for job {}: {}", bulkGeneration.getId(), jobId, ex.getMessage());
+            bulkGeneration.markFailed(jobId, ex.getMessage());
+        }
+    }
+
+    private void flush(BulkGeneration bulkGeneration, Map<Long, String> batch) {
+        if (batch.isEmpty()) return;
+
+        try {
+            for (Ad savedAd : this.jobService.saveGeneratedAds(batch))
+                bulkGeneration.markDone(savedAd.getJob().getId(), savedAd.getId());
+        } catch (Exception ex) {
+            LOGGER.warn("Bulk generation {} failed to save {} ad(s): {}", bulkGeneration.getId(), batch.size(), ex.getMessage());
+            batch.keySet().forEach(jobId -> bulkGeneration.markFailed(jobId, ex.getMessage()));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+}
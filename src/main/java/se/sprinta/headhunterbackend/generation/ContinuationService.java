@@ -0,0 +1,180 @@
+package se.sprinta.headhunterbackend.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.usage.TokenUsageService;
+import se.sprinta.headhunterbackend.utils.HtmlExtractor;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Completes an ad that the AI model was cut off in, by asking it to continue where it stopped, instead of throwing the
+ * whole generation away and starting over.
+ * <p>
+ * A continuation request only sends the last ai.continuation.tail-chars characters of the response, not the job
+ * description, so it costs a fraction of a regeneration. The continuation is stitched onto the response, without
+ * whatever part of the tail the AI model repeated. This is done at most ai.continuation.max-attempts times, after
+ * which the elements that are still open are closed by HtmlExtractor.
+ * <p>
+ * The tokens of the continuations are recorded on the job, like those of the generation itself.
+ */
+
+@Service
+public class ContinuationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContinuationService.class);
+
+    static final String CONTINUE_INSTRUCTION = "You are continuing an HTML document that was cut off. "
+            + "Reply with only the HTML that comes right after the end of the given text, starting exactly where it stops. "
+            + "Don't repeat any of the given text, don't explain anything and don't use markdown.";
+
+    // A repeated piece of the tail shorter than this is more likely to be a coincidence than a repetition
+    static final int MIN_OVERLAP = 16;
+
+    private final ChatClient chatClient;
+    private final TokenUsageService tokenUsageService;
+    private final String model;
+    private final int maxAttempts;
+    private final int tailChars;
+    private final Counter completed;
+    private final Counter exhausted;
+
+    public ContinuationService(ChatClient chatClient,
+                               TokenUsageService tokenUsageService,
+                               MeterRegistry meterRegistry,
+                               @Value("${ai.openai.model}") String model,
+                               @Value("${ai.continuation.max-attempts:2}") int maxAttempts,
+                               @Value("${ai.continuation.tail-chars:2000}") int tailChars) {
+        this.chatClient = chatClient;
+        this.tokenUsageService = tokenUsageService;
+        this.model = model;
+        this.maxAttempts = maxAttempts;
+        this.tailChars = tailChars;
+        this.completed = Counter.builder("ai.continuations").tag("result", "completed").register(meterRegistry);
+        this.exhausted = Counter.builder("ai.continuations").tag("result", "exhausted").register(meterRegistry);
+    }
+
+    /**
+     * Completes a response that was cut off.
+     *
+     * @param job      The job the response was generated for.
+     * @param response The content of the truncated Choice.
+     * @return The response with the continuations appended, or the response itself if its document is already complete.
+     */
+
+    public String complete(Job job, String response) {
+        return continueResponse(job, response, new HtmlExtractor().feed(response), addition -> {
+        });
+    }
+
+    /**
+     * Completes a streamed response that was cut off, and streams the continuations on.
+     *
+     * @param job           The job the response was generated for.
+     * @param response      The content of the truncated Choice.
+     * @param htmlExtractor The HtmlExtractor that the response was fed to, which the continuations are fed to as well.
+     * @param onDelta       Receives every continuation, once it is stitched onto the response.
+     */
+
+    public void completeStream(Job job, String response, HtmlExtractor htmlExtractor, Consumer<String> onDelta) {
+        continueResponse(job, response, htmlExtractor, onDelta);
+    }
+
+    /**
+     * @return true if a streamed response needs to be continued: the AI model ran out of tokens, or the stream didn't say
+     * why it ended and the document in it was never closed.
+     */
+
+    public static boolean isTruncated(Choice choice, HtmlExtractor htmlExtractor) {
+        return choice.isTruncated()
+                || choice.finishReason() == null && htmlExtractor.isValid() && !htmlExtractor.isComplete();
+    }
+
+    private String continueResponse(Job job, String response, HtmlExtractor htmlExtractor, Consumer<String> onAddition) {
+        // A document that was closed just before the limit needs no continuation, and a response without one can't be helped
+        if (htmlExtractor.isComplete() || !htmlExtractor.isValid()) return response;
+
+        StringBuilder completedResponse = new StringBuilder(response);
+
+        for (int attempt = 1; attempt <= this.maxAttempts; attempt++) {
+            ChatResponse chatResponse = this.chatClient.generate(createContinuationRequest(completedResponse));
+            this.tokenUsageService.record(job, chatResponse.usage());
+
+            Choice choice = chatResponse.choices().get(0);
+            String addition = stitch(completedResponse, choice.message().content(), this.tailChars);
+
+            completedResponse.append(addition);
+            htmlExtractor.feed(addition);
+            onAddition.accept(addition);
+
+            if (htmlExtractor.isComplete() || !choice.isTruncated()) {
+                LOGGER.debug("Continued the ad of job {} {} time(s)", job.getId(), attempt);
+                this.completed.increment();
+                return completedResponse.toString();
+            }
+        }
+
+        LOGGER.warn("The ad of job {} was still cut off after {} continuation(s)", job.getId(), this.maxAttempts);
+        this.exhausted.increment();
+        return completedResponse.toString();
+    }
+
+    ChatRequest createContinuationRequest(CharSequence response) {
+        int start = Math.max(0, response.length() - this.tailChars);
+
+        // Start the tail at a tag, so the AI model doesn't see half a word or half an attribute first
+        if (start > 0) {
+            for (int i = start; i < response.length() && i < start + 200; i++) {
+                if (response.charAt(i) == '<') {
+                    start = i;
+                    break;
+                }
+            }
+        }
+
+        return new ChatRequest(this.model, List.of(
+                new Message("system", CONTINUE_INSTRUCTION),
+                new Message("user", response.subSequence(start, response.length()).toString())));
+    }
+
+    /**
+     * Returns what to append to the response: the continuation without a markdown fence in front of it, and without
+     * the end of the response if the AI model repeated it.
+     *
+     * @param maxOverlap The length of the tail the AI model was given, which is the most it can have repeated.
+     */
+
+    static String stitch(CharSequence response, String continuation, int maxOverlap) {
+        if (continuation == null) return "";
+
+        String addition = continuation;
+        if (addition.stripLeading().startsWith("```")) {
+            int lineEnd = addition.indexOf('\n');
+            addition = lineEnd == -1 ? "" : addition.substring(lineEnd + 1);
+        }
+
+        for (int overlap = Math.min(maxOverlap, Math.min(response.length(), addition.length())); overlap >= MIN_OVERLAP; overlap--) {
+            if (endsWith(response, addition, overlap)) return addition.substring(overlap);
+        }
+
+        return addition;
+    }
+
+    private static boolean endsWith(CharSequence response, String addition, int length) {
+        int offset = response.length() - length;
+        for (int i = 0; i < length; i++)
+            if (response.charAt(offset + i) != addition.charAt(i)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package se.sprinta.headhunterbackend.generation;
+
+/**
+ * The lifecycle of a GenerationTicket.
+ * QUEUED -> RUNNING -> DONE or FAILED
+ */
+
+public enum GenerationStatus {
+
+    QUEUED,
+
+    RUNNING,
+
+    DONE,
+
+    FAILED
+}
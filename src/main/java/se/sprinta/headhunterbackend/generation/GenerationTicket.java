@@ -0,0 +1,93 @@
+package se.sprinta.headhunterbackend.generation;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * GenerationTicket is an entity that stores a queued request to generate an ad for a job.
+ * The ticket is persisted so that queued work survives a restart of the application.
+ */
+
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "generation_ticket", indexes = @Index(name = "idx_generation_ticket_status", columnList = "status, dateCreated"))
+public class GenerationTicket implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    /**
+     * The id of the Job that the ad is generated for.
+     */
+
+    private Long jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private GenerationStatus status;
+
+    /**
+     * The id of the generated Ad, set when the ticket is DONE.
+     */
+
+    private String adId;
+
+    /**
+     * The reason the generation failed, set when the ticket is FAILED.
+     */
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    private LocalDateTime dateCreated;
+
+    private LocalDateTime dateUpdated;
+
+    public GenerationTicket(Long jobId) {
+        this.jobId = jobId;
+        this.status = GenerationStatus.QUEUED;
+        this.dateCreated = LocalDateTime.now();
+        this.dateUpdated = this.dateCreated;
+    }
+
+    public void markDone(String adId) {
+        this.status = GenerationStatus.DONE;
+        this.adId = adId;
+        this.dateUpdated = LocalDateTime.now();
+    }
+
+    public void markFailed(String errorMessage) {
+        this.status = GenerationStatus.FAILED;
+        this.errorMessage = errorMessage != null && errorMessage.length() > 1000
+                ? errorMessage.substring(0, 1000)
+                : errorMessage;
+        this.dateUpdated = LocalDateTime.now();
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setStatus(GenerationStatus status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationTicket{" +
+                "id='" + id + '\'' +
+                ", jobId=" + jobId +
+                ", status=" + status +
+                ", adId='" + adId + '\'' +
+                ", errorMessage='" + errorMessage + '\'' +
+                ", dateCreated=" + dateCreated +
+                ", dateUpdated=" + dateUpdated +
+                '}';
+    }
+}
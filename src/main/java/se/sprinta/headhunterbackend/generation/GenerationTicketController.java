@@ -0,0 +1,77 @@
+package se.sprinta.headhunterbackend.generation;
+
+import org.springframework.web.bind.annotation.*;
+import se.sprinta.headhunterbackend.generation.dto.BulkGenerationDtoView;
+import se.sprinta.headhunterbackend.generation.dto.GenerationTicketDtoView;
+import se.sprinta.headhunterbackend.system.Result;
+import se.sprinta.headhunterbackend.system.StatusCode;
+
+/**
+ * Backend API endpoints for asynchronous ad generation.
+ */
+
+@RestController
+@RequestMapping("${api.endpoint.base-url-generation}")
+@CrossOrigin(origins = "${CORS_ALLOWED_ORIGIN}"
+        , methods = {
+        RequestMethod.GET,
+        RequestMethod.POST})
+public class GenerationTicketController {
+
+    private final GenerationTicketService generationTicketService;
+    private final BulkGenerationService bulkGenerationService;
+
+    public GenerationTicketController(GenerationTicketService generationTicketService,
+                                      BulkGenerationService bulkGenerationService) {
+        this.generationTicketService = generationTicketService;
+        this.bulkGenerationService = bulkGenerationService;
+    }
+
+    /**
+     * Queues an ad generation and returns right away.
+     *
+     * @param jobId This is the id of the job that the user wants to create an ad for.
+     * @return Result Successful Result object with the id of the ticket to poll.
+     */
+
+    @PostMapping("/enqueue/{jobId}")
+    public Result enqueue(@PathVariable Long jobId) {
+        GenerationTicket ticket = this.generationTicketService.enqueue(jobId);
+        return new Result(true, StatusCode.SUCCESS, "Enqueue Generation Success", ticket.getId());
+    }
+
+    /**
+     * @param ticketId The id returned by enqueue.
+     * @return Result Successful Result object with the status, and the generated ad when it is done.
+     */
+
+    @GetMapping("/getTicket/{ticketId}")
+    public Result getTicket(@PathVariable String ticketId) {
+        GenerationTicketDtoView ticketDtoView = this.generationTicketService.getTicketDto(ticketId);
+        return new Result(true, StatusCode.SUCCESS, "Get Generation Ticket Success", ticketDtoView);
+    }
+
+    /**
+     * Starts generating a new ad for every job of an account and returns right away.
+     *
+     * @param email The email of the account whose jobs should get new ads.
+     * @return Result Successful Result object with the initial progress, including the id to poll.
+     */
+
+    @PostMapping("/bulk/{email}")
+    public Result startBulk(@PathVariable String email) {
+        BulkGeneration bulkGeneration = this.bulkGenerationService.start(email);
+        return new Result(true, StatusCode.SUCCESS, "Start Bulk Generation Success", bulkGeneration.toDto());
+    }
+
+    /**
+     * @param bulkId The id returned by startBulk.
+     * @return Result Successful Result object with the progress of every job.
+     */
+
+    @GetMapping("/getBulk/{bulkId}")
+    public Result getBulk(@PathVariable String bulkId) {
+        BulkGenerationDtoView bulkGenerationDtoView = this.bulkGenerationService.getBulkGenerationDto(bulkId);
+        return new Result(true, StatusCode.SUCCESS, "Get Bulk Generation Success", bulkGenerationDtoView);
+    }
+}
@@ -0,0 +1,51 @@
+package se.sprinta.headhunterbackend.generation;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for GenerationTicket objects
+ */
+
+@Repository
+public interface GenerationTicketRepository extends JpaRepository<GenerationTicket, String> {
+
+    /**
+     * Returns the ids of the oldest tickets with the given status, oldest first.
+     */
+
+    @Query("SELECT t.id FROM GenerationTicket t WHERE t.status = :status ORDER BY t.dateCreated ASC")
+    List<String> findTicketIdsByStatus(GenerationStatus status, Pageable pageable);
+
+    /**
+     * Atomically moves a ticket from one status to another.
+     * Returns 1 if this caller won the ticket, otherwise 0.
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GenerationTicket t SET t.status = :to, t.dateUpdated = :now WHERE t.id = :ticketId AND t.status = :from")
+    int transition(String ticketId, GenerationStatus from, GenerationStatus to, LocalDateTime now);
+
+    /**
+     * Moves the tickets with the given status that haven't been updated since updatedBefore to another status.
+     * Used to put tickets that were RUNNING on an instance that stopped back in the queue.
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GenerationTicket t SET t.status = :to, t.dateUpdated = :now WHERE t.status = :from AND t.dateUpdated < :updatedBefore")
+    int transitionAllUpdatedBefore(GenerationStatus from, GenerationStatus to, LocalDateTime updatedBefore, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM generation_ticket", nativeQuery = true)
+    void deleteGenerationTicketTable();
+}
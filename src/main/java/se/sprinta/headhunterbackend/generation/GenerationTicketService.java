@@ -0,0 +1,159 @@
+package se.sprinta.headhunterbackend.generation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.sprinta.headhunterbackend.ad.Ad;
+import se.sprinta.headhunterbackend.ad.AdService;
+import se.sprinta.headhunterbackend.generation.dto.GenerationTicketDtoView;
+import se.sprinta.headhunterbackend.job.JobRepository;
+import se.sprinta.headhunterbackend.job.JobService;
+import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Business logic for GenerationTicket
+ * <p>
+ * A ticket is saved as QUEUED and dispatched to the GenerationWorkerPool when a slot is free.
+ * The worker runs JobService.generateAd and stores the outcome on the ticket, which the client polls.
+ * <p>
+ * Note that this class is intentionally not @Transactional: every repository call commits on its own,
+ * so a worker thread always sees the ticket that the request thread just saved.
+ */
+
+@Service
+public class GenerationTicketService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerationTicketService.class);
+
+    private final GenerationTicketRepository generationTicketRepository;
+    private final JobRepository jobRepository;
+    private final AdService adService;
+    private final JobService jobService;
+    private final GenerationWorkerPool generationWorkerPool;
+    private final Duration staleAfter;
+
+    public GenerationTicketService(GenerationTicketRepository generationTicketRepository,
+                                   JobRepository jobRepository,
+                                   AdService adService,
+                                   JobService jobService,
+                                   GenerationWorkerPool generationWorkerPool,
+                                   @Value("${generation.worker.stale-after-ms:1800000}") long staleAfterMs) {
+        this.generationTicketRepository = generationTicketRepository;
+        this.jobRepository = jobRepository;
+        this.adService = adService;
+        this.jobService = jobService;
+        this.generationWorkerPool = generationWorkerPool;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+    }
+
+    public GenerationTicket enqueue(Long jobId) {
+        if (!this.jobRepository.existsById(jobId))
+            throw new ObjectNotFoundException("job", jobId);
+
+        GenerationTicket savedTicket = this.generationTicketRepository.save(new GenerationTicket(jobId));
+        dispatch();
+        return savedTicket;
+    }
+
+    public GenerationTicketDtoView getTicketDto(String ticketId) {
+        GenerationTicket ticket = this.generationTicketRepository.findById(ticketId)
+                .orElseThrow(() -> new ObjectNotFoundException("generation ticket", ticketId));
+
+        String htmlCode = null;
+        if (ticket.getStatus() == GenerationStatus.DONE && ticket.getAdId() != null) {
+            // Only the HTML code is read, a DONE ticket may be polled many times
+            try {
+                htmlCode = this.adService.getHtmlCode(ticket.getAdId());
+            } catch (ObjectNotFoundException ex) {
+                // The ad was deleted after it was generated
+            }
+        }
+
+        return new GenerationTicketDtoView(
+                ticket.getId(),
+                ticket.getJobId(),
+                ticket.getStatus(),
+                ticket.getAdId(),
+                htmlCode,
+                ticket.getErrorMessage(),
+                ticket.getDateCreated(),
+                ticket.getDateUpdated());
+    }
+
+    /**
+     * Moves as many QUEUED tickets to RUNNING as there are free worker slots.
+     * Called after every enqueue, after every finished ticket, and periodically as a safety net.
+     */
+
+    @Scheduled(fixedDelayString = "${generation.worker.poll-interval-ms:2000}")
+    public void dispatch() {
+        int freeSlots = this.generationWorkerPool.availableSlots();
+        if (freeSlots == 0) return;
+
+        List<String> queuedTicketIds = this.generationTicketRepository
+                .findTicketIdsByStatus(GenerationStatus.QUEUED, PageRequest.of(0, freeSlots));
+
+        for (String ticketId : queuedTicketIds) {
+            // Claim the ticket first, so that a concurrent dispatch can't run it twice.
+            if (this.generationTicketRepository.transition(ticketId, GenerationStatus.QUEUED, GenerationStatus.RUNNING, LocalDateTime.now()) == 0)
+                continue;
+
+            if (!this.generationWorkerPool.tryExecute(() -> run(ticketId), this::dispatch)) {
+                this.generationTicketRepository.transition(ticketId, GenerationStatus.RUNNING, GenerationStatus.QUEUED, LocalDateTime.now());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tickets that have been RUNNING for longer than generation.worker.stale-after-ms were left behind by an instance
+     * that stopped, so they are queued again. Tickets that are still running on a live instance are younger than that,
+     * so they are left alone.
+     * Called at startup and periodically, since the instance that left a ticket behind may never come back.
+     */
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${generation.worker.recover-interval-ms:60000}", initialDelayString = "${generation.worker.recover-interval-ms:60000}")
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = this.generationTicketRepository.transitionAllUpdatedBefore(
+                GenerationStatus.RUNNING, GenerationStatus.QUEUED, now.minus(this.staleAfter), now);
+        if (requeued > 0)
+            LOGGER.info("Requeued {} interrupted generation ticket(s)", requeued);
+        dispatch();
+    }
+
+    /**
+     * Runs a RUNNING ticket on a worker thread. The ticket is saved as DONE or FAILED whatever happens,
+     * also when generateAd throws an Error, so that it never stays RUNNING.
+     * The next queued ticket is dispatched by GenerationWorkerPool, once this ticket's slot is released.
+     */
+
+    void run(String ticketId) {
+        GenerationTicket ticket = this.generationTicketRepository.findById(ticketId).orElse(null);
+        if (ticket == null) return;
+
+        try {
+            Ad generatedAd = this.jobService.generateAd(ticket.getJobId());
+            ticket.markDone(generatedAd.getId());
+        } catch (Exception ex) {
+            LOGGER.warn("Generation ticket {} failed: {}", ticketId, ex.getMessage());
+            ticket.markFailed(ex.getMessage());
+        } finally {
+            if (ticket.getStatus() != GenerationStatus.DONE && ticket.getStatus() != GenerationStatus.FAILED) {
+                LOGGER.error("Generation ticket {} was interrupted", ticketId);
+                ticket.markFailed("Generation was interrupted");
+            }
+            this.generationTicketRepository.save(ticket);
+        }
+    }
+}
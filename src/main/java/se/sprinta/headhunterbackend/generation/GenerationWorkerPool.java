@@ -0,0 +1,77 @@
+package se.sprinta.headhunterbackend.generation;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of worker threads that run ad generations off the request thread.
+ * A slot must be acquired before work is submitted, so the pool never queues more work than it can run.
+ * Work that doesn't get a slot stays in the generation_ticket table until a slot frees up.
+ */
+
+@Component
+public class GenerationWorkerPool implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+
+    public GenerationWorkerPool(@Value("${generation.worker.pool-size:4}") int poolSize) {
+        if (poolSize < 1) throw new IllegalArgumentException("generation.worker.pool-size must be at least 1");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(poolSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "generation-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.slots = new Semaphore(poolSize);
+    }
+
+    public int availableSlots() {
+        return this.slots.availablePermits();
+    }
+
+    /**
+     * Runs the task if a slot is free, and afterRelease on the same worker thread once the slot has been released,
+     * so that afterRelease can hand the freed slot to the next piece of work.
+     *
+     * @param task         The work to run on a worker thread.
+     * @param afterRelease Runs after the task, whether it completed or not, once its slot is free again.
+     * @return true if the task was accepted, false if all slots are busy.
+     */
+
+    public boolean tryExecute(Runnable task, Runnable afterRelease) {
+        if (!this.slots.tryAcquire()) return false;
+        try {
+            this.executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    this.slots.release();
+                    afterRelease.run();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            this.slots.release();
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(30, TimeUnit.SECONDS))
+            this.executor.shutdownNow();
+    }
+}
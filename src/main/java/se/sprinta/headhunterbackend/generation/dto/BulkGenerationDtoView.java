@@ -0,0 +1,28 @@
+package se.sprinta.headhunterbackend.generation.dto;
+
+import se.sprinta.headhunterbackend.generation.GenerationStatus;
+
+import java.util.List;
+
+/**
+ * Output format for a bulk generation.
+ *
+ * @param id        The id to poll the progress with.
+ * @param email     The account whose jobs are generated.
+ * @param status    RUNNING until every job is either DONE or FAILED, then DONE.
+ * @param total     The number of jobs.
+ * @param completed The number of jobs with a persisted ad.
+ * @param failed    The number of jobs whose generation failed.
+ * @param jobs      The progress of each job.
+ */
+
+public record BulkGenerationDtoView(
+        String id,
+        String email,
+        GenerationStatus status,
+        int total,
+        int completed,
+        int failed,
+        List<BulkGenerationJobDtoView> jobs
+) {
+}
@@ -0,0 +1,22 @@
+package se.sprinta.headhunterbackend.generation.dto;
+
+import se.sprinta.headhunterbackend.generation.GenerationStatus;
+
+/**
+ * Output format for the progress of one job in a bulk generation.
+ *
+ * @param jobId        The job that an ad is generated for.
+ * @param title        The title of the job.
+ * @param status       QUEUED, RUNNING, DONE or FAILED.
+ * @param adId         The id of the generated ad, once DONE.
+ * @param errorMessage Why the generation failed, if FAILED.
+ */
+
+public record BulkGenerationJobDtoView(
+        Long jobId,
+        String title,
+        GenerationStatus status,
+        String adId,
+        String errorMessage
+) {
+}
@@ -0,0 +1,35 @@
+package se.sprinta.headhunterbackend.generation.dto;
+
+import se.sprinta.headhunterbackend.generation.GenerationStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Output GenerationTicket data format.
+ *
+ * @param id           The ticket id that the client polls with.
+ * @param jobId        The id of the Job that the ad is generated for.
+ * @param status       QUEUED, RUNNING, DONE or FAILED.
+ * @param adId         The id of the generated Ad, when status is DONE.
+ * @param htmlCode     The generated Ad content in HTML format, when status is DONE.
+ * @param errorMessage The reason the generation failed, when status is FAILED.
+ */
+
+public record GenerationTicketDtoView(
+        String id,
+
+        Long jobId,
+
+        GenerationStatus status,
+
+        String adId,
+
+        String htmlCode,
+
+        String errorMessage,
+
+        LocalDateTime dateCreated,
+
+        LocalDateTime dateUpdated
+) {
+}
@@ -0,0 +1,105 @@
+package se.sprinta.headhunterbackend.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.sprinta.headhunterbackend.ad.Ad;
+import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
+import se.sprinta.headhunterbackend.system.Result;
+import se.sprinta.headhunterbackend.system.StatusCode;
+import se.sprinta.headhunterbackend.system.exception.AiServiceUnavailableException;
+import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+import se.sprinta.headhunterbackend.system.exception.PromptTooLargeException;
+import se.sprinta.headhunterbackend.system.exception.TokenQuotaExceededException;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams ad generation to the browser as server-sent events.
+ * <p>
+ * Events:
+ * "delta" - a piece of generated text, sent as soon as the AI model produces it.
+ * "done"  - the persisted ad (AdDtoView) once the whole completion has arrived and been saved.
+ * "error" - a Result describing why the generation failed.
+ * <p>
+ * Each stream runs on its own virtual thread, since it spends nearly all its time waiting on the AI model.
+ */
+
+@Service
+public class AdStreamService implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdStreamService.class);
+
+    private final JobService jobService;
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${ai.stream.timeout-ms:120000}")
+    private long timeoutMs;
+
+    public AdStreamService(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    public SseEmitter stream(Long jobId) {
+        // Fail before the stream is opened, so a missing job is answered like any other request.
+        this.jobService.findById(jobId);
+
+        SseEmitter emitter = new SseEmitter(this.timeoutMs);
+
+        this.streamExecutor.execute(() -> {
+            try {
+                Ad savedAd = this.jobService.generateAdStream(jobId, delta -> send(emitter, "delta", delta));
+                send(emitter, "done", new AdDtoView(savedAd.getId(), savedAd.getDateCreated(), savedAd.getHtmlCode()));
+                emitter.complete();
+            } catch (StreamClosedException ex) {
+                LOGGER.debug("Client closed the ad stream for job {}", jobId);
+            } catch (ObjectNotFoundException ex) {
+                sendError(emitter, new Result(false, StatusCode.NOT_FOUND, ex.getMessage()));
+            } catch (PromptTooLargeException ex) {
+                sendError(emitter, new Result(false, StatusCode.INVALID_ARGUMENT, ex.getMessage()));
+            } catch (AiServiceUnavailableException ex) {
+                sendError(emitter, new Result(false, StatusCode.SERVICE_UNAVAILABLE, ex.getMessage()));
+            } catch (TokenQuotaExceededException ex) {
+                sendError(emitter, new Result(false, StatusCode.TOO_MANY_REQUESTS, ex.getMessage()));
+            } catch (Exception ex) {
+                sendError(emitter, new Result(false, StatusCode.INTERNAL_SERVER_ERROR, "An internal server error occurred", ex.getMessage()));
+            }
+        });
+
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+        } catch (IOException | IllegalStateException ex) {
+            // The browser went away; stop generating for it.
+            throw new StreamClosedException(ex);
+        }
+    }
+
+    private void sendError(SseEmitter emitter, Result result) {
+        try {
+            send(emitter, "error", result);
+            emitter.complete();
+        } catch (StreamClosedException ignored) {
+            // Nobody is listening anymore.
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.streamExecutor.shutdownNow();
+    }
+
+    private static class StreamClosedException extends RuntimeException {
+        StreamClosedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
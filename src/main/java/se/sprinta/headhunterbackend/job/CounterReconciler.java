@@ -0,0 +1,100 @@
+package se.sprinta.headhunterbackend.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
+import se.sprinta.headhunterbackend.account.AccountRepository;
+
+import java.util.List;
+
+/**
+ * Repairs the stored counters Job.numberOfAds and Account.number_of_jobs, every counters.reconcile-interval-ms, in the
+ * background.
+ * <p>
+ * The counters are changed with single SQL statements in the same transaction as the ad or job they count, so they
+ * should never be off. They can still drift when rows are deleted along with their parent, or changed by hand in the
+ * database. Every pass goes through all jobs and accounts, counters.reconcile-batch-size at a time, each batch in its
+ * own short transaction, and only writes the rows that are off. The number of repaired rows is logged and counted
+ * by the counters.reconciled metric. The cached credentials of the accounts in a batch with a repaired row are
+ * invalidated, since they include number_of_jobs.
+ */
+
+@Component
+public class CounterReconciler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CounterReconciler.class);
+
+    private final JobRepository jobRepository;
+    private final AccountRepository accountRepository;
+    private final AccountPrincipalCache accountPrincipalCache;
+    private final int batchSize;
+    private final Counter reconciledJobs;
+    private final Counter reconciledAccounts;
+
+    public CounterReconciler(JobRepository jobRepository,
+                             AccountRepository accountRepository,
+                             AccountPrincipalCache accountPrincipalCache,
+                             MeterRegistry meterRegistry,
+                             @Value("${counters.reconcile-batch-size:500}") int batchSize) {
+        this.jobRepository = jobRepository;
+        this.accountRepository = accountRepository;
+        this.accountPrincipalCache = accountPrincipalCache;
+        this.batchSize = batchSize;
+        this.reconciledJobs = Counter.builder("counters.reconciled").tag("counter", "job.number_of_ads").register(meterRegistry);
+        this.reconciledAccounts = Counter.builder("counters.reconciled").tag("counter", "account.number_of_jobs").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${counters.reconcile-interval-ms:3600000}", fixedDelayString = "${counters.reconcile-interval-ms:3600000}")
+    public synchronized void reconcile() {
+        int jobs = reconcileNumberOfAds();
+        int accounts = reconcileNumberOfJobs();
+
+        if (jobs > 0 || accounts > 0)
+            LOGGER.info("Repaired the number of ads of {} job(s) and the number of jobs of {} account(s)", jobs, accounts);
+    }
+
+    /**
+     * @return The number of jobs whose number of ads was off.
+     */
+
+    int reconcileNumberOfAds() {
+        int repaired = 0;
+        List<Long> jobIds = this.jobRepository.findIdsAfter(0L, PageRequest.ofSize(this.batchSize));
+
+        while (!jobIds.isEmpty()) {
+            repaired += this.jobRepository.reconcileNumberOfAds(jobIds);
+            if (jobIds.size() < this.batchSize) break;
+            jobIds = this.jobRepository.findIdsAfter(jobIds.getLast(), PageRequest.ofSize(this.batchSize));
+        }
+
+        this.reconciledJobs.increment(repaired);
+        return repaired;
+    }
+
+    /**
+     * @return The number of accounts whose number of jobs was off.
+     */
+
+    int reconcileNumberOfJobs() {
+        int repaired = 0;
+        List<String> emails = this.accountRepository.findEmailsAfter("", PageRequest.ofSize(this.batchSize));
+
+        while (!emails.isEmpty()) {
+            int repairedInBatch = this.accountRepository.reconcileNumberOfJobs(emails);
+            // Which of the accounts were off isn't known, and the batch has been committed by now
+            if (repairedInBatch > 0) emails.forEach(this.accountPrincipalCache::invalidate);
+            repaired += repairedInBatch;
+            if (emails.size() < this.batchSize) break;
+            emails = this.accountRepository.findEmailsAfter(emails.getLast(), PageRequest.ofSize(this.batchSize));
+        }
+
+        this.reconciledAccounts.increment(repaired);
+        return repaired;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
 import se.sprinta.headhunterbackend.account.Account;
 import se.sprinta.headhunterbackend.ad.Ad;
 
@@ -69,8 +70,11 @@ public class Job implements Serializable {
 
     /**
      * The number of ads that a Job object holds.
+     * It is only written when the job is first saved, after that it is kept up to date with
+     * JobRepository.incrementNumberOfAds and decrementNumberOfAds, so that adding an ad never needs the other ads.
      */
 
+    @Column(updatable = false)
     private int numberOfAds;
 
     /**
@@ -100,6 +104,8 @@ public class Job implements Serializable {
 
     /**
      * When an Ad object is created, it has to be connected to a Job object.
+     * The ads of a persisted job are only added to if they are already loaded, and its number of ads in the database
+     * is changed by the caller, see JobRepository.incrementNumberOfAds.
      *
      * @param newAd Ad is the object that holds the AI-generated data.
      */
@@ -108,13 +114,14 @@ public class Job implements Serializable {
     public void addAd(Ad newAd) {
         if (newAd == null) throw new NullPointerException("Can't add null Job");
         if (newAd.getJob() != null) throw new IllegalStateException("Ad already has a job");
-        this.getAds().add(newAd);
-        this.setNumberOfAds();
+        if (Hibernate.isInitialized(this.ads)) this.ads.add(newAd);
+        this.numberOfAds++;
         newAd.setJob(this);
     }
 
     /**
      * When an Ad is deleted, it has to be disassociated with its Job object.
+     * Like addAd, it doesn't load the ads, see JobRepository.decrementNumberOfAds.
      *
      * @param oldAd is the object to be removed that holds AI-generated data.
      */
@@ -122,8 +129,8 @@ public class Job implements Serializable {
     public void removeAd(Ad oldAd) {
         if (oldAd == null) throw new NullPointerException("Can't remove null Job");
         if (oldAd.getJob() == null) throw new IllegalStateException("This ad doesn't belong to this Job");
-        this.getAds().remove(oldAd);
-        this.setNumberOfAds();
+        if (Hibernate.isInitialized(this.ads)) this.ads.remove(oldAd);
+        if (this.numberOfAds > 0) this.numberOfAds--;
         oldAd.setJob(null);
     }
 
@@ -151,15 +158,6 @@ public class Job implements Serializable {
         this.ads = ads;
     }
 
-    /**
-     * The number of ads a Job object holds is dynamically calculated
-     * during the conversion from a Job object to a JobDtoView object
-     */
-
-    public void setNumberOfAds() {
-        this.numberOfAds = this.ads.size();
-    }
-
     public void setRecruiterName(String recruiterName) {
         this.recruiterName = recruiterName;
     }
@@ -1,12 +1,19 @@
 package se.sprinta.headhunterbackend.job;
 
 import java.util.List;
+
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.sprinta.headhunterbackend.ad.Ad;
+import se.sprinta.headhunterbackend.ad.converter.AdToAdDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
 import se.sprinta.headhunterbackend.job.converter.JobDtoFormAddToJobConverter;
 import se.sprinta.headhunterbackend.job.converter.JobToJobDtoViewConverter;
 import se.sprinta.headhunterbackend.job.dto.*;
 import se.sprinta.headhunterbackend.system.Result;
 import se.sprinta.headhunterbackend.system.StatusCode;
+import se.sprinta.headhunterbackend.system.exception.AiServiceUnavailableException;
 import jakarta.validation.Valid;
 
 /**
@@ -26,12 +33,17 @@ public class JobController {
   private final JobService jobService;
   private final JobToJobDtoViewConverter jobToJobDtoViewConverter;
   private final JobDtoFormAddToJobConverter jobDtoFormAddToJobConverter;
+  private final AdStreamService adStreamService;
+  private final AdToAdDtoView adToAdDtoView;
 
   public JobController(JobService jobService, JobToJobDtoViewConverter jobToJobDtoViewConverter,
-      JobDtoFormAddToJobConverter jobDtoFormAddToJobConverter) {
+      JobDtoFormAddToJobConverter jobDtoFormAddToJobConverter, AdStreamService adStreamService,
+      AdToAdDtoView adToAdDtoView) {
     this.jobService = jobService;
     this.jobToJobDtoViewConverter = jobToJobDtoViewConverter;
     this.jobDtoFormAddToJobConverter = jobDtoFormAddToJobConverter;
+    this.adStreamService = adStreamService;
+    this.adToAdDtoView = adToAdDtoView;
   }
 
   /**
@@ -110,12 +122,57 @@ public class JobController {
    *
    * @param jobId This is the id of the job that the user wants to create an ad
    *              for.
+   * @param cache    If false, a previously generated answer for the same job
+   *                 content is not reused and a new one is requested.
+   * @param fallback If true, and the AI API is unavailable, the most recently
+   *                 stored ad for the job is returned instead of an error.
    * @return Result Successful Result object.
    */
 
   @GetMapping("/generate/{jobId}")
-  public Result generateAd(@PathVariable Long jobId) {
-    String generatedJobAd = this.jobService.generate(jobId);
-    return new Result(true, StatusCode.SUCCESS, "Generate Ad Success", generatedJobAd);
+  public Result generateAd(@PathVariable Long jobId, @RequestParam(defaultValue = "true") boolean cache,
+      @RequestParam(defaultValue = "false") boolean fallback) {
+    try {
+      String generatedJobAd = this.jobService.generate(jobId, cache);
+      return new Result(true, StatusCode.SUCCESS, "Generate Ad Success", generatedJobAd);
+    } catch (AiServiceUnavailableException ex) {
+      if (!fallback) throw ex;
+      Ad latestAd = this.jobService.findLatestAd(jobId).orElseThrow(() -> ex);
+      return new Result(true, StatusCode.SUCCESS, "Generate Ad Fallback Success", latestAd.getHtmlCode());
+    }
+  }
+
+  /**
+   * Generates several alternative ads for a job in a single request to the AI
+   * API. All valid alternatives are saved and returned.
+   *
+   * @param jobId            This is the id of the job that the user wants to
+   *                         create ads for.
+   * @param numberOfVariants How many alternatives to generate, between 1 and
+   *                         JobService.MAX_VARIANTS.
+   * @return Result Successful Result object.
+   */
+
+  @GetMapping("/generateVariants/{jobId}/{numberOfVariants}")
+  public Result generateVariants(@PathVariable Long jobId, @PathVariable int numberOfVariants) {
+    List<AdDtoView> generatedAds = this.jobService.generateVariants(jobId, numberOfVariants)
+        .stream()
+        .map(this.adToAdDtoView::convert)
+        .toList();
+    return new Result(true, StatusCode.SUCCESS, "Generate Variants Success", generatedAds);
+  }
+
+  /**
+   * Same as generateAd, but the generated text is streamed to the browser as
+   * server-sent events while the AI model is writing it (see AdStreamService).
+   *
+   * @param jobId This is the id of the job that the user wants to create an ad
+   *              for.
+   * @return SseEmitter The event stream.
+   */
+
+  @GetMapping(value = "/generateStream/{jobId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter generateAdStream(@PathVariable Long jobId) {
+    return this.adStreamService.stream(jobId);
   }
 }
@@ -1,6 +1,7 @@
 package se.sprinta.headhunterbackend.job;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import se.sprinta.headhunterbackend.job.dto.JobCardDtoView;
 import se.sprinta.headhunterbackend.job.dto.JobDtoView;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +39,50 @@ public interface JobRepository extends JpaRepository<Job, Long> {
   @Query("SELECT new se.sprinta.headhunterbackend.job.dto.JobCardDtoView(j.id, j.title, j.applicationDeadline) FROM Job j WHERE j.account.email =:email")
   List<JobCardDtoView> getJobCardDtosByEmail(String email);
 
+  /**
+   * Adds count to the number of ads of a job in the database, without loading the job or its ads, so that concurrent
+   * additions never overwrite each other.
+   *
+   * @return 1 if the job exists, otherwise 0.
+   */
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE Job j SET j.numberOfAds = j.numberOfAds + :count WHERE j.id = :jobId")
+  int incrementNumberOfAds(Long jobId, int count);
+
+  /**
+   * Adds one to the number of ads of every given job.
+   */
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE Job j SET j.numberOfAds = j.numberOfAds + 1 WHERE j.id IN :jobIds")
+  int incrementNumberOfAds(Collection<Long> jobIds);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE Job j SET j.numberOfAds = j.numberOfAds - :count WHERE j.id = :jobId AND j.numberOfAds >= :count")
+  int decrementNumberOfAds(Long jobId, int count);
+
+  @Query("SELECT j.numberOfAds FROM Job j WHERE j.id = :jobId")
+  Optional<Integer> getNumberOfAdsById(Long jobId);
+
+  @Query("SELECT j.id FROM Job j WHERE j.id > :afterId ORDER BY j.id")
+  List<Long> findIdsAfter(Long afterId, Pageable pageable);
+
+  /**
+   * Sets the number of ads of the given jobs to the number of ads they have, where it is off.
+   *
+   * @return The number of jobs that were repaired.
+   */
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE Job j SET j.numberOfAds = (SELECT CAST(COUNT(ad) AS Integer) FROM Ad ad WHERE ad.job = j) " +
+      "WHERE j.id IN :jobIds AND j.numberOfAds <> (SELECT COUNT(ad) FROM Ad ad WHERE ad.job = j)")
+  int reconcileNumberOfAds(Collection<Long> jobIds);
+
   @Modifying
   @Transactional
   @Query(value = "DELETE FROM job", nativeQuery = true)
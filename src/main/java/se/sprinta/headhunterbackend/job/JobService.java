@@ -4,20 +4,35 @@ import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
 import se.sprinta.headhunterbackend.account.AccountRepository;
 import se.sprinta.headhunterbackend.ad.Ad;
 import se.sprinta.headhunterbackend.ad.AdRepository;
+import se.sprinta.headhunterbackend.ad.AdService;
 import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.ChatRequestDigest;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
 import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.client.chat.prompt.PromptPreparer;
+import se.sprinta.headhunterbackend.generation.ContinuationService;
 import se.sprinta.headhunterbackend.job.dto.JobCardDtoView;
 import se.sprinta.headhunterbackend.job.dto.JobDtoFormUpdate;
 import se.sprinta.headhunterbackend.job.dto.JobDtoView;
+import se.sprinta.headhunterbackend.system.exception.InvalidVariantCountException;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+import se.sprinta.headhunterbackend.system.exception.PromptTooLargeException;
+import se.sprinta.headhunterbackend.usage.TokenUsageService;
+import se.sprinta.headhunterbackend.utils.HtmlExtractor;
 import se.sprinta.headhunterbackend.utils.HtmlUtilities;
+import se.sprinta.headhunterbackend.utils.SingleFlight;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Business logic for Job
@@ -26,25 +41,54 @@ import java.util.List;
 @Service
 @Transactional
 public class JobService {
+
+    /**
+     * Upper limit for generateVariants, every variant costs as many completion tokens as a whole ad.
+     */
+    public static final int MAX_VARIANTS = 5;
+
     private final JobRepository jobRepository;
     private final AdRepository adRepository;
+    private final AdService adService;
     private final AccountRepository accountRepository;
     private final ChatClient chatClient;
     private final HtmlUtilities htmlUtilities;
+    private final TokenUsageService tokenUsageService;
+    private final PromptPreparer promptPreparer;
+    private final ContinuationService continuationService;
+    private final AccountPrincipalCache accountPrincipalCache;
+
+    /*
+      Concurrent generate calls for the same job and the same prompt share one AI call and one persisted Ad,
+      e.g. when a user double-clicks or has the job open in two tabs.
+      The single flight runs outside of any transaction and the Ad is saved by AdService in a transaction of its own,
+      so the callers that share a call only get the Ad once it has been committed.
+     */
+    private final SingleFlight<String, Ad> generateCalls = new SingleFlight<>();
 
     @Value("${ai.openai.model}")
     private String model;
 
     public JobService(JobRepository jobRepository,
                       AdRepository adRepository,
+                      AdService adService,
                       AccountRepository accountRepository,
                       ChatClient chatClient,
-                      HtmlUtilities htmlUtilities) {
+                      HtmlUtilities htmlUtilities,
+                      TokenUsageService tokenUsageService,
+                      PromptPreparer promptPreparer,
+                      ContinuationService continuationService,
+                      AccountPrincipalCache accountPrincipalCache) {
         this.jobRepository = jobRepository;
         this.adRepository = adRepository;
+        this.adService = adService;
         this.accountRepository = accountRepository;
         this.chatClient = chatClient;
         this.htmlUtilities = htmlUtilities;
+        this.tokenUsageService = tokenUsageService;
+        this.promptPreparer = promptPreparer;
+        this.continuationService = continuationService;
+        this.accountPrincipalCache = accountPrincipalCache;
     }
 
     public List<Job> findAll() {
@@ -84,8 +128,10 @@ public class JobService {
                 .orElseThrow(() -> new ObjectNotFoundException("account", email));
 
         foundAccount.addJob(newJob);
+        this.accountRepository.incrementNumberOfJobs(email, 1);
+        // The number of jobs is part of what a login returns
+        this.accountPrincipalCache.invalidate(email);
 
-        // Dirty check on foundUser, so is automatically persisted
         return this.jobRepository.save(newJob);
     }
 
@@ -119,35 +165,205 @@ public class JobService {
         foundAccount.removeJob(foundJob);
 
         this.jobRepository.delete(foundJob);
+        this.accountRepository.decrementNumberOfJobs(email, 1);
+        this.accountPrincipalCache.invalidate(email);
     }
 
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public String generate(Long id) {
+        return generate(id, true);
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public String generate(Long id, boolean useCache) {
+        return generateAd(id, useCache).getHtmlCode();
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Ad generateAd(Long id) {
+        return generateAd(id, true);
+    }
+
+    /**
+     * Generates an ad for a job and persists it.
+     * If the same job is already being generated with the same prompt and the same useCache, the running call's Ad is
+     * returned instead. A call that bypasses the cache never joins a call that may be answered from it.
+     * <p>
+     * Not transactional, so no database connection is held while waiting on the AI model. The Ad is committed before
+     * it is returned, also to the calls that joined the running one.
+     *
+     * @param id       The id of the job that the ad is generated for.
+     * @param useCache If false, a cached completion for the same job content is not reused.
+     * @return The persisted Ad.
+     */
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Ad generateAd(Long id, boolean useCache) {
+
+        Job foundJob = this.jobRepository.findById(id)
+                .orElseThrow(() -> new ObjectNotFoundException("job", id));
+
+        ChatRequest chatRequest = createChatRequest(foundJob);
+        ChatRequest sentChatRequest = useCache ? chatRequest : chatRequest.withoutCache();
+
+        return this.generateCalls.execute(id + ":" + useCache + ":" + ChatRequestDigest.of(chatRequest), () -> {
+            this.tokenUsageService.checkQuota(foundJob);
+
+            ChatResponse chatResponse = this.chatClient.generate(sentChatRequest); // Tell chatClient to generate a job ad based on
+            // the given chatRequest
+
+            this.tokenUsageService.record(foundJob, chatResponse.usage());
+
+            return saveGeneratedAd(foundJob, chatResponse);
+        });
+    }
+
+    /**
+     * Returns the most recently stored ad for a job, used as a fallback when a new one can't be generated.
+     *
+     * @param id The id of the job.
+     * @return The latest Ad, or empty if the job has no ads yet.
+     */
+
+    public Optional<Ad> findLatestAd(Long id) {
+        return this.adRepository.findFirstByJobIdOrderByDateCreatedDescIdDesc(id);
+    }
+
+    /**
+     * Generates several alternative ads for a job with a single AI call, by asking the AI model for numberOfVariants
+     * choices. Every choice that contains valid HTML code is persisted as its own Ad, in one batched insert.
+     *
+     * @param id               The id of the job that the ads are generated for.
+     * @param numberOfVariants How many alternatives to ask for, between 1 and MAX_VARIANTS.
+     * @return The persisted Ads, one per valid choice.
+     */
+
+    public List<Ad> generateVariants(Long id, int numberOfVariants) {
+        if (numberOfVariants < 1 || numberOfVariants > MAX_VARIANTS)
+            throw new InvalidVariantCountException(numberOfVariants, MAX_VARIANTS);
+
+        Job foundJob = this.jobRepository.findById(id)
+                .orElseThrow(() -> new ObjectNotFoundException("job", id));
+
+        this.tokenUsageService.checkQuota(foundJob);
+
+        ChatResponse chatResponse = this.chatClient.generate(createChatRequest(foundJob).withChoices(numberOfVariants));
+
+        this.tokenUsageService.record(foundJob, chatResponse.usage());
+
+        List<Ad> newHtmlAds = new ArrayList<>(chatResponse.choices().size());
+        IllegalArgumentException firstInvalidChoice = null;
+
+        for (Choice choice : chatResponse.choices()) {
+            try {
+                newHtmlAds.add(new Ad(this.htmlUtilities.makeHtmlResponseSubstring(completeContent(foundJob, choice))));
+            } catch (IllegalArgumentException ex) {
+                if (firstInvalidChoice == null) firstInvalidChoice = ex; // Skip the invalid choice, keep the others
+            }
+        }
+
+        if (newHtmlAds.isEmpty())
+            throw firstInvalidChoice != null ? firstInvalidChoice : new IllegalArgumentException("AI response content cannot be null");
+
+        newHtmlAds.forEach(foundJob::addAd);
+        this.jobRepository.incrementNumberOfAds(foundJob.getId(), newHtmlAds.size());
+
+        return this.adRepository.saveAll(newHtmlAds);
+    }
+
+    /**
+     * Generates an ad for a job the same way as generateAd, but hands the generated text to onDelta piece by piece
+     * while the AI model is still writing it.
+     * <p>
+     * Not transactional, so no database connection is held while the response is streamed. The Ad is persisted in a
+     * short transaction of its own once the stream has ended.
+     *
+     * @param id      The id of the job that the ad is generated for.
+     * @param onDelta Receives the generated text as it arrives.
+     * @return The persisted Ad.
+     */
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Ad generateAdStream(Long id, Consumer<String> onDelta) {
 
         Job foundJob = this.jobRepository.findById(id)
                 .orElseThrow(() -> new ObjectNotFoundException("job", id));
 
+        this.tokenUsageService.checkQuota(foundJob);
+
+        // The HTML code is extracted while it is streamed, instead of scanning the whole response again afterwards
+        HtmlExtractor htmlExtractor = this.htmlUtilities.newExtractor();
+
+        ChatResponse chatResponse = this.chatClient.generateStream(createChatRequest(foundJob), delta -> {
+            htmlExtractor.feed(delta);
+            onDelta.accept(delta);
+        });
+
+        this.tokenUsageService.record(foundJob, chatResponse.usage());
+
+        Choice choice = chatResponse.choices().get(0);
+        if (ContinuationService.isTruncated(choice, htmlExtractor))
+            this.continuationService.completeStream(foundJob, choice.message().content(), htmlExtractor, onDelta);
+
+        return this.adService.addGeneratedAd(foundJob, htmlExtractor.finish());
+    }
+
+    /**
+     * Builds the prompt for a job: the instruction as system message and the description as user message,
+     * both compacted by PromptPreparer.
+     *
+     * @param job The job to build the prompt for.
+     * @return The ChatRequest to send to the ChatClient.
+     * @throws PromptTooLargeException if the job is too large to send to the AI model.
+     */
+
+    public ChatRequest createChatRequest(Job job) {
         // Prepare the message for summarizing
-        List<Message> messages = List.of(
-                new Message("system", foundJob.getInstruction()),
-                new Message("user", foundJob.getDescription()));
+        List<Message> messages = this.promptPreparer.prepare(job.getInstruction(), job.getDescription());
 
-        ChatRequest chatRequest = new ChatRequest(this.model, messages);
+        return new ChatRequest(this.model, messages);
+    }
 
-        ChatResponse chatResponse = this.chatClient.generate(chatRequest); // Tell chatClient to generate a job ad based on
-        // the given chatRequest
+    /**
+     * Persists one already generated ad per job, in a single batched insert and a single update of their numbers of ads.
+     *
+     * @param htmlCodeByJobId The HTML code to save as a new Ad, per job id.
+     * @return The persisted Ads.
+     */
+
+    public List<Ad> saveGeneratedAds(Map<Long, String> htmlCodeByJobId) {
+        List<Ad> newHtmlAds = new ArrayList<>(htmlCodeByJobId.size());
+        List<Long> jobIds = new ArrayList<>(htmlCodeByJobId.size());
+
+        for (Job job : this.jobRepository.findAllById(htmlCodeByJobId.keySet())) {
+            Ad newHtmlAd = new Ad(htmlCodeByJobId.get(job.getId()));
+            job.addAd(newHtmlAd);
+            newHtmlAds.add(newHtmlAd);
+            jobIds.add(job.getId());
+        }
+
+        if (!jobIds.isEmpty()) this.jobRepository.incrementNumberOfAds(jobIds);
+        return this.adRepository.saveAll(newHtmlAds);
+    }
 
-        String response = chatResponse.choices().get(0).message().content();
+    private Ad saveGeneratedAd(Job job, ChatResponse chatResponse) {
+        String response = completeContent(job, chatResponse.choices().get(0));
 
         // To trim the response, response is being passed to makeResponseSubstring and a
         // trimmed string is returned
 
         String substringResponse = this.htmlUtilities.makeHtmlResponseSubstring(response);
 
-        Ad newHtmlAd = new Ad(substringResponse);
-        foundJob.addAd(newHtmlAd);
-        newHtmlAd.setJob(foundJob);
+        return this.adService.addGeneratedAd(job, substringResponse);
+    }
+
+    /**
+     * Returns the content of a choice, continued by ContinuationService if the AI model was cut off by the token limit.
+     */
+
+    private String completeContent(Job job, Choice choice) {
+        if (!choice.isTruncated()) return choice.message().content();
 
-        this.adRepository.save(newHtmlAd);
-        return substringResponse;
+        return this.continuationService.complete(job, choice.message().content());
     }
 }
@@ -2,9 +2,7 @@ package se.sprinta.headhunterbackend.security;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
-import se.sprinta.headhunterbackend.account.Account;
 import se.sprinta.headhunterbackend.account.MyAccountPrincipal;
-import se.sprinta.headhunterbackend.account.converter.AccountToAccountDtoViewConverter;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 
 import java.util.HashMap;
@@ -14,25 +12,21 @@ import java.util.Map;
 public class AuthService {
 
     private final JwtProvider jwtProvider;
-    private final AccountToAccountDtoViewConverter accountToAccountDtoViewConverter;
 
-    public AuthService(JwtProvider jwtProvider, AccountToAccountDtoViewConverter accountToAccountDtoViewConverter) {
+    public AuthService(JwtProvider jwtProvider) {
         this.jwtProvider = jwtProvider;
-        this.accountToAccountDtoViewConverter = accountToAccountDtoViewConverter;
     }
 
     /**
      * We retrieve the Account info by casting the authentication.getPrincipal() into a MyAccountPrincipal object.
-     * Then, we can put that Account information into a Account object.
      * <p>
-     * The User object now holds the password, so it must be transformed into a dto.
+     * The principal holds the password, so it must be transformed into a dto.
      */
 
     public Map<String, Object> createLoginInfo(Authentication authentication) {
         // Create account info.
         MyAccountPrincipal principal = (MyAccountPrincipal) authentication.getPrincipal();
-        Account account = principal.getUser();
-        AccountDtoView accountDtoView = this.accountToAccountDtoViewConverter.convert(account);
+        AccountDtoView accountDtoView = principal.toAccountDtoView();
 
         // Create a JWT.
         String token = this.jwtProvider.createToken(authentication);
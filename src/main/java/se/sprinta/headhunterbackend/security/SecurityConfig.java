@@ -49,6 +49,8 @@ public class SecurityConfig {
     private String baseUrlAccountInfo;
     @Value("${api.endpoint.base-url-verification}")
     private String baseUrlVerification;
+    @Value("${api.endpoint.base-url-generation}")
+    private String baseUrlGeneration;
 
     private final AuthenticationEntryPoint customBasicAuthenticationEntryPoint;
     private final CustomBearerTokenAuthenticationEntryPoint customBearerTokenAuthenticationEntryPoint;
@@ -120,6 +122,8 @@ public class SecurityConfig {
                                 .requestMatchers(HttpMethod.PUT, this.baseUrlJob + "/update/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.DELETE, this.baseUrlJob + "/delete/{email}/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.GET, this.baseUrlJob + "/generate/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.GET, this.baseUrlJob + "/generateStream/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.GET, this.baseUrlJob + "/generateVariants/**").hasAuthority("ROLE_user")
 
                                 /*
                                   Ad requests
@@ -129,11 +133,28 @@ public class SecurityConfig {
                                 .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/findById/**").hasAuthority("ROLE_admin")
                                 .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/getAdsByJobId/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/getAdDtosByJobId/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/getAdSummariesByJobId/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/getHtmlCode/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/getNumberOfAdsByJobId/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.GET, this.baseUrlAd + "/getAccountDtoByAdId/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.POST, this.baseUrlAd + "/addAd/**").hasAuthority("ROLE_user")
                                 .requestMatchers(HttpMethod.DELETE, this.baseUrlAd + "/delete/**").hasAuthority("ROLE_user")
 
+                                /*
+                                  Generation requests
+                                 */
+
+                                .requestMatchers(HttpMethod.POST, this.baseUrlGeneration + "/enqueue/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.GET, this.baseUrlGeneration + "/getTicket/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.POST, this.baseUrlGeneration + "/bulk/**").hasAuthority("ROLE_user")
+                                .requestMatchers(HttpMethod.GET, this.baseUrlGeneration + "/getBulk/**").hasAuthority("ROLE_user")
+
+                                /*
+                                  Actuator requests
+                                 */
+
+                                .requestMatchers(HttpMethod.GET, "/actuator/**").hasAuthority("ROLE_admin")
+
 //                        .requestMatchers(AntPathRequestMatcher.antMatcher(this.baseUrlAccount + "/**")).permitAll()
 //                        .requestMatchers(AntPathRequestMatcher.antMatcher(this.baseUrlJob + "/**")).permitAll()
 //                        .requestMatchers(AntPathRequestMatcher.antMatcher(this.baseUrlAd + "/**")).permitAll()
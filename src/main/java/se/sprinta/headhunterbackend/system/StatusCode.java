@@ -17,5 +17,9 @@ public class StatusCode {
 
     public static final int CONFLICT = 409; // Conflict
 
+    public static final int TOO_MANY_REQUESTS = 429; // A quota is used up, e.g. the daily AI token quota
+
     public static final int INTERNAL_SERVER_ERROR = 500; // Server internal error
+
+    public static final int SERVICE_UNAVAILABLE = 503; // A service we depend on, e.g. the AI API, is unavailable
 }
@@ -0,0 +1,19 @@
+package se.sprinta.headhunterbackend.system.exception;
+
+public class AiServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Thrown when the AI API is not called at all, because it has recently been failing (see CircuitBreakerChatClient).
+     */
+
+    private final long retryAfterSeconds;
+
+    public AiServiceUnavailableException(long retryAfterSeconds) {
+        super("The AI service is temporarily unavailable, try again in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return this.retryAfterSeconds;
+    }
+}
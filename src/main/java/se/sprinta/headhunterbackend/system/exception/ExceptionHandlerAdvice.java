@@ -3,6 +3,7 @@ package se.sprinta.headhunterbackend.system.exception;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -52,6 +53,24 @@ public class ExceptionHandlerAdvice {
         return new Result(false, StatusCode.CONFLICT, ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidVariantCountException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Result handleInvalidVariantCountException(InvalidVariantCountException ex) {
+        return new Result(false, StatusCode.INVALID_ARGUMENT, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Result handleInvalidCursorException(InvalidCursorException ex) {
+        return new Result(false, StatusCode.INVALID_ARGUMENT, ex.getMessage());
+    }
+
+    @ExceptionHandler(PromptTooLargeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Result handlePromptTooLargeException(PromptTooLargeException ex) {
+        return new Result(false, StatusCode.INVALID_ARGUMENT, ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     Result handleValidationException(MethodArgumentNotValidException ex) {
@@ -123,6 +142,24 @@ public class ExceptionHandlerAdvice {
                 ex.getStatusCode());
     }
 
+    @ExceptionHandler(TokenQuotaExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    Result handleTokenQuotaExceededException(TokenQuotaExceededException ex) {
+        return new Result(false, StatusCode.TOO_MANY_REQUESTS, ex.getMessage());
+    }
+
+    /**
+     * The AI API is not called while it is failing, see CircuitBreakerChatClient.
+     */
+
+    @ExceptionHandler(AiServiceUnavailableException.class)
+    ResponseEntity<Result> handleAiServiceUnavailableException(AiServiceUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new Result(false, StatusCode.SERVICE_UNAVAILABLE, ex.getMessage()));
+    }
+
     /**
      * Fallback handles any unhandled exceptions
      *
@@ -0,0 +1,8 @@
+package se.sprinta.headhunterbackend.system.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor " + cursor);
+    }
+}
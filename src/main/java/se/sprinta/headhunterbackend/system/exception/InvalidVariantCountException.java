@@ -0,0 +1,8 @@
+package se.sprinta.headhunterbackend.system.exception;
+
+public class InvalidVariantCountException extends RuntimeException {
+
+    public InvalidVariantCountException(int numberOfVariants, int maxVariants) {
+        super("Number of variants must be between 1 and " + maxVariants + ", was " + numberOfVariants);
+    }
+}
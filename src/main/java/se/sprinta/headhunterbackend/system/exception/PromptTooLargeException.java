@@ -0,0 +1,8 @@
+package se.sprinta.headhunterbackend.system.exception;
+
+public class PromptTooLargeException extends RuntimeException {
+
+    public PromptTooLargeException(int estimatedTokens, int maxTokens) {
+        super("The job is too large to generate an ad from, about " + estimatedTokens + " tokens where at most " + maxTokens + " are allowed");
+    }
+}
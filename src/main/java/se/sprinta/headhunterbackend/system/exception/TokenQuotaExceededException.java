@@ -0,0 +1,8 @@
+package se.sprinta.headhunterbackend.system.exception;
+
+public class TokenQuotaExceededException extends RuntimeException {
+
+    public TokenQuotaExceededException(String email, long dailyTokenQuota) {
+        super("The daily quota of " + dailyTokenQuota + " AI tokens is used up for " + email);
+    }
+}
@@ -0,0 +1,106 @@
+package se.sprinta.headhunterbackend.system.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Stores a UUID that is a String in Java, like in the API, as its 16 bytes in a BINARY(16) column instead of its 36
+ * characters. That makes the primary key and every secondary index, which all contain the primary key on InnoDB, less
+ * than half the size.
+ * <p>
+ * A String that isn't a UUID, like an id typed into a URL, is bound as its UTF-8 bytes, which never match a 16 byte
+ * id, so it isn't found instead of failing the query.
+ * <p>
+ * Existing String ids, which are UUIDs as well, are converted by db/migration/V7__store_ad_id_as_binary.sql.
+ */
+
+public class BinaryUuidType implements UserType<String> {
+
+    public static final int LENGTH = 16;
+
+    @Override
+    public int getSqlType() {
+        return Types.BINARY;
+    }
+
+    @Override
+    public Class<String> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(String x, String y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(String x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public String nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner) throws SQLException {
+        byte[] bytes = rs.getBytes(position);
+        return bytes == null ? null : fromBytes(bytes);
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, String value, int index, SharedSessionContractImplementor session) throws SQLException {
+        if (value == null) st.setNull(index, Types.BINARY);
+        else st.setBytes(index, toBytes(value));
+    }
+
+    @Override
+    public String deepCopy(String value) {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(String value) {
+        return value;
+    }
+
+    @Override
+    public String assemble(Serializable cached, Object owner) {
+        return (String) cached;
+    }
+
+    public static byte[] toBytes(String uuid) {
+        UUID parsed;
+        try {
+            parsed = UUID.fromString(uuid);
+        } catch (IllegalArgumentException ex) {
+            return uuid.getBytes(StandardCharsets.UTF_8);
+        }
+
+        // UUID.fromString accepts shortened groups, only the canonical form is an id
+        if (!parsed.toString().equalsIgnoreCase(uuid)) return uuid.getBytes(StandardCharsets.UTF_8);
+
+        return ByteBuffer.allocate(LENGTH)
+                .putLong(parsed.getMostSignificantBits())
+                .putLong(parsed.getLeastSignificantBits())
+                .array();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes.length != LENGTH) return new String(bytes, StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
@@ -0,0 +1,54 @@
+package se.sprinta.headhunterbackend.system.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): a 48-bit Unix timestamp in milliseconds, followed by a 12-bit counter and 62
+ * random bits.
+ * <p>
+ * Unlike random version 4 UUIDs, they sort by the time they were generated, both as bytes and as strings, so new rows
+ * are appended to the end of a primary key index instead of being inserted at random places in it. Within the same
+ * millisecond the counter keeps them in order; it starts at a random value below 2048 every millisecond, so that the
+ * next id can't be guessed from the previous one.
+ */
+
+public final class Uuid7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static long lastMillis;
+    private static int counter;
+
+    private Uuid7() {
+    }
+
+    public static UUID next() {
+        long millis;
+        int sequence;
+
+        synchronized (Uuid7.class) {
+            millis = Math.max(System.currentTimeMillis(), lastMillis);
+            if (millis == lastMillis) {
+                counter++;
+                // 4096 ids in the same millisecond: borrow the next millisecond, which keeps them in order
+                if (counter > 0xFFF) {
+                    millis++;
+                    counter = RANDOM.nextInt(0x800);
+                }
+            } else {
+                counter = RANDOM.nextInt(0x800);
+            }
+            lastMillis = millis;
+            sequence = counter;
+        }
+
+        return of(millis, sequence, RANDOM.nextLong());
+    }
+
+    static UUID of(long millis, int sequence, long random) {
+        long mostSigBits = (millis << 16) | 0x7000 | (sequence & 0xFFF);
+        long leastSigBits = (random & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,19 @@
+package se.sprinta.headhunterbackend.system.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the id of an entity as a version 7 UUID, see Uuid7. Goes together with @Type(BinaryUuidType.class) to
+ * store it in 16 bytes.
+ */
+
+@IdGeneratorType(Uuid7IdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface Uuid7Id {
+}
@@ -0,0 +1,53 @@
+package se.sprinta.headhunterbackend.usage;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * TokenUsage is an entity that stores how many AI tokens an account used for a job on a given day.
+ * Rows are written in batches by TokenUsageService, each row holding the usage since the previous batch,
+ * so the usage of a day is the sum of its rows.
+ */
+
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "token_usage", indexes = @Index(name = "idx_token_usage_email_date", columnList = "email, usageDate"))
+public class TokenUsage implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    private String email;
+
+    private Long jobId;
+
+    private LocalDate usageDate;
+
+    private long promptTokens;
+
+    private long completionTokens;
+
+    private long totalTokens;
+
+    /**
+     * The number of AI calls the tokens were used in.
+     */
+
+    private long requests;
+
+    public TokenUsage(String email, Long jobId, LocalDate usageDate, long promptTokens, long completionTokens, long totalTokens, long requests) {
+        this.email = email;
+        this.jobId = jobId;
+        this.usageDate = usageDate;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.totalTokens = totalTokens;
+        this.requests = requests;
+    }
+}
@@ -0,0 +1,25 @@
+package se.sprinta.headhunterbackend.usage;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Repository for TokenUsage objects
+ */
+
+@Repository
+public interface TokenUsageRepository extends JpaRepository<TokenUsage, String> {
+
+    @Query("SELECT COALESCE(SUM(u.totalTokens), 0) FROM TokenUsage u WHERE u.email = :email AND u.usageDate = :usageDate")
+    long sumTotalTokensByEmailAndDate(String email, LocalDate usageDate);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM token_usage", nativeQuery = true)
+    void deleteTokenUsageTable();
+}
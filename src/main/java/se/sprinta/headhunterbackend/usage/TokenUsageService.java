@@ -0,0 +1,194 @@
+package se.sprinta.headhunterbackend.usage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.sprinta.headhunterbackend.client.chat.dto.Usage;
+import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.system.exception.TokenQuotaExceededException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Business logic for TokenUsage
+ * <p>
+ * Every AI call adds its Usage to in-memory counters per account, job and day. The counters are LongAdders,
+ * so concurrent generations don't contend on a lock or a database row. flush writes what has been added since
+ * the previous flush as new token_usage rows, in one batch, every usage.flush-interval-ms.
+ * <p>
+ * checkQuota is called before the AI call and compares the tokens an account used today with usage.daily-token-quota.
+ * Today's total is read from the database once per account and day, and kept up to date in memory after that.
+ * With several instances of the backend, each of them only knows about its own calls since then.
+ */
+
+@Service
+public class TokenUsageService implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenUsageService.class);
+
+    private final TokenUsageRepository tokenUsageRepository;
+
+    private final Map<UsageKey, UsageCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, DailyTotal> dailyTotals = new ConcurrentHashMap<>();
+
+    // 0 means no quota
+    @Value("${usage.daily-token-quota:0}")
+    private long dailyTokenQuota;
+
+    public TokenUsageService(TokenUsageRepository tokenUsageRepository) {
+        this.tokenUsageRepository = tokenUsageRepository;
+    }
+
+    /**
+     * @param job The job that is about to be sent to the AI API.
+     * @throws TokenQuotaExceededException if the account that owns the job has used up its daily quota.
+     */
+
+    public void checkQuota(Job job) {
+        if (this.dailyTokenQuota <= 0) return;
+
+        String email = job.getAccount().getEmail();
+        if (dailyTotal(email).sum() >= this.dailyTokenQuota)
+            throw new TokenQuotaExceededException(email, this.dailyTokenQuota);
+    }
+
+    /**
+     * @param job   The job that the AI call was made for.
+     * @param usage The tokens the AI call cost, ignored if null (e.g. a cached completion).
+     */
+
+    public void record(Job job, Usage usage) {
+        if (usage == null) return;
+
+        String email = job.getAccount().getEmail();
+        this.counters
+                .computeIfAbsent(new UsageKey(email, job.getId(), LocalDate.now()), key -> new UsageCounter())
+                .add(usage);
+        dailyTotal(email).add(usage.totalTokens());
+    }
+
+    public long getTokensUsedToday(String email) {
+        return dailyTotal(email).sum();
+    }
+
+    /**
+     * Writes the usage added since the previous flush, one row per account, job and day.
+     * The counters only move forward once the batch has been saved, so a failed flush is retried by the next one.
+     */
+
+    @Scheduled(fixedDelayString = "${usage.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        LocalDate today = LocalDate.now();
+        List<UsageKey> keys = new ArrayList<>();
+        List<UsageCounter.Snapshot> snapshots = new ArrayList<>();
+        List<TokenUsage> tokenUsages = new ArrayList<>();
+
+        for (Map.Entry<UsageKey, UsageCounter> entry : this.counters.entrySet()) {
+            UsageKey key = entry.getKey();
+            UsageCounter.Snapshot snapshot = entry.getValue().snapshot();
+
+            if (snapshot.isEmpty()) {
+                // Nothing is added to a key after its day is over, apart from calls that were running at midnight
+                if (key.usageDate().isBefore(today.minusDays(1))) this.counters.remove(key, entry.getValue());
+                continue;
+            }
+
+            keys.add(key);
+            snapshots.add(snapshot);
+            tokenUsages.add(new TokenUsage(key.email(), key.jobId(), key.usageDate(),
+                    snapshot.promptTokens(), snapshot.completionTokens(), snapshot.totalTokens(), snapshot.requests()));
+        }
+
+        this.dailyTotals.values().removeIf(dailyTotal -> dailyTotal.date().isBefore(today));
+
+        if (tokenUsages.isEmpty()) return;
+
+        this.tokenUsageRepository.saveAll(tokenUsages);
+
+        for (int i = 0; i < keys.size(); i++)
+            this.counters.get(keys.get(i)).markFlushed(snapshots.get(i));
+
+        LOGGER.debug("Flushed {} token usage row(s)", tokenUsages.size());
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private LongAdder dailyTotal(String email) {
+        LocalDate today = LocalDate.now();
+        DailyTotal dailyTotal = this.dailyTotals.get(email);
+        if (dailyTotal != null && dailyTotal.date().equals(today)) return dailyTotal.tokens();
+
+        return this.dailyTotals.compute(email, (key, existing) -> {
+            if (existing != null && existing.date().equals(today)) return existing;
+            LongAdder tokens = new LongAdder();
+            tokens.add(this.tokenUsageRepository.sumTotalTokensByEmailAndDate(email, today));
+            return new DailyTotal(today, tokens);
+        }).tokens();
+    }
+
+    private record UsageKey(String email, Long jobId, LocalDate usageDate) {
+    }
+
+    private record DailyTotal(LocalDate date, LongAdder tokens) {
+    }
+
+    /**
+     * Counts only ever go up. What has been written to the database is remembered in the flushed fields,
+     * which are only touched by flush.
+     */
+
+    private static class UsageCounter {
+
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+        private final LongAdder totalTokens = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+
+        private Snapshot flushed = new Snapshot(0, 0, 0, 0);
+
+        private void add(Usage usage) {
+            this.promptTokens.add(usage.promptTokens());
+            this.completionTokens.add(usage.completionTokens());
+            this.totalTokens.add(usage.totalTokens());
+            this.requests.increment();
+        }
+
+        /**
+         * @return What has been added since the previous flush.
+         */
+
+        private Snapshot snapshot() {
+            return new Snapshot(
+                    this.promptTokens.sum() - this.flushed.promptTokens(),
+                    this.completionTokens.sum() - this.flushed.completionTokens(),
+                    this.totalTokens.sum() - this.flushed.totalTokens(),
+                    this.requests.sum() - this.flushed.requests());
+        }
+
+        private void markFlushed(Snapshot snapshot) {
+            this.flushed = new Snapshot(
+                    this.flushed.promptTokens() + snapshot.promptTokens(),
+                    this.flushed.completionTokens() + snapshot.completionTokens(),
+                    this.flushed.totalTokens() + snapshot.totalTokens(),
+                    this.flushed.requests() + snapshot.requests());
+        }
+
+        private record Snapshot(long promptTokens, long completionTokens, long totalTokens, long requests) {
+
+            private boolean isEmpty() {
+                return this.requests == 0 && this.totalTokens == 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package se.sprinta.headhunterbackend.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A small thread-safe in-memory cache with a fixed maximum size and a time to live.
+ * When the cache is full, the least recently used entry is evicted.
+ * An entry older than the time to live is treated as missing and removed when it is read.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ExpiringLruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    public ExpiringLruCache(int maxSize, Duration ttl, Clock clock) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be at least 1");
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        // accessOrder = true turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if there is none or it has expired.
+     */
+
+    public synchronized V get(K key) {
+        Entry<V> entry = this.entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt <= this.clock.millis()) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        this.entries.put(key, new Entry<>(value, this.clock.millis() + this.ttlMillis));
+    }
+
+    public synchronized void invalidate(K key) {
+        this.entries.remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<K> keyPredicate) {
+        this.entries.keySet().removeIf(keyPredicate);
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,421 @@
+package se.sprinta.headhunterbackend.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Extracts the HTML document from an AI response in a single pass, while checking that its tags are balanced.
+ * <p>
+ * The response can be fed all at once or chunk by chunk as it is streamed, and every character is looked at once.
+ * Everything before the document (prose, a markdown code fence) is skipped. The document starts at the first
+ * {@code <!DOCTYPE} or {@code <html}, in any case, and ends when the html element is closed, or at a closing
+ * markdown code fence. Elements that are still open at the end, e.g. because the AI forgot {@code </html>}, are
+ * closed, and a missing DOCTYPE is added.
+ * <p>
+ * The response is rejected if it has no document, or if an end tag doesn't match the open elements, except for
+ * elements whose end tag HTML allows to leave out, like p and li.
+ * <p>
+ * Not thread-safe, use one instance per response.
+ */
+
+public class HtmlExtractor {
+
+    private static final String DOCTYPE = "<!doctype";
+    private static final String HTML = "<html";
+
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr");
+
+    // The content of these is text, not markup, up to their own end tag
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "textarea", "title");
+
+    // Elements whose end tag may be left out, so they may be closed implicitly
+    private static final Set<String> OPTIONAL_END_ELEMENTS = Set.of(
+            "html", "head", "body", "p", "li", "dt", "dd", "tr", "td", "th", "thead", "tbody", "tfoot",
+            "option", "optgroup", "colgroup", "caption", "rt", "rp");
+
+    // Start tags that close an open p, like in a browser
+    private static final Set<String> CLOSES_P = Set.of(
+            "address", "article", "aside", "blockquote", "details", "div", "dl", "fieldset", "figcaption", "figure",
+            "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "main", "nav", "ol", "p", "pre",
+            "section", "table", "ul");
+
+    private enum State {
+        SEEK, TEXT, TAG_OPEN, START_TAG_NAME, END_TAG_NAME, IN_START_TAG, IN_END_TAG, DECLARATION, COMMENT, RAW_TEXT, DONE
+    }
+
+    private final StringBuilder document = new StringBuilder();
+    private final Deque<String> openElements = new ArrayDeque<>();
+
+    private State state = State.SEEK;
+
+    // While seeking, the characters since the last '<' that may still start the document
+    private final StringBuilder candidate = new StringBuilder();
+
+    private final StringBuilder tagName = new StringBuilder();
+    private int tagStart;
+    private char quote;
+    private boolean selfClosing;
+    private int dashes;
+    private String rawTextElement;
+    private int rawTextMatched;
+
+    private boolean atLineStart;
+    private int backticks;
+
+    private boolean sawElement;
+    private String error;
+
+    /**
+     * Extracts the HTML document from a complete response.
+     *
+     * @throws IllegalArgumentException if the response contains no valid HTML document.
+     */
+
+    public static String extract(CharSequence response) {
+        HtmlExtractor extractor = new HtmlExtractor();
+        extractor.feed(response);
+        return extractor.finish();
+    }
+
+    /**
+     * Extracts the HTML document from a response that is read from reader, which is not closed.
+     *
+     * @throws IllegalArgumentException if the response contains no valid HTML document.
+     */
+
+    public static String extract(Reader reader) {
+        HtmlExtractor extractor = new HtmlExtractor();
+        char[] buffer = new char[8192];
+        try {
+            for (int read = reader.read(buffer); read != -1 && !extractor.isComplete(); read = reader.read(buffer))
+                extractor.feed(buffer, 0, read);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return extractor.finish();
+    }
+
+    /**
+     * Feeds the next chunk of the response. Chunks may be split anywhere, also inside a tag.
+     */
+
+    public HtmlExtractor feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length() && this.state != State.DONE; i++)
+            accept(chunk.charAt(i));
+        return this;
+    }
+
+    public HtmlExtractor feed(char[] chunk, int offset, int length) {
+        for (int i = offset; i < offset + length && this.state != State.DONE; i++)
+            accept(chunk[i]);
+        return this;
+    }
+
+    /**
+     * @return true once the document has ended, after which the rest of the response is ignored.
+     */
+
+    public boolean isComplete() {
+        return this.state == State.DONE;
+    }
+
+    /**
+     * @return true if the document has started and nothing invalid has been found in it so far.
+     */
+
+    public boolean isValid() {
+        return this.state != State.SEEK && this.error == null;
+    }
+
+    /**
+     * @return Why the response was rejected, or null.
+     */
+
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Ends the response, closes the elements that are still open and returns the document.
+     *
+     * @throws IllegalArgumentException if the response contains no valid HTML document.
+     */
+
+    public String finish() {
+        if (this.state == State.SEEK || this.error != null || !this.sawElement)
+            throw new IllegalArgumentException("AI response is not valid HTML code");
+
+        switch (this.state) {
+            // The response ended inside a tag, comment or declaration, which is dropped
+            case TAG_OPEN, START_TAG_NAME, END_TAG_NAME, IN_START_TAG, IN_END_TAG, DECLARATION, COMMENT ->
+                    this.document.setLength(this.tagStart);
+            case RAW_TEXT -> {
+                if (this.rawTextMatched > 0) this.document.setLength(this.tagStart);
+            }
+            default -> {
+            }
+        }
+        this.state = State.DONE;
+
+        int end = this.document.length();
+        while (end > 0 && Character.isWhitespace(this.document.charAt(end - 1))) end--;
+        this.document.setLength(end);
+
+        while (!this.openElements.isEmpty())
+            this.document.append("</").append(this.openElements.pop()).append('>');
+
+        if (!startsWith(this.document, DOCTYPE, DOCTYPE.length())) this.document.insert(0, "<!DOCTYPE html>");
+
+        return this.document.toString();
+    }
+
+    private void accept(char c) {
+        switch (this.state) {
+            case SEEK -> seek(c);
+            case TEXT -> text(c);
+            case TAG_OPEN -> tagOpen(c);
+            case START_TAG_NAME -> startTagName(c);
+            case END_TAG_NAME -> endTagName(c);
+            case IN_START_TAG -> inStartTag(c);
+            case IN_END_TAG -> inEndTag(c);
+            case DECLARATION -> declaration(c);
+            case COMMENT -> comment(c);
+            case RAW_TEXT -> rawText(c);
+            case DONE -> {
+            }
+        }
+    }
+
+    private void seek(char c) {
+        if (c == '<') {
+            this.candidate.setLength(0);
+            this.candidate.append(c);
+            return;
+        }
+        if (this.candidate.isEmpty()) return;
+
+        this.candidate.append(c);
+        int length = this.candidate.length();
+
+        if (length == DOCTYPE.length() && startsWith(this.candidate, DOCTYPE, length)
+                || length == HTML.length() + 1 && startsWith(this.candidate, HTML, HTML.length()) && endsName(c)) {
+            // The document starts here, the candidate is its first tag
+            this.state = State.TEXT;
+            String start = this.candidate.toString();
+            this.candidate.setLength(0);
+            for (int i = 0; i < start.length(); i++) accept(start.charAt(i));
+        } else if (!(length < DOCTYPE.length() && startsWith(this.candidate, DOCTYPE, length))
+                && !(length <= HTML.length() && startsWith(this.candidate, HTML, length))) {
+            this.candidate.setLength(0);
+        }
+    }
+
+    private void text(char c) {
+        // A markdown code fence at the start of a line ends the document
+        if (this.atLineStart && c == '`') {
+            if (++this.backticks == 3) this.state = State.DONE;
+            return;
+        }
+        if (this.backticks > 0) {
+            this.document.append("`".repeat(this.backticks));
+            this.backticks = 0;
+            this.atLineStart = false;
+        }
+
+        if (c == '<') {
+            this.tagStart = this.document.length();
+            this.state = State.TAG_OPEN;
+        }
+        this.document.append(c);
+        this.atLineStart = c == '\n' || this.atLineStart && (c == ' ' || c == '\t');
+    }
+
+    private void tagOpen(char c) {
+        this.document.append(c);
+        this.tagName.setLength(0);
+        this.selfClosing = false;
+
+        if (isLetter(c)) {
+            this.tagName.append(Character.toLowerCase(c));
+            this.state = State.START_TAG_NAME;
+        } else if (c == '/') {
+            this.state = State.END_TAG_NAME;
+        } else if (c == '!') {
+            this.dashes = 0;
+            this.state = State.DECLARATION;
+        } else if (c == '?') {
+            this.state = State.IN_END_TAG; // A processing instruction, skipped up to '>'
+        } else {
+            this.state = State.TEXT; // A literal '<'
+            this.atLineStart = false;
+        }
+    }
+
+    private void startTagName(char c) {
+        this.document.append(c);
+        if (c == '>') {
+            startTag();
+        } else if (endsName(c)) {
+            this.quote = 0;
+            this.selfClosing = c == '/';
+            this.state = State.IN_START_TAG;
+        } else {
+            this.tagName.append(Character.toLowerCase(c));
+        }
+    }
+
+    private void inStartTag(char c) {
+        this.document.append(c);
+        if (this.quote != 0) {
+            if (c == this.quote) this.quote = 0;
+        } else if (c == '"' || c == '\'') {
+            this.quote = c;
+        } else if (c == '>') {
+            startTag();
+        } else if (!Character.isWhitespace(c)) {
+            this.selfClosing = c == '/';
+        }
+    }
+
+    private void endTagName(char c) {
+        this.document.append(c);
+        if (c == '>') {
+            endTag();
+        } else if (Character.isWhitespace(c) || c == '/') {
+            this.state = State.IN_END_TAG;
+        } else {
+            this.tagName.append(Character.toLowerCase(c));
+        }
+    }
+
+    private void inEndTag(char c) {
+        this.document.append(c);
+        if (c != '>') return;
+        if (this.tagName.isEmpty()) toText();
+        else endTag();
+    }
+
+    private void declaration(char c) {
+        this.document.append(c);
+        if (c == '>') {
+            toText();
+        } else if (c == '-' && this.dashes >= 0 && ++this.dashes == 2) {
+            this.dashes = 0;
+            this.state = State.COMMENT;
+        } else if (c != '-') {
+            this.dashes = -1; // Not a comment, a DOCTYPE or other declaration
+        }
+    }
+
+    private void comment(char c) {
+        this.document.append(c);
+        if (c == '>' && this.dashes >= 2) toText();
+        else this.dashes = c == '-' ? this.dashes + 1 : 0;
+    }
+
+    private void rawText(char c) {
+        this.document.append(c);
+        String endTag = this.rawTextElement;
+
+        if (this.rawTextMatched == 0) {
+            if (c == '<') {
+                this.tagStart = this.document.length() - 1;
+                this.rawTextMatched = 1;
+            }
+        } else if (this.rawTextMatched == 1) {
+            this.rawTextMatched = c == '/' ? 2 : c == '<' ? 1 : 0;
+        } else if (Character.toLowerCase(c) == endTag.charAt(this.rawTextMatched - 2)) {
+            if (++this.rawTextMatched - 2 == endTag.length()) {
+                // The end tag of the raw text element, parsed as any other end tag from here
+                this.tagName.setLength(0);
+                this.tagName.append(endTag);
+                this.rawTextMatched = 0;
+                this.state = State.END_TAG_NAME;
+            }
+        } else {
+            this.rawTextMatched = c == '<' ? 1 : 0;
+            if (c == '<') this.tagStart = this.document.length() - 1;
+        }
+    }
+
+    private void startTag() {
+        String name = this.tagName.toString();
+        this.sawElement = true;
+        toText();
+
+        if (VOID_ELEMENTS.contains(name) || this.selfClosing) return;
+
+        String current = this.openElements.peek();
+        if ("p".equals(current) && CLOSES_P.contains(name)
+                || name.equals(current) && OPTIONAL_END_ELEMENTS.contains(name)
+                || ("td".equals(name) || "th".equals(name)) && ("td".equals(current) || "th".equals(current)))
+            this.openElements.pop();
+
+        this.openElements.push(name);
+
+        if (RAW_TEXT_ELEMENTS.contains(name)) {
+            this.rawTextElement = name;
+            this.rawTextMatched = 0;
+            this.state = State.RAW_TEXT;
+        }
+    }
+
+    private void endTag() {
+        String name = this.tagName.toString();
+        toText();
+
+        if ("body".equals(name) || "html".equals(name)) {
+            // Closes whatever is still open in it, like in a browser
+            while (!this.openElements.isEmpty() && !this.openElements.peek().equals(name)) this.openElements.pop();
+        }
+
+        if (!this.openElements.contains(name)) {
+            // A stray </br> or </p> is harmless, any other end tag without a start tag is not
+            if (!VOID_ELEMENTS.contains(name) && !"p".equals(name)) fail("</" + name + "> without <" + name + ">");
+            return;
+        }
+
+        for (String open = this.openElements.pop(); !open.equals(name); open = this.openElements.pop()) {
+            if (!OPTIONAL_END_ELEMENTS.contains(open)) {
+                fail("</" + name + "> while <" + open + "> is open");
+                return;
+            }
+        }
+
+        if (this.openElements.isEmpty() && "html".equals(name)) this.state = State.DONE;
+    }
+
+    private void toText() {
+        this.state = State.TEXT;
+        this.atLineStart = false;
+    }
+
+    private void fail(String reason) {
+        this.error = reason;
+        this.state = State.DONE;
+    }
+
+    /**
+     * @return true if the first length characters of text are the first length characters of the lower case prefix, in any case.
+     */
+
+    private static boolean startsWith(CharSequence text, String prefix, int length) {
+        if (text.length() < length) return false;
+        for (int i = 0; i < length; i++)
+            if (Character.toLowerCase(text.charAt(i)) != prefix.charAt(i)) return false;
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean endsName(char c) {
+        return Character.isWhitespace(c) || c == '>' || c == '/';
+    }
+}
@@ -0,0 +1,175 @@
+package se.sprinta.headhunterbackend.utils;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The plain text of an HTML document, summarized for list views: the first characters of the text as an excerpt, and
+ * the number of words in the whole text.
+ * <p>
+ * The text is what a browser would show: tags and comments are left out, as is the content of head, script, style and
+ * template, the common character references are decoded, and whitespace is collapsed. Block elements like p and li
+ * separate words, inline elements like b and a don't.
+ *
+ * @param excerpt   At most the given number of characters of the text, cut at a word and ended with an ellipsis if the
+ *                  text is longer.
+ * @param wordCount The number of words in the text.
+ */
+
+public record HtmlTextSummary(String excerpt, int wordCount) {
+
+    static final char ELLIPSIS = '…';
+
+    // The content of these is never shown
+    private static final Set<String> HIDDEN_ELEMENTS = Set.of("head", "script", "style", "template", "title", "noscript");
+
+    // Elements that don't break the text, so "Java<b>Script</b>" is one word
+    private static final Set<String> INLINE_ELEMENTS = Set.of(
+            "a", "abbr", "b", "bdi", "bdo", "cite", "code", "data", "dfn", "em", "i", "kbd", "mark", "q", "s", "samp",
+            "small", "span", "strong", "sub", "sup", "time", "u", "var");
+
+    private static final Map<String, String> NAMED_REFERENCES = Map.of(
+            "amp", "&", "lt", "<", "gt", ">", "quot", "\"", "apos", "'", "nbsp", " ",
+            "ndash", "–", "mdash", "—", "hellip", "…", "euro", "€");
+
+    /**
+     * @param excerptLength The maximum number of characters of the excerpt, including the ellipsis.
+     */
+
+    public static HtmlTextSummary of(String htmlCode, int excerptLength) {
+        String text = toText(htmlCode);
+        return new HtmlTextSummary(excerpt(text, excerptLength), countWords(text));
+    }
+
+    static String toText(String htmlCode) {
+        StringBuilder text = new StringBuilder(htmlCode.length() / 2);
+        int length = htmlCode.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = htmlCode.charAt(i);
+
+            if (c == '<') {
+                if (htmlCode.startsWith("<!--", i)) {
+                    int end = htmlCode.indexOf("-->", i + 4);
+                    i = end == -1 ? length : end + 3;
+                    continue;
+                }
+
+                int end = tagEnd(htmlCode, i + 1);
+                if (end == -1) break; // A tag that was cut off
+
+                boolean endTag = i + 1 < length && htmlCode.charAt(i + 1) == '/';
+                String name = tagName(htmlCode, endTag ? i + 2 : i + 1, end);
+                i = end + 1;
+
+                if (!endTag && HIDDEN_ELEMENTS.contains(name) && htmlCode.charAt(end - 1) != '/') {
+                    // Skip to the end tag, the content isn't markup for script and style anyway
+                    int hiddenEnd = indexOfIgnoreCase(htmlCode, "</" + name, i);
+                    int hiddenTagEnd = hiddenEnd == -1 ? -1 : htmlCode.indexOf('>', hiddenEnd);
+                    i = hiddenTagEnd == -1 ? length : hiddenTagEnd + 1;
+                }
+                if (!INLINE_ELEMENTS.contains(name)) appendSpace(text);
+            } else if (c == '&') {
+                int end = htmlCode.indexOf(';', i + 1);
+                String decoded = end == -1 || end - i > 10 ? null : decode(htmlCode.substring(i + 1, end));
+                if (decoded == null) {
+                    appendText(text, c);
+                    i++;
+                } else {
+                    for (int j = 0; j < decoded.length(); j++) appendText(text, decoded.charAt(j));
+                    i = end + 1;
+                }
+            } else {
+                appendText(text, c);
+                i++;
+            }
+        }
+
+        int end = text.length();
+        if (end > 0 && text.charAt(end - 1) == ' ') text.setLength(end - 1);
+        return text.toString();
+    }
+
+    /**
+     * @return The index of the '>' that ends the tag, which may be in a quoted attribute value, or -1.
+     */
+
+    private static int tagEnd(String htmlCode, int from) {
+        char quote = 0;
+        for (int i = from; i < htmlCode.length(); i++) {
+            char c = htmlCode.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String tagName(String htmlCode, int start, int end) {
+        int nameEnd = start;
+        while (nameEnd < end && Character.isLetterOrDigit(htmlCode.charAt(nameEnd))) nameEnd++;
+        return htmlCode.substring(start, nameEnd).toLowerCase();
+    }
+
+    private static int indexOfIgnoreCase(String s, String target, int from) {
+        for (int i = from; i <= s.length() - target.length(); i++)
+            if (s.regionMatches(true, i, target, 0, target.length())) return i;
+        return -1;
+    }
+
+    private static String decode(String reference) {
+        try {
+            if (reference.startsWith("#x") || reference.startsWith("#X"))
+                return Character.toString(Integer.parseInt(reference.substring(2), 16));
+            if (reference.startsWith("#"))
+                return Character.toString(Integer.parseInt(reference.substring(1)));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        return NAMED_REFERENCES.get(reference);
+    }
+
+    private static void appendText(StringBuilder text, char c) {
+        if (Character.isWhitespace(c) || Character.isSpaceChar(c)) appendSpace(text);
+        else text.append(c);
+    }
+
+    private static void appendSpace(StringBuilder text) {
+        int length = text.length();
+        if (length > 0 && text.charAt(length - 1) != ' ') text.append(' ');
+    }
+
+    private static String excerpt(String text, int excerptLength) {
+        if (text.length() <= excerptLength) return text;
+
+        int end = text.lastIndexOf(' ', excerptLength - 1);
+        // A single word longer than half the excerpt is cut anyway
+        if (end < excerptLength / 2) {
+            end = excerptLength - 1;
+            if (Character.isHighSurrogate(text.charAt(end - 1))) end--;
+        }
+        return text.substring(0, end).stripTrailing() + ELLIPSIS;
+    }
+
+    private static int countWords(String text) {
+        int words = 0;
+        boolean inWord = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ') {
+                inWord = false;
+            } else if (!inWord && Character.isLetterOrDigit(c)) {
+                // Punctuation on its own, like a dash between two words, isn't a word
+                inWord = true;
+                words++;
+            }
+        }
+        return words;
+    }
+}
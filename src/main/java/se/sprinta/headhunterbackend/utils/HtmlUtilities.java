@@ -5,18 +5,24 @@ import org.springframework.stereotype.Component;
 @Component
 public class HtmlUtilities {
 
+    /**
+     * Extracts the HTML document from a complete AI response, see HtmlExtractor.
+     *
+     * @throws IllegalArgumentException if the response is null or contains no valid HTML document.
+     */
+
     public String makeHtmlResponseSubstring(String response) {
         if (response == null) throw new IllegalArgumentException("AI response content cannot be null");
 
-        int cutBeginning = response.indexOf("<!D");
-        // Adjusting cutEnd to include the entire "</html>" tag
-        int cutEnd = response.lastIndexOf("</html>") + "</html>".length();
+        return HtmlExtractor.extract(response);
+    }
 
-        // Extracting the substring
-        if (cutBeginning == -1 || cutEnd <= cutBeginning)
-            throw new IllegalArgumentException("AI response is not valid HTML code");
+    /**
+     * @return An HtmlExtractor to feed a streamed AI response to, chunk by chunk, as it arrives.
+     */
 
-        return response.substring(cutBeginning, cutEnd);
+    public HtmlExtractor newExtractor() {
+        return new HtmlExtractor();
     }
 
 }
@@ -0,0 +1,54 @@
+package se.sprinta.headhunterbackend.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes sure that only one call per key is running at a time.
+ * A caller that arrives while a call for the same key is already running does not start a new one,
+ * it waits for the running call and gets the same result (or the same exception).
+ * <p>
+ * Callers with different keys never wait for each other.
+ *
+ * @param <K> Key type
+ * @param <V> Result type
+ */
+
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> runningCall = this.inFlight.putIfAbsent(key, call);
+
+        if (runningCall != null) return await(runningCall);
+
+        try {
+            V result = supplier.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.inFlight.remove(key, call);
+        }
+    }
+
+    public int inFlightCount() {
+        return this.inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> runningCall) {
+        try {
+            return runningCall.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (ex.getCause() instanceof Error error) throw error;
+            throw ex;
+        }
+    }
+}
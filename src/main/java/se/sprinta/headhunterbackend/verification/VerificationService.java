@@ -3,6 +3,7 @@ package se.sprinta.headhunterbackend.verification;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
 import se.sprinta.headhunterbackend.account.AccountRepository;
 import se.sprinta.headhunterbackend.email.MicrosoftGraphAuth;
 import se.sprinta.headhunterbackend.system.exception.AccountAlreadyVerifiedException;
@@ -20,11 +21,13 @@ public class VerificationService {
     private final VerificationRepository verificationRepository;
     private final AccountRepository accountRepository;
     private final MicrosoftGraphAuth microsoftGraphAuth;
+    private final AccountPrincipalCache accountPrincipalCache;
 
-    public VerificationService(VerificationRepository verificationRepository, AccountRepository accountRepository, MicrosoftGraphAuth microsoftGraphAuth) {
+    public VerificationService(VerificationRepository verificationRepository, AccountRepository accountRepository, MicrosoftGraphAuth microsoftGraphAuth, AccountPrincipalCache accountPrincipalCache) {
         this.verificationRepository = verificationRepository;
         this.accountRepository = accountRepository;
         this.microsoftGraphAuth = microsoftGraphAuth;
+        this.accountPrincipalCache = accountPrincipalCache;
     }
 
     public List<Verification> findAll() {
@@ -62,6 +65,7 @@ public class VerificationService {
         }
 
         foundAccount.setVerified(true);
+        this.accountPrincipalCache.invalidate(email);
         this.verificationRepository.deleteByEmail(email);
     }
 }
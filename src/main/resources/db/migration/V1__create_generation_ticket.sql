@@ -0,0 +1,15 @@
+-- Queued ad generations, see GenerationTicket.
+
+CREATE TABLE generation_ticket
+(
+    id            VARCHAR(255) NOT NULL,
+    job_id        BIGINT,
+    status        ENUM ('DONE','FAILED','QUEUED','RUNNING'),
+    ad_id         VARCHAR(255),
+    error_message VARCHAR(1000),
+    date_created  DATETIME(6),
+    date_updated  DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_generation_ticket_status ON generation_ticket (status, date_created);
@@ -0,0 +1,16 @@
+-- AI token usage per account, job and day, see TokenUsage.
+
+CREATE TABLE token_usage
+(
+    id                VARCHAR(255) NOT NULL,
+    email             VARCHAR(255),
+    job_id            BIGINT,
+    usage_date        DATE,
+    prompt_tokens     BIGINT       NOT NULL,
+    completion_tokens BIGINT       NOT NULL,
+    total_tokens      BIGINT       NOT NULL,
+    requests          BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_token_usage_email_date ON token_usage (email, usage_date);
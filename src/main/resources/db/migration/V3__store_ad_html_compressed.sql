@@ -0,0 +1,4 @@
+-- Ad.htmlCode is stored by HtmlCodeConverter as bytes. A binary column keeps the bytes of the rows that were written
+-- as TEXT before, which HtmlCodeConverter still reads.
+
+ALTER TABLE ad MODIFY html_code MEDIUMBLOB;
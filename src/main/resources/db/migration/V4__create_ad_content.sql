@@ -0,0 +1,17 @@
+-- The Html-code of ads, stored once per content hash, see AdContent. Ads reference it by content_hash.
+-- Ads stored before keep their Html-code in ad.html_code until AdContentMigration has moved it.
+
+CREATE TABLE ad_content
+(
+    hash            VARCHAR(64) NOT NULL,
+    html_code       MEDIUMBLOB,
+    ref_count       BIGINT      NOT NULL,
+    last_referenced DATETIME(6),
+    PRIMARY KEY (hash)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_ad_content_ref_count ON ad_content (ref_count);
+
+ALTER TABLE ad
+    ADD COLUMN content_hash VARCHAR(64),
+    ADD CONSTRAINT fk_ad_content_hash FOREIGN KEY (content_hash) REFERENCES ad_content (hash);
@@ -0,0 +1,6 @@
+-- The size of the Html-code of an ad, for listings without the Html-code, see AdContent.htmlSize.
+-- Content stored before this script reads as size 0. Run together with V4 it applies to an empty table.
+
+ALTER TABLE ad_content ADD COLUMN html_size INT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_ad_job_date_id ON ad (job_id, date_created, id);
@@ -0,0 +1,7 @@
+-- The plain-text excerpt and word count of the Html-code of an ad, see AdContent.excerpt.
+-- Content stored before this script has no excerpt and a word count of 0. Run together with V4 it applies to an
+-- empty table.
+
+ALTER TABLE ad_content
+    ADD COLUMN excerpt    VARCHAR(200),
+    ADD COLUMN word_count INT NOT NULL DEFAULT 0;
@@ -0,0 +1,21 @@
+-- Ad ids are stored as their 16 bytes, see BinaryUuidType. The existing ids are UUIDs as well, so they are converted
+-- with UUID_TO_BIN, which needs MySQL 8.
+
+ALTER TABLE ad ADD COLUMN id_bin BINARY(16);
+
+UPDATE ad SET id_bin = UUID_TO_BIN(id);
+
+-- Dropping id leaves idx_ad_job_date_id on (job_id, date_created), so it keeps serving the job_id foreign key
+ALTER TABLE ad
+    DROP PRIMARY KEY,
+    DROP COLUMN id;
+
+ALTER TABLE ad
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL,
+    ADD PRIMARY KEY (id);
+
+ALTER TABLE ad ADD INDEX idx_ad_job_date_id_bin (job_id, date_created, id);
+
+ALTER TABLE ad
+    DROP INDEX idx_ad_job_date_id,
+    RENAME INDEX idx_ad_job_date_id_bin TO idx_ad_job_date_id;
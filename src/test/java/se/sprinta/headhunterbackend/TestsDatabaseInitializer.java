@@ -6,10 +6,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
 import se.sprinta.headhunterbackend.account.AccountRepository;
 import se.sprinta.headhunterbackend.account.converter.AccountToAccountDtoViewConverter;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.ad.Ad;
+import se.sprinta.headhunterbackend.ad.AdContentRepository;
 import se.sprinta.headhunterbackend.ad.AdRepository;
 import se.sprinta.headhunterbackend.ad.converter.AdToAdDtoView;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
@@ -53,6 +55,12 @@ public class TestsDatabaseInitializer {
     @Autowired
     private final AdRepository adRepository;
 
+    @Autowired
+    private final AdContentRepository adContentRepository;
+
+    @Autowired
+    private final AccountPrincipalCache accountPrincipalCache;
+
     @Getter
     private static final List<Account> accounts = new ArrayList<>();
     @Getter
@@ -72,11 +80,15 @@ public class TestsDatabaseInitializer {
             AccountRepository accountRepository,
             VerificationRepository verificationRepository,
             JobRepository jobRepository,
-            AdRepository adRepository) {
+            AdRepository adRepository,
+            AdContentRepository adContentRepository,
+            AccountPrincipalCache accountPrincipalCache) {
         this.accountRepository = accountRepository;
         this.verificationRepository = verificationRepository;
         this.jobRepository = jobRepository;
         this.adRepository = adRepository;
+        this.adContentRepository = adContentRepository;
+        this.accountPrincipalCache = accountPrincipalCache;
     }
 
     public void initializeH2Database() {
@@ -236,7 +248,10 @@ public class TestsDatabaseInitializer {
     public void clearH2Database() {
         this.verificationRepository.deleteVerificationTable();
         this.adRepository.deleteAdTable();
+        this.adContentRepository.deleteAdContentTable();
         this.jobRepository.deleteJobTable();
         this.accountRepository.deleteAccountTable();
+        // The accounts are deleted without AccountService, which would invalidate them one by one
+        this.accountPrincipalCache.clear();
     }
 }
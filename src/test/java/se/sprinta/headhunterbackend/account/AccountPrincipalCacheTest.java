@@ -0,0 +1,83 @@
+package se.sprinta.headhunterbackend.account;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.sprinta.headhunterbackend.account.dto.AccountDtoCredentials;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountPrincipalCacheTest {
+
+    private final AccountDtoCredentials credentials = new AccountDtoCredentials("user1@hh.se", "hash", "user", 1, true);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountPrincipalCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new AccountPrincipalCache(this.meterRegistry, true, 10, 300);
+        this.loads = new AtomicInteger();
+    }
+
+    private Optional<AccountDtoCredentials> load() {
+        this.loads.incrementAndGet();
+        return Optional.of(this.credentials);
+    }
+
+    @Test
+    @DisplayName("get - Second Login - Cache Hit")
+    void test_Get_SecondLogin_CacheHit() {
+        assertEquals(Optional.of(this.credentials), this.cache.get("user1@hh.se", this::load));
+        assertEquals(Optional.of(this.credentials), this.cache.get("user1@hh.se", this::load));
+
+        assertEquals(1, this.loads.get());
+        assertEquals(1.0, this.meterRegistry.get("account.principal.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, this.meterRegistry.get("account.principal.cache").tag("result", "miss").counter().count());
+        assertEquals(0.5, this.meterRegistry.get("account.principal.cache.hit-ratio").gauge().value());
+        assertEquals(1, this.meterRegistry.get("account.principal.load").timer().count());
+    }
+
+    @Test
+    @DisplayName("get - Invalidated - Loaded Again")
+    void test_Get_Invalidated_LoadedAgain() {
+        this.cache.get("user1@hh.se", this::load);
+        this.cache.invalidate("user1@hh.se");
+        this.cache.get("user1@hh.se", this::load);
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    @DisplayName("get - Invalidated During Load - Not Cached")
+    void test_Get_InvalidatedDuringLoad_NotCached() {
+        this.cache.get("user1@hh.se", () -> {
+            // A change that commits while the old credentials are being read
+            this.cache.invalidate("user1@hh.se");
+            return load();
+        });
+        this.cache.get("user1@hh.se", this::load);
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    @DisplayName("get - Non-Existing Email - Not Cached")
+    void test_Get_NonExistingEmail_NotCached() {
+        assertThat(this.cache.get("abc", Optional::empty)).isEmpty();
+        this.cache.get("abc", () -> {
+            this.loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertEquals(1, this.loads.get());
+        assertEquals(2.0, this.meterRegistry.get("account.principal.cache").tag("result", "miss").counter().count());
+    }
+}
@@ -8,9 +8,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import se.sprinta.headhunterbackend.MockDatabaseInitializer;
+import se.sprinta.headhunterbackend.account.dto.AccountDtoCredentials;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoFormRegister;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.account.dto.AccountUpdateDtoForm;
@@ -22,6 +25,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +40,8 @@ class AccountServiceMockTest {
     AccountRepository accountRepository;
     @Mock
     PasswordEncoder passwordEncoder;
+    @Mock
+    AccountPrincipalCache accountPrincipalCache;
     @InjectMocks
     AccountService accountService;
 
@@ -274,6 +280,7 @@ class AccountServiceMockTest {
         // Verify
         then(this.accountRepository).should().findAccountByEmail("user1-mock@hh.se");
         then(this.accountRepository).should().save(existingAccount);
+        then(this.accountPrincipalCache).should().invalidate("user1-mock@hh.se");
     }
 
     @Test
@@ -304,7 +311,7 @@ class AccountServiceMockTest {
         Account account = this.accounts.get(1);
 
         // Given
-        given(this.accountRepository.findAccountByEmail("user1-mock@hh.se")).willReturn(Optional.of(account));
+        given(this.accountRepository.findWithJobsByEmail("user1-mock@hh.se")).willReturn(Optional.of(account));
         willDoNothing().given(this.accountRepository).delete(account);
 
         // When
@@ -312,13 +319,14 @@ class AccountServiceMockTest {
 
         // Then
         then(this.accountRepository).should().delete(account);
+        then(this.accountPrincipalCache).should().invalidate("user1-mock@hh.se");
     }
 
     @Test
     @DisplayName("DELETE - deleteAccount - Non-Existing Email - Exception")
     void test_DeleteAccount_NonExistentId() {
         // Given
-        given(this.accountRepository.findAccountByEmail("abc")).willReturn(Optional.empty());
+        given(this.accountRepository.findWithJobsByEmail("abc")).willReturn(Optional.empty());
 
         // When
         Throwable thrown = assertThrows(ObjectNotFoundException.class,
@@ -330,6 +338,45 @@ class AccountServiceMockTest {
                 .hasMessage("Could not find account with Email abc");
 
         // Verify
-        then(this.accountRepository).should().findAccountByEmail("abc");
+        then(this.accountRepository).should().findWithJobsByEmail("abc");
+    }
+
+    @Test
+    @DisplayName("GET - loadUserByUsername - Success")
+    void test_LoadUserByUsername_Success() {
+        AccountDtoCredentials credentials = new AccountDtoCredentials("user1-mock@hh.se", "{bcrypt}hash", "admin user", 2, true);
+
+        // Given
+        given(this.accountPrincipalCache.get(eq("user1-mock@hh.se"), any())).willAnswer(invocation ->
+                invocation.<Supplier<Optional<AccountDtoCredentials>>>getArgument(1).get());
+        given(this.accountRepository.getAccountCredentialsByEmail("user1-mock@hh.se")).willReturn(Optional.of(credentials));
+
+        // When
+        MyAccountPrincipal principal = (MyAccountPrincipal) this.accountService.loadUserByUsername("user1-mock@hh.se");
+
+        // Then
+        assertEquals("user1-mock@hh.se", principal.getUsername());
+        assertEquals("{bcrypt}hash", principal.getPassword());
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_admin", "ROLE_user");
+        assertEquals(new AccountDtoView("user1-mock@hh.se", "admin user", 2, true), principal.toAccountDtoView());
+
+        // Verify
+        then(this.accountRepository).should(never()).findAccountByEmail("user1-mock@hh.se");
+    }
+
+    @Test
+    @DisplayName("GET - loadUserByUsername - Non-Existing Email - Exception")
+    void test_LoadUserByUsername_NonExistentEmail() {
+        // Given
+        given(this.accountPrincipalCache.get(eq("abc"), any())).willAnswer(invocation ->
+                invocation.<Supplier<Optional<AccountDtoCredentials>>>getArgument(1).get());
+        given(this.accountRepository.getAccountCredentialsByEmail("abc")).willReturn(Optional.empty());
+
+        // When
+        Throwable thrown = assertThrows(UsernameNotFoundException.class,
+                () -> this.accountService.loadUserByUsername("abc"));
+
+        // Then
+        assertThat(thrown).hasMessage("email abc is not found");
     }
 }
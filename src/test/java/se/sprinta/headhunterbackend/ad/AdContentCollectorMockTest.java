@@ -0,0 +1,73 @@
+package se.sprinta.headhunterbackend.ad;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class AdContentCollectorMockTest {
+
+    @Mock
+    private AdContentRepository adContentRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdContentCollector adContentCollector;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.adContentCollector = new AdContentCollector(this.adContentRepository, this.meterRegistry, 60, 2);
+    }
+
+    @Test
+    @DisplayName("collect - Unreferenced Content - Deleted After Grace Period")
+    void test_Collect_UnreferencedContent_DeletedAfterGracePeriod() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(60);
+
+        // Given
+        given(this.adContentRepository.findHashesAfter(eq(""), any(Pageable.class))).willReturn(List.of());
+        given(this.adContentRepository.findUnreferencedHashes(any(LocalDateTime.class), any(Pageable.class))).willReturn(List.of("a", "b"));
+        given(this.adContentRepository.deleteUnreferenced(eq(List.of("a", "b")), any(LocalDateTime.class))).willReturn(2);
+
+        // When
+        this.adContentCollector.collect();
+
+        // Then
+        then(this.adContentRepository).should().deleteUnreferenced(eq(List.of("a", "b")), argThat(cutoff -> !cutoff.isBefore(before)
+                && cutoff.isBefore(LocalDateTime.now().minusMinutes(59))));
+        assertEquals(2.0, this.meterRegistry.get("ad.content.collected").counter().count());
+    }
+
+    @Test
+    @DisplayName("collect - Every Sweep - Next Batch Recounted And Wrapped Around")
+    void test_Collect_EverySweep_NextBatchRecountedAndWrappedAround() {
+        // Given
+        given(this.adContentRepository.findHashesAfter(eq(""), any(Pageable.class))).willReturn(List.of("a", "b"));
+        given(this.adContentRepository.findHashesAfter(eq("b"), any(Pageable.class))).willReturn(List.of("c"));
+        given(this.adContentRepository.findUnreferencedHashes(any(LocalDateTime.class), any(Pageable.class))).willReturn(List.of());
+
+        // When
+        this.adContentCollector.collect();
+        this.adContentCollector.collect();
+        this.adContentCollector.collect();
+
+        // Then
+        then(this.adContentRepository).should(times(2)).recountReferences(List.of("a", "b"));
+        then(this.adContentRepository).should().recountReferences(List.of("c"));
+        then(this.adContentRepository).should(never()).deleteUnreferenced(any(), any());
+    }
+}
@@ -0,0 +1,83 @@
+package se.sprinta.headhunterbackend.ad;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import se.sprinta.headhunterbackend.system.id.BinaryUuidType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class AdContentMigrationMockTest {
+
+    @Mock
+    private AdRepository adRepository;
+
+    private AdContentMigration adContentMigration;
+
+    private final String idA = "0192a3b4-c5d6-7000-8000-00000000000a";
+    private final String idB = "0192a3b4-c5d6-7000-8000-00000000000b";
+    private final String idC = "0192a3b4-c5d6-7000-8000-00000000000c";
+
+    @BeforeEach
+    void setUp() {
+        this.adContentMigration = new AdContentMigration(this.adRepository, true, 2);
+    }
+
+    @Test
+    @DisplayName("migrateBatch - Text, Plain And Compressed Rows - Moved In Batches")
+    void test_MigrateBatch_TextPlainAndCompressedRows_MovedInBatches() {
+        String htmlCode1 = HtmlCodeConverterTest.htmlAd(10);
+        String htmlCode2 = HtmlCodeConverterTest.htmlAd(5);
+        String htmlCode3 = "<!DOCTYPE html><html><body>ad</body></html>";
+
+        // Given
+        given(this.adRepository.getLegacyHtmlCodesAfter(new byte[BinaryUuidType.LENGTH], 2)).willReturn(List.of(
+                new Object[]{BinaryUuidType.toBytes(this.idA), htmlCode1.getBytes(StandardCharsets.UTF_8)},
+                new Object[]{BinaryUuidType.toBytes(this.idB), HtmlCodeConverter.encode(htmlCode2)}));
+        given(this.adRepository.getLegacyHtmlCodesAfter(BinaryUuidType.toBytes(this.idB), 2)).willReturn(List.<Object[]>of(
+                new Object[]{BinaryUuidType.toBytes(this.idC), htmlCode3}));
+        given(this.adRepository.moveToContent(anyString(), anyString())).willReturn(true);
+
+        // When
+        this.adContentMigration.migrateBatch();
+        assertThat(this.adContentMigration.isFinished()).isFalse();
+        this.adContentMigration.migrateBatch();
+        this.adContentMigration.migrateBatch(); // Finished, so a no-op
+
+        // Then
+        assertThat(this.adContentMigration.isFinished()).isTrue();
+        assertEquals(3, this.adContentMigration.getMigratedRows());
+
+        then(this.adRepository).should().moveToContent(this.idA, htmlCode1);
+        then(this.adRepository).should().moveToContent(this.idB, htmlCode2);
+        then(this.adRepository).should().moveToContent(this.idC, htmlCode3);
+        then(this.adRepository).should(times(2)).getLegacyHtmlCodesAfter(any(byte[].class), eq(2));
+    }
+
+    @Test
+    @DisplayName("migrateBatch - Ad Saved In Between - Not Counted")
+    void test_MigrateBatch_AdSavedInBetween_NotCounted() {
+        // Given
+        given(this.adRepository.getLegacyHtmlCodesAfter(new byte[BinaryUuidType.LENGTH], 2)).willReturn(List.<Object[]>of(
+                new Object[]{BinaryUuidType.toBytes(this.idA), "<!DOCTYPE html><html><body>ad</body></html>"}));
+        given(this.adRepository.moveToContent(this.idA, "<!DOCTYPE html><html><body>ad</body></html>")).willReturn(false);
+
+        // When
+        this.adContentMigration.migrateBatch();
+
+        // Then
+        assertThat(this.adContentMigration.isFinished()).isTrue();
+        assertEquals(0, this.adContentMigration.getMigratedRows());
+    }
+}
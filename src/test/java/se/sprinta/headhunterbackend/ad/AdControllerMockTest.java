@@ -19,9 +19,13 @@ import se.sprinta.headhunterbackend.TestUtils;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoForm;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryPageDtoView;
 import se.sprinta.headhunterbackend.system.StatusCode;
+import se.sprinta.headhunterbackend.system.exception.InvalidCursorException;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -211,6 +215,63 @@ class AdControllerMockTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    @DisplayName("GET - getAdSummariesByJobId - Success")
+    void test_GetAdSummariesByJobId_Success() throws Exception {
+        AdSummaryPageDtoView adSummaryPage = new AdSummaryPageDtoView(
+                List.of(new AdSummaryDtoView("id 2", LocalDate.of(2024, 7, 2), 200, "hash 2", "excerpt 2", 40)), "cursor 2");
+
+        // Given
+        given(this.adService.getAdSummariesByJobId(1L, "cursor 1", 1)).willReturn(adSummaryPage);
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlAd + "/getAdSummariesByJobId" + "/1")
+                        .param("cursor", "cursor 1")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Get Ad Summaries by Job Id Success"))
+                .andExpect(jsonPath("$.data.ads[0].id").value("id 2"))
+                .andExpect(jsonPath("$.data.ads[0].dateCreated").value("2024-07-02"))
+                .andExpect(jsonPath("$.data.ads[0].size").value(200))
+                .andExpect(jsonPath("$.data.ads[0].contentHash").value("hash 2"))
+                .andExpect(jsonPath("$.data.ads[0].excerpt").value("excerpt 2"))
+                .andExpect(jsonPath("$.data.ads[0].wordCount").value(40))
+                .andExpect(jsonPath("$.data.ads[0].htmlCode").doesNotExist())
+                .andExpect(jsonPath("$.data.nextCursor").value("cursor 2"));
+    }
+
+    @Test
+    @DisplayName("GET - getAdSummariesByJobId - Invalid Cursor - Exception")
+    void test_GetAdSummariesByJobId_InvalidCursor_Exception() throws Exception {
+        // Given
+        given(this.adService.getAdSummariesByJobId(1L, "abc", 20)).willThrow(new InvalidCursorException("abc"));
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlAd + "/getAdSummariesByJobId" + "/1")
+                        .param("cursor", "abc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Invalid cursor abc"));
+    }
+
+    @Test
+    @DisplayName("GET - getHtmlCode - Success")
+    void test_GetHtmlCode_Success() throws Exception {
+        // Given
+        given(this.adService.getHtmlCode("id 1")).willReturn(this.ads.get(0).getHtmlCode());
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlAd + "/getHtmlCode" + "/id 1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Get Html Code Success"))
+                .andExpect(jsonPath("$.data").value(this.ads.get(0).getHtmlCode()));
+    }
+
     @Test
     @DisplayName("GET - getNumberOfAdsByJobId - Success")
     void test_GetNumberOfAdsByJobId_Success() throws Exception {
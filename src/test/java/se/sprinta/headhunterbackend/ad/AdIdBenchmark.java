@@ -0,0 +1,123 @@
+package se.sprinta.headhunterbackend.ad;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.sprinta.headhunterbackend.system.id.BinaryUuidType;
+import se.sprinta.headhunterbackend.system.id.Uuid7;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Inserts a million ads into MySQL twice, once with the random version 4 UUIDs that Ad used to have as CHAR(36), and
+ * once with the version 7 UUIDs as BINARY(16) that it has now, and reports the insert throughput and the size of the
+ * table and its indexes. The tables have the primary key and idx_ad_job_date_id of the ad table, and a short html_code,
+ * so that the ids are a realistic part of every row.
+ * <p>
+ * Random ids insert slower once the primary key no longer fits in the buffer pool, so the difference grows with the
+ * number of ads, which can be changed with -Dbenchmark.ads. It uses the database of the integration tests, see
+ * application-integration-test.yml, and is skipped if it isn't set.
+ * <p>
+ * Tagged "benchmark", so it only runs with mvn test -P benchmark. Every run adds a line to
+ * target/benchmark/ad-id.csv.
+ */
+
+public class AdIdBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdIdBenchmark.class);
+
+    private static final int ADS = Integer.getInteger("benchmark.ads", 1_000_000);
+    private static final int BATCH_SIZE = 1000;
+    private static final int JOBS = 10_000;
+
+    private static final Path REPORT = Path.of("target", "benchmark", "ad-id.csv");
+
+    @Test
+    @Tag("benchmark")
+    void runBenchmarks() throws SQLException, IOException {
+        String hostname = System.getenv("DB_INTEGRATION_TESTS_HOSTNAME");
+        assumeTrue(hostname != null, "DB_INTEGRATION_TESTS_HOSTNAME isn't set");
+
+        String url = "jdbc:mysql://" + hostname + ":" + System.getenv("DB_PORT") + "/" +
+                System.getenv("DB_INTEGRATION_TESTS_DATABASE_NAME") +
+                "?createDatabaseIfNotExist=true&useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+
+        try (Connection connection = DriverManager.getConnection(url,
+                System.getenv("DB_ADMIN_USERNAME"), System.getenv("DB_ADMIN_PASSWORD"))) {
+            run(connection, "ad_id_benchmark_v4", "CHAR(36)", () -> UUID.randomUUID().toString());
+            run(connection, "ad_id_benchmark_v7", "BINARY(" + BinaryUuidType.LENGTH + ")",
+                    () -> BinaryUuidType.toBytes(Uuid7.next().toString()));
+        }
+    }
+
+    private void run(Connection connection, String table, String idType, Supplier<Object> ids) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id " + idType + " NOT NULL PRIMARY KEY, job_id BIGINT NOT NULL, " +
+                    "date_created DATE NOT NULL, html_code VARBINARY(255), " +
+                    "INDEX idx_ad_job_date_id (job_id, date_created, id)) ENGINE=InnoDB");
+        }
+
+        byte[] htmlCode = HtmlCodeConverter.encode("<!DOCTYPE html><html><body><p>Ad</p></body></html>");
+        LocalDate today = LocalDate.now();
+
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (id, job_id, date_created, html_code) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= ADS; i++) {
+                insert.setObject(1, ids.get());
+                insert.setLong(2, i % JOBS);
+                insert.setObject(3, today);
+                insert.setBytes(4, htmlCode);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0 || i == ADS) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        connection.setAutoCommit(true);
+
+        long dataLength;
+        long indexLength;
+        try (Statement statement = connection.createStatement()) {
+            // The sizes in information_schema are only updated by ANALYZE TABLE
+            statement.execute("ANALYZE TABLE " + table);
+            try (ResultSet rs = statement.executeQuery("SELECT data_length, index_length FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = '" + table + "'")) {
+                rs.next();
+                dataLength = rs.getLong(1);
+                indexLength = rs.getLong(2);
+            }
+            statement.execute("DROP TABLE " + table);
+        }
+
+        double throughput = ADS / seconds;
+        LOGGER.info("{}: {} ads in {} s, {} ads/s, data {} MB, indexes {} MB", table, ADS, String.format("%.1f", seconds),
+                String.format("%.0f", throughput), dataLength >> 20, indexLength >> 20);
+
+        Files.createDirectories(REPORT.getParent());
+        if (Files.notExists(REPORT))
+            Files.writeString(REPORT, "timestamp,table,ads,seconds,throughput,data_length,index_length\n");
+        Files.writeString(REPORT, String.format("%s,%s,%d,%.1f,%.0f,%d,%d%n",
+                Instant.now(), table, ADS, seconds, throughput, dataLength, indexLength), StandardOpenOption.APPEND);
+    }
+}
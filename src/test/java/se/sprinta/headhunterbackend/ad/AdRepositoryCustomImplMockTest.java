@@ -0,0 +1,141 @@
+package se.sprinta.headhunterbackend.ad;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class AdRepositoryCustomImplMockTest {
+
+    private static final String HTML_CODE_1 = "<!DOCTYPE html><html><body>ad 1</body></html>";
+    private static final String HTML_CODE_2 = "<!DOCTYPE html><html><body>ad 2</body></html>";
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private AdContentRepository adContentRepository;
+
+    private AdRepositoryCustomImpl adRepositoryCustomImpl;
+
+    @BeforeEach
+    void setUp() {
+        this.adRepositoryCustomImpl = new AdRepositoryCustomImpl(this.entityManager, this.adContentRepository);
+    }
+
+    @Test
+    @DisplayName("saveAll - Identical Ads - Content Stored Once")
+    void test_SaveAll_IdenticalAds_ContentStoredOnce() {
+        Ad ad1 = new Ad(HTML_CODE_1);
+        Ad ad2 = new Ad(HTML_CODE_1);
+        Ad ad3 = new Ad(HTML_CODE_2);
+        String hash1 = AdContent.hash(HTML_CODE_1);
+        String hash2 = AdContent.hash(HTML_CODE_2);
+        Map<String, String> htmlCodeByHash = Map.of(hash1, HTML_CODE_1, hash2, HTML_CODE_2);
+
+        // Given
+        given(this.entityManager.getReference(eq(AdContent.class), anyString()))
+                .willAnswer(invocation -> new AdContent(htmlCodeByHash.get(invocation.<String>getArgument(1))));
+
+        // When
+        List<Ad> savedAds = this.adRepositoryCustomImpl.saveAll(List.of(ad1, ad2, ad3));
+
+        // Then
+        assertEquals(List.of(ad1, ad2, ad3), savedAds);
+        assertEquals(hash1, ad1.getContent().getHash());
+        assertEquals(hash1, ad2.getContent().getHash());
+        assertEquals(hash2, ad3.getContent().getHash());
+        assertEquals(HTML_CODE_1, ad2.getHtmlCode());
+
+        ArgumentCaptor<byte[]> htmlCodeCaptor = ArgumentCaptor.forClass(byte[].class);
+        then(this.adContentRepository).should().insertOrAddReferences(eq(hash1), htmlCodeCaptor.capture(), eq(HTML_CODE_1.length()), eq("ad 1"), eq(2), eq(2L), any(LocalDateTime.class));
+        assertEquals(HTML_CODE_1, HtmlCodeConverter.decode(htmlCodeCaptor.getValue()));
+        then(this.adContentRepository).should().insertOrAddReferences(eq(hash2), any(), anyInt(), any(), anyInt(), eq(1L), any(LocalDateTime.class));
+        then(this.entityManager).should(times(3)).persist(any(Ad.class));
+    }
+
+    @Test
+    @DisplayName("save - Existing Content - Only Reference Added")
+    void test_Save_ExistingContent_OnlyReferenceAdded() {
+        String hash1 = AdContent.hash(HTML_CODE_1);
+
+        // Given
+        given(this.adContentRepository.addReferences(eq(hash1), eq(1L), any(LocalDateTime.class))).willReturn(1);
+        given(this.entityManager.getReference(AdContent.class, hash1)).willReturn(new AdContent(HTML_CODE_1));
+
+        // When
+        this.adRepositoryCustomImpl.save(new Ad(HTML_CODE_1));
+
+        // Then
+        then(this.adContentRepository).should(never()).insertOrAddReferences(any(), any(), anyInt(), any(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("save - Changed Html Code - Previous Content Released")
+    void test_Save_ChangedHtmlCode_PreviousContentReleased() {
+        Ad ad = new Ad("id 1", null);
+        ad.setContent(new AdContent(HTML_CODE_1));
+        ad.setHtmlCode(HTML_CODE_2);
+        String hash2 = AdContent.hash(HTML_CODE_2);
+
+        // Given
+        given(this.adContentRepository.addReferences(eq(hash2), eq(1L), any(LocalDateTime.class))).willReturn(1);
+        given(this.entityManager.getReference(AdContent.class, hash2)).willReturn(new AdContent(HTML_CODE_2));
+        given(this.entityManager.merge(ad)).willReturn(ad);
+
+        // When
+        Ad savedAd = this.adRepositoryCustomImpl.save(ad);
+
+        // Then
+        assertSame(ad, savedAd);
+        assertEquals(hash2, savedAd.getContent().getHash());
+        then(this.adContentRepository).should().removeReferences(AdContent.hash(HTML_CODE_1), 1L);
+    }
+
+    @Test
+    @DisplayName("save - Unchanged Html Code - Content Untouched")
+    void test_Save_UnchangedHtmlCode_ContentUntouched() {
+        Ad ad = new Ad("id 1", HTML_CODE_1);
+        ad.setContent(new AdContent(HTML_CODE_1));
+
+        // Given
+        given(this.entityManager.merge(ad)).willReturn(ad);
+
+        // When
+        this.adRepositoryCustomImpl.save(ad);
+
+        // Then
+        then(this.adContentRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("delete - Ad With Content - Reference Released")
+    void test_Delete_AdWithContent_ReferenceReleased() {
+        Ad ad = new Ad("id 1", null);
+        ad.setContent(new AdContent(HTML_CODE_1));
+
+        // Given
+        given(this.entityManager.contains(ad)).willReturn(true);
+
+        // When
+        this.adRepositoryCustomImpl.delete(ad);
+
+        // Then
+        then(this.entityManager).should().remove(ad);
+        then(this.adContentRepository).should().removeReferences(AdContent.hash(HTML_CODE_1), 1L);
+    }
+}
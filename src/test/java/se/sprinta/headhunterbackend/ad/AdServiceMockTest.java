@@ -8,16 +8,21 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import se.sprinta.headhunterbackend.MockDatabaseInitializer;
 import se.sprinta.headhunterbackend.account.Account;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoForm;
 import se.sprinta.headhunterbackend.ad.dto.AdDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryDtoView;
+import se.sprinta.headhunterbackend.ad.dto.AdSummaryPageDtoView;
 import se.sprinta.headhunterbackend.job.Job;
 import se.sprinta.headhunterbackend.job.JobRepository;
+import se.sprinta.headhunterbackend.system.exception.InvalidCursorException;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +33,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 
 @ActiveProfiles("test")
 @ExtendWith(MockitoExtension.class)
@@ -223,12 +230,75 @@ public class AdServiceMockTest {
         then(this.adRepository).should().findById("invalid id");
     }
 
+    @Test
+    @DisplayName("GET - getAdSummariesByJobId - First Page - Cursor To Last Ad On Page")
+    void test_GetAdSummariesByJobId_FirstPage_CursorToLastAdOnPage() {
+        List<AdSummaryDtoView> adSummaries = List.of(
+                new AdSummaryDtoView("id 3", LocalDate.of(2024, 7, 3), 100, "hash 3", "excerpt 3", 20),
+                new AdSummaryDtoView("id 2", LocalDate.of(2024, 7, 2), 200, "hash 2", "excerpt 2", 40),
+                new AdSummaryDtoView("id 1", LocalDate.of(2024, 7, 1), 300, "hash 1", "excerpt 1", 60));
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(this.jobs.get(0)));
+        given(this.adRepository.getAdSummariesByJobId(1L, PageRequest.ofSize(3))).willReturn(adSummaries);
+
+        // When
+        AdSummaryPageDtoView adSummaryPage = this.adService.getAdSummariesByJobId(1L, null, 2);
+
+        // Then
+        assertEquals(adSummaries.subList(0, 2), adSummaryPage.ads());
+        assertEquals(new AdService.Cursor(LocalDate.of(2024, 7, 2), "id 2"), AdService.decodeCursor(adSummaryPage.nextCursor()));
+    }
+
+    @Test
+    @DisplayName("GET - getAdSummariesByJobId - Last Page - Started After Cursor Without Next Cursor")
+    void test_GetAdSummariesByJobId_LastPage_StartedAfterCursorWithoutNextCursor() {
+        AdSummaryDtoView adSummary2 = new AdSummaryDtoView("id 2", LocalDate.of(2024, 7, 2), 200, "hash 2", "excerpt 2", 40);
+        AdSummaryDtoView adSummary1 = new AdSummaryDtoView("id 1", LocalDate.of(2024, 7, 1), 300, "hash 1", "excerpt 1", 60);
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(this.jobs.get(0)));
+        given(this.adRepository.getAdSummariesByJobIdBefore(1L, LocalDate.of(2024, 7, 2), "id 2", PageRequest.ofSize(3)))
+                .willReturn(List.of(adSummary1));
+
+        // When
+        AdSummaryPageDtoView adSummaryPage = this.adService.getAdSummariesByJobId(1L, AdService.encodeCursor(adSummary2), 2);
+
+        // Then
+        assertEquals(List.of(adSummary1), adSummaryPage.ads());
+        assertThat(adSummaryPage.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("GET - getAdSummariesByJobId - Invalid Cursor - Exception")
+    void test_GetAdSummariesByJobId_InvalidCursor_Exception() {
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(this.jobs.get(0)));
+
+        // When
+        Throwable thrown = assertThrows(InvalidCursorException.class,
+                () -> this.adService.getAdSummariesByJobId(1L, "not a cursor", 20));
+
+        // Then
+        assertThat(thrown).hasMessage("Invalid cursor not a cursor");
+    }
+
+    @Test
+    @DisplayName("GET - getHtmlCode - Invalid Ad Id - Exception")
+    void test_GetHtmlCode_InvalidAdId_Exception() {
+        // When
+        Throwable thrown = assertThrows(ObjectNotFoundException.class,
+                () -> this.adService.getHtmlCode("invalid id"));
+
+        // Then
+        assertThat(thrown).hasMessage("Could not find ad with Id invalid id");
+    }
+
     @Test
     @DisplayName("GET - getNumberOfAdsByJobId - Success")
     void test_getNumberOfAdsByJobId_Success() {
         // Given
-        given(this.jobRepository.findById(1L)).willReturn(Optional.of(this.jobs.get(0)));
-        given(this.adRepository.getNumberOfAdsByJobId(1L)).willReturn(2L);
+        given(this.jobRepository.getNumberOfAdsById(1L)).willReturn(Optional.of(2));
 
         // When
         long numberOfAds = this.adService.getNumberOfAdsByJobId(1L);
@@ -237,7 +307,9 @@ public class AdServiceMockTest {
         assertEquals(numberOfAds, 2);
 
         // Verify
-        then(this.jobRepository).should().findById(1L);
+        then(this.jobRepository).should().getNumberOfAdsById(1L);
+        then(this.jobRepository).should(never()).findById(1L);
+        then(this.adRepository).shouldHaveNoInteractions();
     }
 
     @Test
@@ -261,7 +333,8 @@ public class AdServiceMockTest {
         ArgumentCaptor<Ad> adArgumentCaptor = forClass(Ad.class);
 
         // Given
-        given(this.jobRepository.findById(1L)).willReturn(Optional.of(this.jobs.get(0)));
+        given(this.jobRepository.incrementNumberOfAds(1L, 1)).willReturn(1);
+        given(this.jobRepository.getReferenceById(1L)).willReturn(this.jobs.get(0));
         given(this.adRepository.save(adArgumentCaptor.capture())).willAnswer(invocation -> invocation.getArgument(0));
 
         // When
@@ -274,9 +347,12 @@ public class AdServiceMockTest {
 
         assertEquals(savedAd.getHtmlCode(), capturedAd.getHtmlCode());
         assertEquals(savedAd.getDateCreated(), capturedAd.getDateCreated());
+        assertEquals(this.jobs.get(0), capturedAd.getJob());
 
         // Then
-        then(this.jobRepository).should().findById(1L);
+        then(this.jobRepository).should().incrementNumberOfAds(1L, 1);
+        then(this.jobRepository).should().getReferenceById(1L);
+        then(this.jobRepository).should(never()).findById(1L);
         then(this.adRepository).should().save(adArgumentCaptor.capture());
     }
 
@@ -286,7 +362,7 @@ public class AdServiceMockTest {
         AdDtoForm adDtoForm = new AdDtoForm("htmlCode 1");
 
         // Given
-        given(this.jobRepository.findById(Long.MAX_VALUE)).willThrow(new ObjectNotFoundException("ad", Long.MAX_VALUE));
+        given(this.jobRepository.incrementNumberOfAds(Long.MAX_VALUE, 1)).willReturn(0);
 
         // When
         Throwable thrown = assertThrows(ObjectNotFoundException.class,
@@ -295,10 +371,74 @@ public class AdServiceMockTest {
         // Then
         assertThat(thrown)
                 .isInstanceOf(ObjectNotFoundException.class)
-                .hasMessage("Could not find ad with Id " + Long.MAX_VALUE);
+                .hasMessage("Could not find job with Id " + Long.MAX_VALUE);
+
+        // Then
+        then(this.jobRepository).should().incrementNumberOfAds(Long.MAX_VALUE, 1);
+        then(this.adRepository).should(never()).save(any(Ad.class));
+    }
+
+    @Test
+    @DisplayName("POST - addGeneratedAd - Success")
+    void test_AddGeneratedAd_Success() {
+        Job job = new Job();
+        job.setId(1L);
+
+        // Given
+        given(this.jobRepository.incrementNumberOfAds(1L, 1)).willReturn(1);
+        given(this.adRepository.save(any(Ad.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Ad savedAd = this.adService.addGeneratedAd(job, "htmlCode 1");
+
+        // Then
+        assertEquals("htmlCode 1", savedAd.getHtmlCode());
+        assertEquals(job, savedAd.getJob());
+        assertEquals(1, job.getNumberOfAds());
+
+        // Verify
+        then(this.jobRepository).should().incrementNumberOfAds(1L, 1);
+        then(this.adRepository).should().save(savedAd);
+    }
+
+    @Test
+    @DisplayName("POST - addGeneratedAd - Job Deleted - Exception")
+    void test_AddGeneratedAd_JobDeleted_Exception() {
+        Job job = new Job();
+        job.setId(1L);
+
+        // Given
+        given(this.jobRepository.incrementNumberOfAds(1L, 1)).willReturn(0);
+
+        // When
+        Throwable thrown = assertThrows(ObjectNotFoundException.class,
+                () -> this.adService.addGeneratedAd(job, "htmlCode 1"));
 
         // Then
-        then(this.jobRepository).should().findById(Long.MAX_VALUE);
+        assertThat(thrown)
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find job with Id 1");
+
+        // Verify
+        then(this.adRepository).should(never()).save(any(Ad.class));
+    }
+
+    @Test
+    @DisplayName("DELETE - delete - Success")
+    void test_Delete_NumberOfAdsDecremented() {
+        Job job = this.jobs.get(0);
+        Ad ad = new Ad("htmlCode 1");
+        ad.setJob(job);
+
+        // Given
+        given(this.adRepository.findById("id")).willReturn(Optional.of(ad));
+
+        // When
+        this.adService.delete("id");
+
+        // Verify
+        then(this.adRepository).should().delete(ad);
+        then(this.jobRepository).should().decrementNumberOfAds(job.getId(), 1);
     }
 
     @Test
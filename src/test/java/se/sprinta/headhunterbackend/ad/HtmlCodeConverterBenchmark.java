@@ -0,0 +1,90 @@
+package se.sprinta.headhunterbackend.ad;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What HtmlCodeConverter adds to AdRepository.getAdDtosByJobId: reading the html_code of every ad of a job, as plain
+ * TEXT before and as compressed bytes now. The time saved on reading 5-10x fewer bytes from disk, the buffer pool and
+ * the network depends on the database, so it isn't part of this benchmark; runBenchmarks logs the stored sizes.
+ * <p>
+ * Tagged "benchmark", so it only runs with mvn test -P benchmark.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlCodeConverterBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HtmlCodeConverterBenchmark.class);
+
+    // The number of ads of a job, each about 6 KB of HTML
+    @Param({"1", "20"})
+    public int ads;
+
+    private byte[][] plainRows;
+    private byte[][] compressedRows;
+    private String htmlCode;
+
+    @Setup
+    public void setUp() {
+        this.htmlCode = HtmlCodeConverterTest.htmlAd(30);
+        this.plainRows = new byte[this.ads][];
+        this.compressedRows = new byte[this.ads][];
+        for (int i = 0; i < this.ads; i++) {
+            this.plainRows[i] = (this.htmlCode + i).getBytes(StandardCharsets.UTF_8);
+            this.compressedRows[i] = HtmlCodeConverter.encode(this.htmlCode + i);
+        }
+    }
+
+    @Benchmark
+    public void readPlain(Blackhole blackhole) {
+        for (byte[] row : this.plainRows) blackhole.consume(new String(row, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void readCompressed(Blackhole blackhole) {
+        for (byte[] row : this.compressedRows) blackhole.consume(HtmlCodeConverter.decode(row));
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return HtmlCodeConverter.encode(this.htmlCode);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void runBenchmarks() throws RunnerException {
+        String htmlCode = HtmlCodeConverterTest.htmlAd(30);
+        LOGGER.info("Stored html_code per ad: {} bytes as TEXT, {} bytes compressed",
+                htmlCode.getBytes(StandardCharsets.UTF_8).length, HtmlCodeConverter.encode(htmlCode).length);
+
+        new Runner(new OptionsBuilder()
+                .include(HtmlCodeConverterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
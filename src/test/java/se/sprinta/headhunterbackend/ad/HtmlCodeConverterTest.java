@@ -0,0 +1,63 @@
+package se.sprinta.headhunterbackend.ad;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HtmlCodeConverterTest {
+
+    private final HtmlCodeConverter htmlCodeConverter = new HtmlCodeConverter();
+
+    @Test
+    @DisplayName("convertToDatabaseColumn - Html Ad - Deflated And Read Back")
+    void test_ConvertToDatabaseColumn_HtmlAd_DeflatedAndReadBack() {
+        String htmlCode = htmlAd(20);
+
+        byte[] stored = this.htmlCodeConverter.convertToDatabaseColumn(htmlCode);
+
+        assertEquals(HtmlCodeConverter.FORMAT_DEFLATE, stored[0]);
+        assertThat(stored.length).isLessThan(htmlCode.getBytes(StandardCharsets.UTF_8).length / 5);
+        assertEquals(htmlCode, this.htmlCodeConverter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    @DisplayName("convertToDatabaseColumn - Short Html - Stored Plain")
+    void test_ConvertToDatabaseColumn_ShortHtml_StoredPlain() {
+        byte[] stored = this.htmlCodeConverter.convertToDatabaseColumn("<p>Jobb</p>");
+
+        assertEquals(HtmlCodeConverter.FORMAT_PLAIN, stored[0]);
+        assertEquals(12, stored.length);
+        assertEquals("<p>Jobb</p>", this.htmlCodeConverter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    @DisplayName("convertToEntityAttribute - Old Text Row - Read As Is")
+    void test_ConvertToEntityAttribute_OldTextRow_ReadAsIs() {
+        String htmlCode = "<!DOCTYPE html><html><body>Sök jobbet nu</body></html>";
+        byte[] stored = htmlCode.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(HtmlCodeConverter.isEncoded(stored)).isFalse();
+        assertEquals(htmlCode, this.htmlCodeConverter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    @DisplayName("convert - Null And Empty - Kept")
+    void test_Convert_NullAndEmpty_Kept() {
+        assertNull(this.htmlCodeConverter.convertToDatabaseColumn(null));
+        assertNull(this.htmlCodeConverter.convertToEntityAttribute(null));
+        assertEquals("", this.htmlCodeConverter.convertToEntityAttribute(this.htmlCodeConverter.convertToDatabaseColumn("")));
+    }
+
+    static String htmlAd(int sections) {
+        StringBuilder htmlCode = new StringBuilder("<!DOCTYPE html><html><head><style>body { font-family: sans-serif; }</style></head><body>");
+        for (int i = 0; i < sections; i++)
+            htmlCode.append("<h2>Avsnitt ").append(i).append("</h2><p>Vi söker en utvecklare som kan Java, Spring Boot och React, ")
+                    .append("och som trivs med att arbeta i team.</p><ul><li>Java</li><li>React</li></ul>\n");
+        return htmlCode.append("</body></html>").toString();
+    }
+}
@@ -0,0 +1,184 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.utils.ExpiringLruCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingChatClientTest {
+
+    @Mock
+    private ChatClient delegate;
+
+    private MeterRegistry meterRegistry;
+
+    private CachingChatClient cachingChatClient;
+
+    private ChatRequest chatRequest;
+
+    private ChatResponse chatResponse;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cachingChatClient = new CachingChatClient(this.delegate, new ExpiringLruCache<>(10, Duration.ofMinutes(60)), this.meterRegistry);
+
+        this.chatRequest = new ChatRequest("gpt-4", List.of(
+                new Message("system", "instruction 1"),
+                new Message("user", "description 1")));
+
+        this.chatResponse = new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", "<!DOCTYPE html><html></html>"))));
+    }
+
+    @Test
+    @DisplayName("generate - Same Request Twice - Second Call Is A Cache Hit")
+    void test_Generate_SameRequestTwice_CacheHit() {
+        // Given
+        given(this.delegate.generate(this.chatRequest)).willReturn(this.chatResponse);
+
+        // When
+        ChatResponse first = this.cachingChatClient.generate(this.chatRequest);
+        ChatResponse second = this.cachingChatClient.generate(new ChatRequest("gpt-4", List.of(
+                new Message("system", "instruction 1"),
+                new Message("user", "description 1"))));
+
+        // Then
+        assertEquals(this.chatResponse, first);
+        assertEquals(this.chatResponse, second);
+        assertEquals(1, this.meterRegistry.counter("ai.completion.cache", "result", "hit").count());
+        assertEquals(1, this.meterRegistry.counter("ai.completion.cache", "result", "miss").count());
+
+        // Verify
+        then(this.delegate).should(times(1)).generate(any(ChatRequest.class));
+    }
+
+    @Test
+    @DisplayName("generate - Different Description - Cache Miss")
+    void test_Generate_DifferentDescription_CacheMiss() {
+        ChatRequest otherRequest = new ChatRequest("gpt-4", List.of(
+                new Message("system", "instruction 1"),
+                new Message("user", "description 2")));
+
+        // Given
+        given(this.delegate.generate(any(ChatRequest.class))).willReturn(this.chatResponse);
+
+        // When
+        this.cachingChatClient.generate(this.chatRequest);
+        this.cachingChatClient.generate(otherRequest);
+
+        // Then
+        assertEquals(2, this.meterRegistry.counter("ai.completion.cache", "result", "miss").count());
+
+        // Verify
+        then(this.delegate).should(times(2)).generate(any(ChatRequest.class));
+    }
+
+    @Test
+    @DisplayName("generate - Opt Out - Skips Lookup But Refreshes Cache")
+    void test_Generate_OptOut_RefreshesCache() {
+        ChatResponse newResponse = new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", "<!DOCTYPE html><html>new</html>"))));
+
+        // Given
+        given(this.delegate.generate(this.chatRequest)).willReturn(this.chatResponse);
+        given(this.delegate.generate(this.chatRequest.withoutCache())).willReturn(newResponse);
+
+        // When
+        this.cachingChatClient.generate(this.chatRequest);
+        ChatResponse bypassed = this.cachingChatClient.generate(this.chatRequest.withoutCache());
+        ChatResponse cached = this.cachingChatClient.generate(this.chatRequest);
+
+        // Then
+        assertEquals(newResponse, bypassed);
+        assertEquals(newResponse, cached);
+
+        // Verify
+        then(this.delegate).should(times(2)).generate(any(ChatRequest.class));
+    }
+
+    @Test
+    @DisplayName("generateStream - Cache Hit - Emits Cached Content Once")
+    void test_GenerateStream_CacheHit_EmitsCachedContent() {
+        List<String> deltas = new ArrayList<>();
+
+        // Given
+        given(this.delegate.generate(this.chatRequest)).willReturn(this.chatResponse);
+        this.cachingChatClient.generate(this.chatRequest);
+
+        // When
+        ChatResponse streamed = this.cachingChatClient.generateStream(this.chatRequest, deltas::add);
+
+        // Then
+        assertEquals(this.chatResponse, streamed);
+        assertEquals(List.of("<!DOCTYPE html><html></html>"), deltas);
+
+        // Verify
+        then(this.delegate).should(never()).generateStream(any(ChatRequest.class), any());
+    }
+
+    @Test
+    @DisplayName("ExpiringLruCache - Evicts Least Recently Used And Expired Entries")
+    void test_ExpiringLruCache_Eviction() {
+        MutableClock clock = new MutableClock();
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, Duration.ofSeconds(10), clock);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a"); // "b" is now the least recently used entry
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+
+        clock.advance(Duration.ofSeconds(11));
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.size());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+}
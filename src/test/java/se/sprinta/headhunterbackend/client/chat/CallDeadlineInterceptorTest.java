@@ -0,0 +1,84 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the real OpenAiChatClient, with a CallDeadlineInterceptor, against FakeOpenAiServer.
+ */
+
+class CallDeadlineInterceptorTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ChatRequest chatRequest = new ChatRequest("gpt-fake", List.of(
+            new Message("system", "instruction 1"),
+            new Message("user", "description 1")));
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private FakeOpenAiServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (this.server != null) this.server.close();
+        this.scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("generateStream - Stream Stalls After First Chunk - Fails At Deadline")
+    void test_GenerateStream_StreamStallsAfterFirstChunk_FailsAtDeadline() throws IOException {
+        this.server = new FakeOpenAiServer(42).withChunks(16, 5_000).start();
+
+        List<String> deltas = new ArrayList<>();
+        long start = System.nanoTime();
+
+        ResourceAccessException thrown = assertThrows(ResourceAccessException.class,
+                () -> chatClient(Duration.ofMillis(500)).generateStream(this.chatRequest, deltas::add));
+
+        assertThat(thrown).hasCauseInstanceOf(HttpTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertEquals(List.of(FakeOpenAiServer.DEFAULT_HTML.substring(0, 16)), deltas);
+    }
+
+    @Test
+    @DisplayName("generateStream - Stream Ends Before Deadline - Whole Content")
+    void test_GenerateStream_StreamEndsBeforeDeadline_WholeContent() throws IOException {
+        this.server = new FakeOpenAiServer(42).withChunks(16, 1).start();
+
+        ChatResponse chatResponse = chatClient(Duration.ofSeconds(30)).generateStream(this.chatRequest, delta -> {
+        });
+
+        assertEquals(FakeOpenAiServer.DEFAULT_HTML, chatResponse.choices().get(0).message().content());
+        assertThat(chatResponse.usage()).isNotNull();
+    }
+
+    private OpenAiChatClient chatClient(Duration deadline) {
+        RestClient.Builder restClientBuilder = RestClient.builder()
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .requestInterceptor(new CallDeadlineInterceptor(deadline, this.scheduler));
+
+        return new OpenAiChatClient(this.server.url(), "test-key", restClientBuilder, this.objectMapper);
+    }
+}
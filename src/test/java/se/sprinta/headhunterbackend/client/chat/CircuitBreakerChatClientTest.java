@@ -0,0 +1,198 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.system.exception.AiServiceUnavailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerChatClientTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Mock
+    private ChatClient delegate;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+
+    private CircuitBreakerChatClient circuitBreakerChatClient;
+
+    private ChatRequest chatRequest;
+
+    private ChatResponse chatResponse;
+
+    private HttpServerErrorException serverError;
+
+    @BeforeEach
+    void setUp() {
+        // Window of 4 calls, opens at 50% failures or 50% slow calls (> 10 s), open for 30 s, 2 trial calls
+        CircuitBreakerSettings settings = new CircuitBreakerSettings(4, 4, 50, 10_000, 50, 30_000, 2);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.circuitBreakerChatClient = new CircuitBreakerChatClient(this.delegate, settings, this.meterRegistry, this.now::get);
+
+        this.chatRequest = new ChatRequest("gpt-4", List.of(new Message("user", "description 1")));
+        this.chatResponse = new ChatResponse(List.of(new Choice(0, new Message("assistant", "<!DOCTYPE html><html></html>"))));
+        this.serverError = HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("generate - Failure Rate Reached - Opens And Fails Fast")
+    void test_Generate_FailureRateReached_OpensAndFailsFast() {
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willReturn(this.chatResponse)
+                .willReturn(this.chatResponse)
+                .willThrow(this.serverError)
+                .willThrow(this.serverError);
+
+        // When
+        this.circuitBreakerChatClient.generate(this.chatRequest);
+        this.circuitBreakerChatClient.generate(this.chatRequest);
+        assertThrows(HttpServerErrorException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+        assertThrows(HttpServerErrorException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+
+        Throwable thrown = assertThrows(AiServiceUnavailableException.class,
+                () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, this.circuitBreakerChatClient.getState());
+        assertThat(thrown).hasMessage("The AI service is temporarily unavailable, try again in 30 seconds");
+        assertEquals(1, this.meterRegistry.counter("ai.circuit-breaker.transitions", "from", "CLOSED", "to", "OPEN").count());
+
+        // Verify
+        then(this.delegate).should(times(4)).generate(this.chatRequest);
+    }
+
+    @Test
+    @DisplayName("generate - Client Errors - Do Not Open The Circuit")
+    void test_Generate_ClientErrors_StayClosed() {
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8));
+
+        // When
+        for (int i = 0; i < 4; i++)
+            assertThrows(HttpClientErrorException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreakerChatClient.getState());
+    }
+
+    @Test
+    @DisplayName("generate - Slow Calls - Open The Circuit")
+    void test_Generate_SlowCalls_Open() {
+        // Given
+        given(this.delegate.generate(this.chatRequest)).willAnswer(invocation -> {
+            this.now.addAndGet(11 * SECOND);
+            return this.chatResponse;
+        });
+
+        // When
+        for (int i = 0; i < 4; i++)
+            this.circuitBreakerChatClient.generate(this.chatRequest);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, this.circuitBreakerChatClient.getState());
+    }
+
+    @Test
+    @DisplayName("generate - Slow Because Of Rate Limit Backoff - Stays Closed")
+    void test_Generate_SlowBecauseOfRateLimitBackoff_StaysClosed() {
+        HttpHeaders retryAfter = new HttpHeaders();
+        retryAfter.set(HttpHeaders.RETRY_AFTER, "12");
+        HttpClientErrorException tooManyRequests = HttpClientErrorException.create(
+                HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", retryAfter, new byte[0], StandardCharsets.UTF_8);
+
+        // The rate limiter waits on the same clock as the circuit breaker
+        RateLimitedChatClient rateLimitedChatClient = new RateLimitedChatClient(
+                this.delegate,
+                new RateLimitSettings(600, 1_000_000, 8, 3, 100, 1000, 100),
+                this.meterRegistry,
+                millis -> this.now.addAndGet(millis * 1_000_000));
+        CircuitBreakerChatClient circuitBreakerChatClient = new CircuitBreakerChatClient(
+                rateLimitedChatClient, new CircuitBreakerSettings(4, 4, 50, 10_000, 50, 30_000, 2), this.meterRegistry, this.now::get);
+
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willThrow(tooManyRequests).willReturn(this.chatResponse)
+                .willThrow(tooManyRequests).willReturn(this.chatResponse)
+                .willThrow(tooManyRequests).willReturn(this.chatResponse)
+                .willThrow(tooManyRequests).willReturn(this.chatResponse);
+
+        // When
+        long start = this.now.get();
+        for (int i = 0; i < 4; i++)
+            circuitBreakerChatClient.generate(this.chatRequest);
+
+        // Then
+        assertThat(this.now.get() - start).isGreaterThanOrEqualTo(4 * 12 * SECOND);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerChatClient.getState());
+    }
+
+    @Test
+    @DisplayName("generate - Open Period Over - Half-Open Trial Calls Close The Circuit")
+    void test_Generate_HalfOpenTrialsSucceed_Closes() {
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willThrow(this.serverError)
+                .willThrow(this.serverError)
+                .willThrow(this.serverError)
+                .willThrow(this.serverError)
+                .willReturn(this.chatResponse);
+
+        for (int i = 0; i < 4; i++)
+            assertThrows(HttpServerErrorException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+        assertEquals(CircuitBreaker.State.OPEN, this.circuitBreakerChatClient.getState());
+
+        // When
+        this.now.addAndGet(31 * SECOND);
+        this.circuitBreakerChatClient.generate(this.chatRequest);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, this.circuitBreakerChatClient.getState());
+        this.circuitBreakerChatClient.generate(this.chatRequest);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreakerChatClient.getState());
+    }
+
+    @Test
+    @DisplayName("generate - Half-Open Trial Call Fails - Opens Again")
+    void test_Generate_HalfOpenTrialFails_OpensAgain() {
+        // Given
+        given(this.delegate.generate(this.chatRequest)).willThrow(this.serverError);
+
+        for (int i = 0; i < 4; i++)
+            assertThrows(HttpServerErrorException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+
+        // When
+        this.now.addAndGet(31 * SECOND);
+        assertThrows(HttpServerErrorException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, this.circuitBreakerChatClient.getState());
+        assertThrows(AiServiceUnavailableException.class, () -> this.circuitBreakerChatClient.generate(this.chatRequest));
+    }
+}
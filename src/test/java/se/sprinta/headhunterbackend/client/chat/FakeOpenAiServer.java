@@ -0,0 +1,286 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An OpenAI compatible chat completions server that runs in the test JVM, so that the ChatClient stack and the
+ * generate endpoints can be tested and load tested without calling the real AI API.
+ * <p>
+ * Every POST, whatever its path, is answered with one of the canned HTML bodies, after a latency drawn from the
+ * configured distribution. A share of the requests can be answered with 429 (with Retry-After) or 500 instead.
+ * With "stream": true the body is sent as server-sent events in chunks, followed by the Usage and [DONE].
+ * <p>
+ * Latencies, errors and bodies are drawn from a seeded Random, so a run with the same seed and the same order of
+ * requests behaves the same. Requests are handled on virtual threads, so slow answers don't limit the concurrency.
+ */
+
+public class FakeOpenAiServer implements AutoCloseable {
+
+    public static final String DEFAULT_HTML = """
+            Here is the job ad:
+            ```html
+            <!DOCTYPE html><html><head><style>body { font-family: sans-serif; }</style></head>
+            <body><h1>Fullstack developer</h1><p>We are looking for a fullstack developer who knows React and Spring Boot.</p>
+            <ul><li>Java</li><li>Spring Boot</li><li>React</li></ul><p>Apply before the deadline.</p></body></html>
+            ```
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random;
+
+    private LatencyDistribution latency = LatencyDistribution.fixed(0);
+    private long chunkDelayMillis;
+    private int chunkSize = 40;
+    private double rateLimitedRate;
+    private double serverErrorRate;
+    private List<String> htmlBodies = List.of(DEFAULT_HTML);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeOpenAiServer(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param latency How long to wait before answering, or before the first chunk of a stream.
+     */
+    public FakeOpenAiServer withLatency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @param chunkSize        How many characters of the body to send in every chunk of a stream.
+     * @param chunkDelayMillis How long to wait between the chunks of a stream.
+     */
+    public FakeOpenAiServer withChunks(int chunkSize, long chunkDelayMillis) {
+        this.chunkSize = chunkSize;
+        this.chunkDelayMillis = chunkDelayMillis;
+        return this;
+    }
+
+    /**
+     * @param rateLimitedRate The share of requests, between 0 and 1, that are answered with 429 and Retry-After: 1.
+     * @param serverErrorRate The share of requests, between 0 and 1, that are answered with 500.
+     */
+    public FakeOpenAiServer withErrors(double rateLimitedRate, double serverErrorRate) {
+        this.rateLimitedRate = rateLimitedRate;
+        this.serverErrorRate = serverErrorRate;
+        return this;
+    }
+
+    /**
+     * @param htmlBodies The completions to answer with, picked at random for every choice.
+     */
+    public FakeOpenAiServer withHtmlBodies(List<String> htmlBodies) {
+        this.htmlBodies = List.copyOf(htmlBodies);
+        return this;
+    }
+
+    public FakeOpenAiServer start() throws IOException {
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+        return this;
+    }
+
+    /**
+     * @return The URL to use as ai.openai.endpoint.
+     */
+    public String url() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    public long getRateLimited() {
+        return this.rateLimited.get();
+    }
+
+    public long getServerErrors() {
+        return this.serverErrors.get();
+    }
+
+    @Override
+    public void close() {
+        if (this.server != null) this.server.stop(0);
+        if (this.executor != null) this.executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("Method not allowed", "invalid_request_error"));
+                return;
+            }
+
+            JsonNode request = this.objectMapper.readTree(exchange.getRequestBody());
+            this.requests.incrementAndGet();
+
+            Outcome outcome = nextOutcome(Math.max(1, request.path("n").asInt(1)));
+            sleep(outcome.latencyMillis());
+
+            if (outcome.status() == 429) {
+                this.rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 429, error("Rate limit reached for requests", "requests"));
+            } else if (outcome.status() == 500) {
+                this.serverErrors.incrementAndGet();
+                send(exchange, 500, error("The server had an error while processing your request", "server_error"));
+            } else if (request.path("stream").asBoolean(false)) {
+                stream(exchange, request, outcome.contents().get(0));
+            } else {
+                send(exchange, 200, completion(request, outcome.contents()));
+            }
+        }
+    }
+
+    /**
+     * Draws everything random about a request at once, so that the sequence of draws doesn't depend on timing.
+     */
+    private synchronized Outcome nextOutcome(int choices) {
+        long latencyMillis = this.latency.nextMillis(this.random);
+        double draw = this.random.nextDouble();
+        int status = draw < this.rateLimitedRate ? 429 : draw < this.rateLimitedRate + this.serverErrorRate ? 500 : 200;
+
+        List<String> contents = new ArrayList<>(choices);
+        for (int i = 0; i < choices; i++)
+            contents.add(this.htmlBodies.get(this.random.nextInt(this.htmlBodies.size())));
+
+        return new Outcome(latencyMillis, status, contents);
+    }
+
+    private void stream(HttpExchange exchange, JsonNode request, String content) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream body = exchange.getResponseBody();
+        for (int start = 0; start < content.length(); start += this.chunkSize) {
+            if (start > 0) sleep(this.chunkDelayMillis);
+            String delta = content.substring(start, Math.min(content.length(), start + this.chunkSize));
+            writeEvent(body, Map.of("choices", List.of(Map.of("index", 0, "delta", Map.of("content", delta)))));
+        }
+
+        if (request.path("stream_options").path("include_usage").asBoolean(false))
+            writeEvent(body, Map.of("choices", List.of(), "usage", usage(request, List.of(content))));
+
+        body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        body.flush();
+    }
+
+    private void writeEvent(OutputStream body, Object event) throws IOException {
+        body.write(("data: " + this.objectMapper.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        body.flush();
+    }
+
+    private Map<String, Object> completion(JsonNode request, List<String> contents) {
+        List<Map<String, Object>> choices = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++)
+            choices.add(Map.of(
+                    "index", i,
+                    "message", Map.of("role", "assistant", "content", contents.get(i)),
+                    "finish_reason", "stop"));
+
+        Map<String, Object> completion = new LinkedHashMap<>();
+        completion.put("id", "chatcmpl-fake-" + this.requests.get());
+        completion.put("object", "chat.completion");
+        completion.put("model", request.path("model").asText());
+        completion.put("choices", choices);
+        completion.put("usage", usage(request, contents));
+        return completion;
+    }
+
+    /**
+     * About four characters per token, which is good enough for quota and rate limit tests.
+     */
+    private static Map<String, Object> usage(JsonNode request, List<String> contents) {
+        long promptTokens = 0;
+        for (JsonNode message : request.path("messages"))
+            promptTokens += message.path("content").asText().length() / 4 + 3;
+
+        long completionTokens = 0;
+        for (String content : contents)
+            completionTokens += content.length() / 4;
+
+        return Map.of(
+                "prompt_tokens", promptTokens,
+                "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens);
+    }
+
+    private static Map<String, Object> error(String message, String type) {
+        return Map.of("error", Map.of("message", message, "type", type));
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = this.objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Outcome(long latencyMillis, int status, List<String> contents) {
+    }
+
+    /**
+     * How long the server takes to answer, drawn from the server's seeded Random.
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+
+        long nextMillis(Random random);
+
+        static LatencyDistribution fixed(long millis) {
+            return random -> millis;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * A long-tailed distribution, like real AI API latencies: most answers are close to the median, a few are much slower.
+         *
+         * @param medianMillis The median latency.
+         * @param sigma        The spread, e.g. 0.5 gives a p99 of about 3.2 times the median.
+         */
+        static LatencyDistribution logNormal(long medianMillis, double sigma) {
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+}
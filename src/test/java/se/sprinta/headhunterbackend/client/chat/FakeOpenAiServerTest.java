@@ -0,0 +1,120 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the real OpenAiChatClient against FakeOpenAiServer, over HTTP.
+ */
+
+class FakeOpenAiServerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ChatRequest chatRequest = new ChatRequest("gpt-fake", List.of(
+            new Message("system", "instruction 1"),
+            new Message("user", "description 1")));
+
+    private final List<FakeOpenAiServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.servers.forEach(FakeOpenAiServer::close);
+    }
+
+    @Test
+    @DisplayName("generate - Several Choices - Canned Html With Usage")
+    void test_Generate_SeveralChoices_CannedHtmlWithUsage() throws IOException {
+        FakeOpenAiServer server = start(new FakeOpenAiServer(42));
+
+        ChatResponse chatResponse = chatClient(server).generate(this.chatRequest.withChoices(2));
+
+        assertThat(chatResponse.choices()).hasSize(2);
+        assertEquals(FakeOpenAiServer.DEFAULT_HTML, chatResponse.choices().get(1).message().content());
+        assertThat(chatResponse.usage().totalTokens())
+                .isEqualTo(chatResponse.usage().promptTokens() + chatResponse.usage().completionTokens())
+                .isPositive();
+        assertEquals(1, server.getRequests());
+    }
+
+    @Test
+    @DisplayName("generateStream - Chunked Body - Deltas And Usage")
+    void test_GenerateStream_ChunkedBody_DeltasAndUsage() throws IOException {
+        FakeOpenAiServer server = start(new FakeOpenAiServer(42).withChunks(16, 1));
+
+        List<String> deltas = new ArrayList<>();
+        ChatResponse chatResponse = chatClient(server).generateStream(this.chatRequest, deltas::add);
+
+        assertThat(deltas).hasSize((FakeOpenAiServer.DEFAULT_HTML.length() + 15) / 16);
+        assertEquals(FakeOpenAiServer.DEFAULT_HTML, String.join("", deltas));
+        assertEquals(FakeOpenAiServer.DEFAULT_HTML, chatResponse.choices().get(0).message().content());
+        assertThat(chatResponse.usage()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("generate - Injected Errors - 429 With Retry-After And 500")
+    void test_Generate_InjectedErrors_429WithRetryAfterAnd500() throws IOException {
+        FakeOpenAiServer rateLimitedServer = start(new FakeOpenAiServer(42).withErrors(1.0, 0.0));
+        FakeOpenAiServer failingServer = start(new FakeOpenAiServer(42).withErrors(0.0, 1.0));
+
+        HttpClientErrorException thrown = assertThrows(HttpClientErrorException.TooManyRequests.class,
+                () -> chatClient(rateLimitedServer).generate(this.chatRequest));
+        assertThrows(HttpServerErrorException.InternalServerError.class,
+                () -> chatClient(failingServer).generate(this.chatRequest));
+
+        assertEquals("1", thrown.getResponseHeaders().getFirst("Retry-After"));
+        assertEquals(1, rateLimitedServer.getRateLimited());
+        assertEquals(1, failingServer.getServerErrors());
+    }
+
+    @Test
+    @DisplayName("generate - Same Seed - Same Sequence")
+    void test_Generate_SameSeed_SameSequence() throws IOException {
+        List<String> bodies = List.of(
+                "<!DOCTYPE html><html>1</html>",
+                "<!DOCTYPE html><html>2</html>",
+                "<!DOCTYPE html><html>3</html>");
+        FakeOpenAiServer first = start(new FakeOpenAiServer(7).withHtmlBodies(bodies).withErrors(0.2, 0.0));
+        FakeOpenAiServer second = start(new FakeOpenAiServer(7).withHtmlBodies(bodies).withErrors(0.2, 0.0));
+
+        assertEquals(answers(chatClient(first)), answers(chatClient(second)));
+    }
+
+    private List<String> answers(ChatClient chatClient) {
+        List<String> answers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            try {
+                answers.add(chatClient.generate(this.chatRequest).choices().get(0).message().content());
+            } catch (HttpClientErrorException ex) {
+                answers.add(String.valueOf(ex.getStatusCode().value()));
+            }
+        }
+        return answers;
+    }
+
+    private FakeOpenAiServer start(FakeOpenAiServer server) throws IOException {
+        this.servers.add(server);
+        return server.start();
+    }
+
+    private OpenAiChatClient chatClient(FakeOpenAiServer server) {
+        return new OpenAiChatClient(server.url(), "test-key", RestClient.builder(), this.objectMapper);
+    }
+}
@@ -0,0 +1,79 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipClientHttpRequestInterceptorTest {
+
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/v1/chat/completions"));
+
+    @Test
+    @DisplayName("intercept - Gzip Response - Unzipped")
+    void test_Intercept_GzipResponse_Unzipped() throws IOException {
+        MockClientHttpResponse zippedResponse = new MockClientHttpResponse(gzip("{\"choices\":[]}"), HttpStatus.OK);
+        zippedResponse.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        ClientHttpResponse response = new GzipClientHttpRequestInterceptor(false)
+                .intercept(this.request, new byte[0], (request, body) -> zippedResponse);
+
+        assertEquals("gzip", this.request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("{\"choices\":[]}", new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("intercept - Large Request Body - Zipped When Enabled")
+    void test_Intercept_LargeRequestBody_Zipped() throws IOException {
+        byte[] body = "a".repeat(GzipClientHttpRequestInterceptor.MIN_COMPRESS_BYTES).getBytes(StandardCharsets.UTF_8);
+        AtomicReference<byte[]> sentBody = new AtomicReference<>();
+
+        new GzipClientHttpRequestInterceptor(true).intercept(this.request, body, (request, requestBody) -> {
+            sentBody.set(requestBody);
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        });
+
+        assertEquals("gzip", this.request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(sentBody.get().length < body.length);
+        assertArrayEquals(body, new GZIPInputStream(new ByteArrayInputStream(sentBody.get())).readAllBytes());
+    }
+
+    @Test
+    @DisplayName("intercept - Small Request Body - Sent As Is")
+    void test_Intercept_SmallRequestBody_NotZipped() throws IOException {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        AtomicReference<byte[]> sentBody = new AtomicReference<>();
+
+        new GzipClientHttpRequestInterceptor(true).intercept(this.request, body, (request, requestBody) -> {
+            sentBody.set(requestBody);
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        });
+
+        assertNull(this.request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, sentBody.get());
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InFlightRequestsInterceptorTest {
+
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/v1/chat/completions"));
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final InFlightRequestsInterceptor interceptor = new InFlightRequestsInterceptor(this.meterRegistry);
+
+    @Test
+    @DisplayName("intercept - Response Body Being Read - Counted Until Closed")
+    void test_Intercept_ResponseBodyBeingRead_CountedUntilClosed() throws IOException {
+        ClientHttpResponse response = this.interceptor.intercept(this.request, new byte[0],
+                (request, body) -> new MockClientHttpResponse("data: {}\n\n".getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+
+        // The headers have arrived, but the body is still being read
+        assertEquals(1, inFlight());
+        response.getBody().readAllBytes();
+        assertEquals(1, inFlight());
+
+        response.close();
+        assertEquals(0, inFlight());
+
+        response.close();
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    @DisplayName("intercept - Request Fails - Not Counted")
+    void test_Intercept_RequestFails_NotCounted() {
+        assertThrows(IOException.class, () -> this.interceptor.intercept(this.request, new byte[0], (request, body) -> {
+            throw new IOException("Connection refused");
+        }));
+
+        assertEquals(0, inFlight());
+    }
+
+    private double inFlight() {
+        return this.meterRegistry.get("ai.http.client.in-flight").gauge().value();
+    }
+}
@@ -7,17 +7,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.client.RestClientTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import se.sprinta.headhunterbackend.config.JacksonConfig;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
 import se.sprinta.headhunterbackend.client.chat.dto.Choice;
 import se.sprinta.headhunterbackend.client.chat.dto.Message;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +31,7 @@ import static org.springframework.test.web.client.response.MockRestResponseCreat
 
 @ActiveProfiles("mock-test")
 @RestClientTest(OpenAiChatClient.class)
+@Import(JacksonConfig.class) // The application's ObjectMapper, which fails on unknown properties
 class OpenAiChatClientTest {
 
     @Autowired
@@ -283,6 +287,75 @@ class OpenAiChatClientTest {
                 </html>""");
     }
 
+    /**
+     * This test simulates a completion with the fields that OpenAI sends but ChatResponse doesn't map.
+     */
+
+    @Test
+    void testGenerateResponseWithUnmappedFieldsSuccess() {
+        // Given
+        String completion = """
+                {"id":"chatcmpl-1","object":"chat.completion","created":1718000000,"model":"gpt-4o","system_fingerprint":"fp_1",
+                 "choices":[{"index":0,"message":{"role":"assistant","content":"<!DOCTYPE html><html></html>","refusal":null},
+                             "logprobs":null,"finish_reason":"stop"}],
+                 "usage":{"prompt_tokens":310,"completion_tokens":12,"total_tokens":322}}
+                """;
+
+        this.mockServer.expect(requestTo(this.url))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess(completion, MediaType.APPLICATION_JSON));
+
+        // When
+        ChatResponse generatedChatResponse = this.openAiChatClient.generate(this.chatRequest);
+
+        // Then
+        this.mockServer.verify();
+        assertThat(generatedChatResponse.choices().get(0).message().content()).isEqualTo("<!DOCTYPE html><html></html>");
+        assertThat(generatedChatResponse.choices().get(0).finishReason()).isEqualTo("stop");
+        assertThat(generatedChatResponse.usage().totalTokens()).isEqualTo(322);
+    }
+
+    /**
+     * This test simulates a streamed completion that arrives as three server-sent events.
+     */
+
+    @Test
+    void testGenerateStreamSuccess() {
+        // Given
+        String events = """
+                data: {"choices":[{"index":0,"delta":{"role":"assistant","content":""},"finish_reason":null}]}
+
+                data: {"choices":[{"index":0,"delta":{"content":"<!DOCTYPE html><html>"},"finish_reason":null}]}
+
+                data: {"choices":[{"index":0,"delta":{"content":"<body>generate content</body></html>"},"finish_reason":null}]}
+
+                data: {"choices":[{"index":0,"delta":{},"finish_reason":"stop"}]}
+
+                data: {"choices":[],"usage":{"prompt_tokens":310,"completion_tokens":12,"total_tokens":322}}
+
+                data: [DONE]
+
+                """;
+
+        this.mockServer.expect(requestTo(this.url))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.stream").value(true)) // Check whether streaming was asked for.
+                .andExpect(jsonPath("$.stream_options.include_usage").value(true))
+                .andRespond(withSuccess(events, MediaType.TEXT_EVENT_STREAM));
+
+        List<String> deltas = new ArrayList<>();
+
+        // When
+        ChatResponse generatedChatResponse = this.openAiChatClient.generateStream(this.chatRequest, deltas::add);
+
+        // Then
+        this.mockServer.verify();
+        assertThat(deltas).containsExactly("<!DOCTYPE html><html>", "<body>generate content</body></html>");
+        assertThat(generatedChatResponse.choices().get(0).message().content())
+                .isEqualTo("<!DOCTYPE html><html><body>generate content</body></html>");
+        assertThat(generatedChatResponse.usage().totalTokens()).isEqualTo(322);
+    }
+
     /**
      * This test simulates receiving a 401 Unauthorized response.
      */
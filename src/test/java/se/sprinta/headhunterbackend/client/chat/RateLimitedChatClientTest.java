@@ -0,0 +1,159 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitedChatClientTest {
+
+    @Mock
+    private ChatClient delegate;
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private RateLimitedChatClient rateLimitedChatClient;
+
+    private ChatRequest chatRequest;
+
+    private ChatResponse chatResponse;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitSettings settings = new RateLimitSettings(600, 1_000_000, 8, 3, 100, 1000, 100);
+        this.rateLimitedChatClient = new RateLimitedChatClient(this.delegate, settings, new SimpleMeterRegistry(), this.sleeps::add);
+
+        this.chatRequest = new ChatRequest("gpt-4", List.of(new Message("user", "description 1")));
+        this.chatResponse = new ChatResponse(List.of(new Choice(0, new Message("assistant", "<!DOCTYPE html><html></html>"))));
+    }
+
+    @Test
+    @DisplayName("generate - 429 With Retry-After - Waits And Retries")
+    void test_Generate_TooManyRequestsWithRetryAfter_Retries() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, new byte[0], StandardCharsets.UTF_8))
+                .willReturn(this.chatResponse);
+
+        // When
+        ChatResponse generatedChatResponse = this.rateLimitedChatClient.generate(this.chatRequest);
+
+        // Then
+        assertEquals(this.chatResponse, generatedChatResponse);
+        assertEquals(1, this.sleeps.size());
+        assertThat(this.sleeps.get(0)).isBetween(2000L, 2000L + 250L);
+
+        // Verify
+        then(this.delegate).should(times(2)).generate(this.chatRequest);
+    }
+
+    @Test
+    @DisplayName("generate - 5xx On Every Attempt - Gives Up After Max Attempts And Backs Off Concurrency")
+    void test_Generate_ServerErrorEveryAttempt_Exception() {
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8));
+
+        // When
+        assertThrows(HttpServerErrorException.class, () -> this.rateLimitedChatClient.generate(this.chatRequest));
+
+        // Then
+        assertEquals(2, this.sleeps.size());
+        assertThat(this.sleeps.get(0)).isBetween(0L, 100L);
+        assertThat(this.sleeps.get(1)).isBetween(0L, 200L);
+        assertEquals(1, this.rateLimitedChatClient.getConcurrencyLimit()); // 8 -> 4 -> 2 -> 1
+
+        // Verify
+        then(this.delegate).should(times(3)).generate(this.chatRequest);
+    }
+
+    @Test
+    @DisplayName("generate - 400 - Not Retried")
+    void test_Generate_BadRequest_NotRetried() {
+        // Given
+        given(this.delegate.generate(this.chatRequest))
+                .willThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8));
+
+        // When
+        assertThrows(HttpClientErrorException.class, () -> this.rateLimitedChatClient.generate(this.chatRequest));
+
+        // Then
+        assertThat(this.sleeps).isEmpty();
+        assertEquals(8, this.rateLimitedChatClient.getConcurrencyLimit());
+
+        // Verify
+        then(this.delegate).should(times(1)).generate(this.chatRequest);
+    }
+
+    @Test
+    @DisplayName("generateStream - 429 After First Delta - Not Retried")
+    void test_GenerateStream_FailureAfterFirstDelta_NotRetried() {
+        List<String> deltas = new ArrayList<>();
+
+        // Given
+        given(this.delegate.generateStream(eq(this.chatRequest), any())).willAnswer(invocation -> {
+            Consumer<String> onDelta = invocation.getArgument(1);
+            onDelta.accept("<!DOCTYPE");
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+        });
+
+        // When
+        assertThrows(HttpClientErrorException.class, () -> this.rateLimitedChatClient.generateStream(this.chatRequest, deltas::add));
+
+        // Then
+        assertEquals(List.of("<!DOCTYPE"), deltas);
+        assertThat(this.sleeps).isEmpty();
+    }
+
+    @Test
+    @DisplayName("TokenBucket - Hands Out Permits At The Configured Rate")
+    void test_TokenBucket_Rate() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket tokenBucket = new TokenBucket(60, 1, now::get); // One permit per second, room for one
+
+        assertEquals(0, tokenBucket.reserve(1));
+        assertThat(tokenBucket.reserve(1)).isCloseTo(1_000_000_000L, within(10L)); // Second permit is available in one second
+        assertThat(tokenBucket.reserve(1)).isCloseTo(2_000_000_000L, within(10L)); // Third permit queues behind the second
+
+        now.addAndGet(3_500_000_000L);
+        assertEquals(0, tokenBucket.reserve(1));
+    }
+
+    @Test
+    @DisplayName("retryAfterMillis - Seconds And Missing Header")
+    void test_RetryAfterMillis() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1.5");
+
+        assertEquals(1500, RateLimitedChatClient.retryAfterMillis(headers));
+        assertEquals(0, RateLimitedChatClient.retryAfterMillis(HttpHeaders.EMPTY));
+        assertEquals(0, RateLimitedChatClient.retryAfterMillis(null));
+    }
+}
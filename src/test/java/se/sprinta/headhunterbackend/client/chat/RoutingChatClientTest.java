@@ -0,0 +1,227 @@
+package se.sprinta.headhunterbackend.client.chat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingChatClientTest {
+
+    private static final long MILLISECOND = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+
+    private ChatRequest chatRequest;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.chatRequest = new ChatRequest("gpt-4", List.of(new Message("user", "description 1")));
+    }
+
+    @Test
+    @DisplayName("generate - Weighted Endpoints - Routed By Weight")
+    void test_Generate_WeightedEndpoints_RoutedByWeight() {
+        // Weights 1 and 3, so a random value below 0.25 picks a and anything above picks b
+        double[] randomValues = {0.1, 0.5, 0.9, 0.2};
+        AtomicInteger nextRandom = new AtomicInteger();
+        RoutingChatClient routingChatClient = new RoutingChatClient(
+                List.of(new RoutingChatClient.Route("a", answering("a"), 1, null),
+                        new RoutingChatClient.Route("b", answering("b"), 3, "gpt-4o")),
+                new RoutingSettings(0, 0, 0, 3, 30_000), this.meterRegistry,
+                () -> randomValues[nextRandom.getAndIncrement()], this.now::get);
+
+        List<String> answers = new ArrayList<>();
+        for (int i = 0; i < randomValues.length; i++)
+            answers.add(routingChatClient.generate(this.chatRequest).choices().get(0).message().content());
+
+        // b is asked for its own model
+        assertEquals(List.of("a:gpt-4", "b:gpt-4o", "b:gpt-4o", "a:gpt-4"), answers);
+    }
+
+    @Test
+    @DisplayName("generate - Slow Endpoint - Hedged And Loser Cancelled")
+    void test_Generate_SlowEndpoint_HedgedAndLoserCancelled() throws InterruptedException {
+        CountDownLatch slowCancelled = new CountDownLatch(1);
+        ChatClient slow = chatRequest -> {
+            try {
+                new CountDownLatch(1).await(); // Never answers
+                throw new IllegalStateException("Not reached");
+            } catch (InterruptedException ex) {
+                slowCancelled.countDown();
+                throw new IllegalStateException(ex);
+            }
+        };
+        RoutingChatClient routingChatClient = new RoutingChatClient(
+                List.of(new RoutingChatClient.Route("slow", slow, 1, null),
+                        new RoutingChatClient.Route("fast", answering("fast"), 1, null)),
+                new RoutingSettings(50, 10, 0.95, 3, 30_000), this.meterRegistry,
+                () -> 0.0, this.now::get);
+
+        ChatResponse chatResponse = routingChatClient.generate(this.chatRequest);
+
+        assertEquals("fast:gpt-4", chatResponse.choices().get(0).message().content());
+        assertTrue(slowCancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, this.meterRegistry.get("ai.routing.hedges").tag("reason", "slow").counter().count());
+        assertEquals(1.0, this.meterRegistry.get("ai.routing.hedge.wins").counter().count());
+        // An interrupted call is not held against the endpoint
+        assertThat(routingChatClient.isEjected("slow")).isFalse();
+    }
+
+    @Test
+    @DisplayName("generate - Failing Endpoint - Failed Over And Ejected")
+    void test_Generate_FailingEndpoint_FailedOverAndEjected() {
+        AtomicInteger failingCalls = new AtomicInteger();
+        ChatClient failing = chatRequest -> {
+            failingCalls.incrementAndGet();
+            throw HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+        };
+        RoutingChatClient routingChatClient = new RoutingChatClient(
+                List.of(new RoutingChatClient.Route("failing", failing, 1, null),
+                        new RoutingChatClient.Route("healthy", answering("healthy"), 1, null)),
+                new RoutingSettings(0, 0, 0, 2, 30_000), this.meterRegistry,
+                () -> 0.0, this.now::get);
+
+        // The first two calls go to the failing endpoint first, and are failed over
+        assertEquals("healthy:gpt-4", routingChatClient.generate(this.chatRequest).choices().get(0).message().content());
+        assertEquals("healthy:gpt-4", routingChatClient.generate(this.chatRequest).choices().get(0).message().content());
+        assertThat(routingChatClient.isEjected("failing")).isTrue();
+
+        // While ejected, the failing endpoint is left out
+        routingChatClient.generate(this.chatRequest);
+        assertEquals(2, failingCalls.get());
+        assertEquals(2.0, this.meterRegistry.get("ai.routing.hedges").tag("reason", "failed").counter().count());
+
+        // After ejectMillis it gets another chance
+        this.now.addAndGet(30_001 * MILLISECOND);
+        assertThat(routingChatClient.isEjected("failing")).isFalse();
+        routingChatClient.generate(this.chatRequest);
+        assertEquals(3, failingCalls.get());
+        assertThat(routingChatClient.isEjected("failing")).isTrue();
+    }
+
+    @Test
+    @DisplayName("generate - Client Error - Not Failed Over")
+    void test_Generate_ClientError_NotFailedOver() {
+        AtomicInteger otherCalls = new AtomicInteger();
+        ChatClient badRequest = chatRequest -> {
+            throw HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+        };
+        ChatClient other = chatRequest -> {
+            otherCalls.incrementAndGet();
+            return response("other");
+        };
+        RoutingChatClient routingChatClient = new RoutingChatClient(
+                List.of(new RoutingChatClient.Route("bad-request", badRequest, 1, null),
+                        new RoutingChatClient.Route("other", other, 1, null)),
+                new RoutingSettings(0, 0, 0, 1, 30_000), this.meterRegistry,
+                () -> 0.0, this.now::get);
+
+        assertThrows(HttpClientErrorException.class, () -> routingChatClient.generate(this.chatRequest));
+        assertEquals(0, otherCalls.get());
+        assertThat(routingChatClient.isEjected("bad-request")).isFalse();
+    }
+
+    @Test
+    @DisplayName("generateStream - Slow First Delta - Only Winner Streams")
+    void test_GenerateStream_SlowFirstDelta_OnlyWinnerStreams() {
+        CountDownLatch fastDone = new CountDownLatch(1);
+        ChatClient slow = new ChatClient() {
+            @Override
+            public ChatResponse generate(ChatRequest chatRequest) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+                try {
+                    fastDone.await(5, TimeUnit.SECONDS); // Starts streaming only once the hedge has won
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                onDelta.accept("slow");
+                return response("slow");
+            }
+        };
+        ChatClient fast = new ChatClient() {
+            @Override
+            public ChatResponse generate(ChatRequest chatRequest) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+                onDelta.accept("fa");
+                onDelta.accept("st");
+                fastDone.countDown();
+                return response("fast:" + chatRequest.model());
+            }
+        };
+        RoutingChatClient routingChatClient = new RoutingChatClient(
+                List.of(new RoutingChatClient.Route("slow", slow, 1, null),
+                        new RoutingChatClient.Route("fast", fast, 1, null)),
+                new RoutingSettings(50, 10, 0.95, 3, 30_000), this.meterRegistry,
+                () -> 0.0, this.now::get);
+
+        StringBuilder streamed = new StringBuilder();
+        ChatResponse chatResponse = routingChatClient.generateStream(this.chatRequest, streamed::append);
+
+        assertEquals("fast", streamed.toString());
+        assertEquals("fast:gpt-4", chatResponse.choices().get(0).message().content());
+    }
+
+    @Test
+    @DisplayName("hedgeDelayMillis - Enough Latencies - Follows Quantile")
+    void test_HedgeDelayMillis_EnoughLatencies_FollowsQuantile() {
+        ChatClient hundredMillis = chatRequest -> {
+            this.now.addAndGet(100 * MILLISECOND);
+            return response("a");
+        };
+        RoutingChatClient routingChatClient = new RoutingChatClient(
+                List.of(new RoutingChatClient.Route("a", hundredMillis, 1, null)),
+                new RoutingSettings(5_000, 10, 0.95, 3, 30_000), this.meterRegistry,
+                () -> 0.0, this.now::get);
+
+        for (int i = 0; i < RoutingChatClient.MIN_LATENCY_SAMPLES - 1; i++)
+            routingChatClient.generate(this.chatRequest);
+        assertEquals(5_000, routingChatClient.hedgeDelayMillis(false));
+
+        routingChatClient.generate(this.chatRequest);
+        assertEquals(100, routingChatClient.hedgeDelayMillis(false));
+        // Streams are hedged on their own latency to the first delta, of which there is none yet
+        assertEquals(5_000, routingChatClient.hedgeDelayMillis(true));
+    }
+
+    private static ChatClient answering(String name) {
+        return chatRequest -> response(name + ":" + chatRequest.model());
+    }
+
+    private static ChatResponse response(String content) {
+        return new ChatResponse(List.of(new Choice(0, new Message("assistant", content))));
+    }
+}
@@ -0,0 +1,132 @@
+package se.sprinta.headhunterbackend.client.chat.cassette;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.client.chat.dto.Usage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CassetteTest {
+
+    private static final long MILLISECOND = 1_000_000L;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final AtomicLong now = new AtomicLong();
+
+    private Cassette cassette;
+
+    private ChatRequest chatRequest;
+
+    private ChatResponse chatResponse;
+
+    @BeforeEach
+    void setUp() {
+        this.cassette = new Cassette(this.directory.resolve("cassettes").resolve("chat.jsonl.gz"), this.objectMapper);
+        this.chatRequest = new ChatRequest("gpt-4", List.of(
+                new Message("system", "instruction 1"),
+                new Message("user", "description 1")));
+        this.chatResponse = new ChatResponse(
+                List.of(new Choice(0, new Message("assistant", "<!DOCTYPE html><html></html>"))),
+                new Usage(10, 20, 30));
+    }
+
+    @Test
+    @DisplayName("generate - Recorded Call - Replayed Offline")
+    void test_Generate_RecordedCall_ReplayedOffline() {
+        ChatClient upstream = chatRequest -> {
+            this.now.addAndGet(1500 * MILLISECOND);
+            return this.chatResponse;
+        };
+        new RecordingChatClient(upstream, this.cassette, this.now::get).generate(this.chatRequest);
+
+        List<CassetteEntry> entries = this.cassette.load();
+        List<Long> sleeps = new ArrayList<>();
+        ReplayChatClient replayChatClient = new ReplayChatClient(entries, ReplayChatClient.Speed.ORIGINAL, sleeps::add);
+
+        // Another model and reformatted whitespace still match the recording
+        ChatRequest reformatted = new ChatRequest("gpt-4o", List.of(
+                new Message("system", "  instruction\n1"),
+                new Message("user", "description   1 ")));
+
+        assertEquals(this.chatResponse, replayChatClient.generate(reformatted));
+        assertEquals(List.of(1500L), sleeps);
+        assertEquals("gpt-4", entries.get(0).model());
+    }
+
+    @Test
+    @DisplayName("generateStream - Recorded Stream - Replayed With Original Timing")
+    void test_GenerateStream_RecordedStream_ReplayedWithOriginalTiming() {
+        ChatClient upstream = new ChatClient() {
+            @Override
+            public ChatResponse generate(ChatRequest chatRequest) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ChatResponse generateStream(ChatRequest chatRequest, Consumer<String> onDelta) {
+                now.addAndGet(400 * MILLISECOND); // Time to the first delta
+                onDelta.accept("<!DOCTYPE html>");
+                now.addAndGet(100 * MILLISECOND);
+                onDelta.accept("<html></html>");
+                now.addAndGet(50 * MILLISECOND);
+                return chatResponse;
+            }
+        };
+        List<String> recordedDeltas = new ArrayList<>();
+        new RecordingChatClient(upstream, this.cassette, this.now::get).generateStream(this.chatRequest, recordedDeltas::add);
+
+        List<Long> sleeps = new ArrayList<>();
+        List<String> replayedDeltas = new ArrayList<>();
+        ChatResponse replayed = new ReplayChatClient(this.cassette.load(), ReplayChatClient.Speed.ORIGINAL, sleeps::add)
+                .generateStream(this.chatRequest, replayedDeltas::add);
+
+        assertEquals(recordedDeltas, replayedDeltas);
+        assertEquals(List.of(400L, 100L, 50L), sleeps);
+        assertEquals(this.chatResponse, replayed);
+    }
+
+    @Test
+    @DisplayName("generate - Fast Speed - No Waiting")
+    void test_Generate_FastSpeed_NoWaiting() throws Exception {
+        this.cassette.append(new CassetteEntry(Cassette.key(this.chatRequest), "gpt-4", 1500, this.chatResponse, null));
+
+        List<Long> sleeps = new ArrayList<>();
+        ReplayChatClient replayChatClient = new ReplayChatClient(this.cassette.load(), ReplayChatClient.Speed.FAST, sleeps::add);
+
+        assertEquals(this.chatResponse, replayChatClient.generate(this.chatRequest));
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    @DisplayName("generate - Prompt Not Recorded - Exception")
+    void test_Generate_PromptNotRecorded_Exception() throws Exception {
+        this.cassette.append(new CassetteEntry(Cassette.key(this.chatRequest), "gpt-4", 1500, this.chatResponse, null));
+        ReplayChatClient replayChatClient = new ReplayChatClient(this.cassette.load(), ReplayChatClient.Speed.FAST);
+
+        ChatRequest otherRequest = new ChatRequest("gpt-4", List.of(new Message("user", "description 2")));
+
+        Throwable thrown = assertThrows(IllegalStateException.class, () -> replayChatClient.generate(otherRequest));
+        assertThat(thrown.getMessage()).startsWith("No recorded AI call in the cassette matches the request");
+    }
+}
@@ -0,0 +1,107 @@
+package se.sprinta.headhunterbackend.client.chat.prompt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.system.exception.PromptTooLargeException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PromptPreparerTest {
+
+    private PromptPreparer promptPreparer;
+
+    @BeforeEach
+    void setUp() {
+        this.promptPreparer = new PromptPreparer(60, 400);
+    }
+
+    @Test
+    @DisplayName("compact - Html Description - Markup Stripped")
+    void test_Compact_HtmlDescription_MarkupStripped() {
+        String compacted = this.promptPreparer.compact(
+                "<div><p>Senior&nbsp;Java developer</p><ul><li>Java</li><li>Spring</li></ul><script>track()</script></div>");
+
+        assertEquals("Senior Java developer\n\n- Java\n- Spring", compacted);
+    }
+
+    @Test
+    @DisplayName("compact - Pasted Description - Whitespace Normalised And Repeated Lines Dropped")
+    void test_Compact_PastedDescription_WhitespaceNormalisedAndRepeatedLinesDropped() {
+        String compacted = this.promptPreparer.compact(
+                "We   are\thiring\r\n\r\n\r\n\r\n\u2022 Java\u200B\n"
+                        + "Apply today at www.example.com, we look forward to it\n"
+                        + "Apply today at www.example.com, we look forward to it\n"
+                        + "- Java\n- Java");
+
+        // Short lines are kept even when repeated
+        assertEquals("We are hiring\n\n- Java\nApply today at www.example.com, we look forward to it\n- Java\n- Java", compacted);
+    }
+
+    @Test
+    @DisplayName("prepare - Small Job - Unchanged")
+    void test_Prepare_SmallJob_Unchanged() {
+        List<Message> messages = this.promptPreparer.prepare("instruction", "description");
+
+        assertEquals(List.of(new Message("system", "instruction"), new Message("user", "description")), messages);
+    }
+
+    @Test
+    @DisplayName("prepare - Instruction With Markup - Only Whitespace Normalised")
+    void test_Prepare_InstructionWithMarkup_OnlyWhitespaceNormalised() {
+        String instruction = "Write HTML.\r\n\r\n\r\nUse <h2>   for headings.\n"
+                + "Start with <!DOCTYPE html><html><body>\n"
+                + "Start with <!DOCTYPE html><html><body>";
+
+        List<Message> messages = this.promptPreparer.prepare(instruction, "<p>description</p>");
+
+        assertEquals(new Message("system", "Write HTML.\n\nUse <h2> for headings.\n"
+                + "Start with <!DOCTYPE html><html><body>\n"
+                + "Start with <!DOCTYPE html><html><body>"), messages.get(0));
+        assertEquals(new Message("user", "description"), messages.get(1));
+    }
+
+    @Test
+    @DisplayName("prepare - Above Max Tokens - Description Truncated At Sentence")
+    void test_Prepare_AboveMaxTokens_DescriptionTruncatedAtSentence() {
+        String description = "First paragraph is short.\n\n" + "This sentence is part of the long description. ".repeat(20);
+
+        List<Message> messages = this.promptPreparer.prepare("instruction", description);
+
+        assertThat(TokenEstimator.estimate(messages)).isLessThanOrEqualTo(60);
+        assertThat(messages.get(1).content())
+                .startsWith("First paragraph is short.\n\nThis sentence is part of the long description.")
+                .endsWith("description.")
+                .hasSizeLessThan(description.length());
+    }
+
+    @Test
+    @DisplayName("prepare - Above Reject Tokens - Exception")
+    void test_Prepare_AboveRejectTokens_Exception() {
+        Throwable thrown = assertThrows(PromptTooLargeException.class,
+                () -> this.promptPreparer.prepare("instruction", "word ".repeat(500)));
+
+        assertThat(thrown.getMessage())
+                .startsWith("The job is too large to generate an ad from, about ")
+                .endsWith(" tokens where at most 400 are allowed");
+    }
+
+    @Test
+    @DisplayName("estimate - Texts And Messages - Estimated")
+    void test_Estimate_TextsAndMessages_Estimated() {
+        assertEquals(0, TokenEstimator.estimate((String) null));
+        assertEquals(2, TokenEstimator.estimate("Hello world"));
+        assertEquals(3, TokenEstimator.estimate("12345678")); // Digits are split in groups of three
+        // Letters outside ASCII cost more than the same number of ASCII letters
+        assertThat(TokenEstimator.estimate("Vi söker en utvecklare i Göteborg"))
+                .isGreaterThan(TokenEstimator.estimate("Vi soker en utvecklare i Goteborg"));
+        // Three formatting tokens per message and three for the reply, plus one token per role and content
+        assertEquals(3 + 2 * (3 + 1 + 1),
+                TokenEstimator.estimate(List.of(new Message("system", "Hello"), new Message("user", "world"))));
+    }
+}
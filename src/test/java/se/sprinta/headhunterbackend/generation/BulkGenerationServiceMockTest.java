@@ -0,0 +1,156 @@
+package se.sprinta.headhunterbackend.generation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import se.sprinta.headhunterbackend.account.AccountRepository;
+import se.sprinta.headhunterbackend.ad.Ad;
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.generation.dto.BulkGenerationDtoView;
+import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.job.JobRepository;
+import se.sprinta.headhunterbackend.job.JobService;
+import se.sprinta.headhunterbackend.job.dto.JobCardDtoView;
+import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+import se.sprinta.headhunterbackend.usage.TokenUsageService;
+import se.sprinta.headhunterbackend.utils.HtmlUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class BulkGenerationServiceMockTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private JobRepository jobRepository;
+    @Mock
+    private JobService jobService;
+    @Mock
+    private ChatClient chatClient;
+    @Mock
+    private HtmlUtilities htmlUtilities;
+    @Mock
+    private TokenUsageService tokenUsageService;
+    @Mock
+    private ContinuationService continuationService;
+
+    private BulkGenerationService bulkGenerationService;
+
+    private final List<Job> jobs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Concurrency 2 and batch size 2, so that three jobs need two batches
+        this.bulkGenerationService = new BulkGenerationService(
+                this.accountRepository, this.jobRepository, this.jobService, this.chatClient, this.htmlUtilities, this.tokenUsageService, this.continuationService, 2, 2);
+
+        for (long id = 1; id <= 3; id++) {
+            Job job = new Job();
+            job.setId(id);
+            job.setTitle("title " + id);
+            job.setInstruction("instruction " + id);
+            job.setDescription("description " + id);
+            this.jobs.add(job);
+        }
+    }
+
+    @Test
+    @DisplayName("run - One Job Fails - Others Saved In Batches")
+    void test_Run_OneJobFails_OthersSavedInBatches() {
+        BulkGeneration bulkGeneration = new BulkGeneration("user1@hh.se", List.of(
+                new JobCardDtoView(1L, "title 1", null),
+                new JobCardDtoView(2L, "title 2", null),
+                new JobCardDtoView(3L, "title 3", null)));
+
+        // Given
+        given(this.jobRepository.findAllById(List.of(1L, 2L, 3L))).willReturn(this.jobs);
+        for (Job job : this.jobs) {
+            ChatRequest chatRequest = new ChatRequest("gpt-4", List.of(new Message("user", job.getDescription())));
+            given(this.jobService.createChatRequest(job)).willReturn(chatRequest);
+
+            String content = "<!DOCTYPE html><html>" + job.getId() + "</html>";
+            given(this.chatClient.generate(chatRequest))
+                    .willReturn(new ChatResponse(List.of(new Choice(0, new Message("assistant", content)))));
+            if (job.getId() == 2L)
+                given(this.htmlUtilities.makeHtmlResponseSubstring(content)).willThrow(new IllegalArgumentException("AI response is not valid HTML code"));
+            else
+                given(this.htmlUtilities.makeHtmlResponseSubstring(content)).willReturn(content);
+        }
+        given(this.jobService.saveGeneratedAds(anyMap())).willAnswer(invocation -> {
+            Map<Long, String> batch = invocation.getArgument(0);
+            List<Ad> savedAds = new ArrayList<>();
+            batch.forEach((jobId, htmlCode) -> {
+                Ad ad = new Ad("ad " + jobId, htmlCode);
+                ad.setJob(this.jobs.get(jobId.intValue() - 1));
+                savedAds.add(ad);
+            });
+            return savedAds;
+        });
+
+        // When
+        this.bulkGenerationService.run(bulkGeneration);
+
+        // Then
+        BulkGenerationDtoView bulkGenerationDtoView = bulkGeneration.toDto();
+        assertEquals(GenerationStatus.DONE, bulkGenerationDtoView.status());
+        assertEquals(3, bulkGenerationDtoView.total());
+        assertEquals(2, bulkGenerationDtoView.completed());
+        assertEquals(1, bulkGenerationDtoView.failed());
+        assertEquals("ad 1", bulkGenerationDtoView.jobs().get(0).adId());
+        assertEquals(GenerationStatus.FAILED, bulkGenerationDtoView.jobs().get(1).status());
+        assertEquals("AI response is not valid HTML code", bulkGenerationDtoView.jobs().get(1).errorMessage());
+        assertEquals("ad 3", bulkGenerationDtoView.jobs().get(2).adId());
+
+        // Verify
+        then(this.chatClient).should(times(3)).generate(any(ChatRequest.class));
+    }
+
+    @Test
+    @DisplayName("POST - start - Invalid Email - Exception")
+    void test_Start_InvalidEmail_Exception() {
+        // Given
+        given(this.accountRepository.existsById("Invalid Email")).willReturn(false);
+
+        // When
+        Throwable thrown = assertThrows(ObjectNotFoundException.class,
+                () -> this.bulkGenerationService.start("Invalid Email"));
+
+        // Then
+        assertThat(thrown)
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find account with Email Invalid Email");
+
+        // Verify
+        then(this.jobRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("GET - getBulkGenerationDto - Invalid Id - Exception")
+    void test_GetBulkGenerationDto_InvalidId_Exception() {
+        // When
+        Throwable thrown = assertThrows(ObjectNotFoundException.class,
+                () -> this.bulkGenerationService.getBulkGenerationDto("Invalid Id"));
+
+        // Then
+        assertThat(thrown)
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find bulk generation with Id Invalid Id");
+    }
+}
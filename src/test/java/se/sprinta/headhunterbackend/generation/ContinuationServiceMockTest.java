@@ -0,0 +1,143 @@
+package se.sprinta.headhunterbackend.generation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import se.sprinta.headhunterbackend.client.chat.ChatClient;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
+import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
+import se.sprinta.headhunterbackend.client.chat.dto.Choice;
+import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.client.chat.dto.Usage;
+import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.usage.TokenUsageService;
+import se.sprinta.headhunterbackend.utils.HtmlExtractor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class ContinuationServiceMockTest {
+
+    @Mock
+    private ChatClient chatClient;
+    @Mock
+    private TokenUsageService tokenUsageService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ContinuationService continuationService;
+
+    private Job job;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        // A short tail, so that the tests can see where it starts
+        this.continuationService = new ContinuationService(this.chatClient, this.tokenUsageService, this.meterRegistry, "gpt-4", 2, 40);
+
+        this.job = new Job("title 1", "description 1", "instruction 1");
+        this.job.setId(1L);
+    }
+
+    @Test
+    @DisplayName("complete - Truncated Response - Tail Sent And Continuation Stitched")
+    void test_Complete_TruncatedResponse_TailSentAndContinuationStitched() {
+        String response = "Here it is:\n```html\n<!DOCTYPE html><html><body><h1>Developer</h1><p>We are looking for a devel";
+        Usage usage = new Usage(30, 10, 40);
+
+        // Given
+        given(this.chatClient.generate(any(ChatRequest.class))).willReturn(new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", "oper who knows Java.</p></body></html>\n```"), "stop")), usage));
+
+        // When
+        String completed = this.continuationService.complete(this.job, response);
+
+        // Then
+        assertEquals(response + "oper who knows Java.</p></body></html>\n```", completed);
+        assertEquals("<!DOCTYPE html><html><body><h1>Developer</h1><p>We are looking for a developer who knows Java.</p></body></html>",
+                HtmlExtractor.extract(completed));
+
+        ArgumentCaptor<ChatRequest> chatRequestCaptor = ArgumentCaptor.forClass(ChatRequest.class);
+        then(this.chatClient).should(times(1)).generate(chatRequestCaptor.capture());
+        List<Message> messages = chatRequestCaptor.getValue().messages();
+        assertEquals(ContinuationService.CONTINUE_INSTRUCTION, messages.get(0).content());
+        // Only the tail is sent, from the first tag in it
+        assertEquals("</h1><p>We are looking for a devel", messages.get(1).content());
+
+        then(this.tokenUsageService).should().record(this.job, usage);
+        assertEquals(1.0, this.meterRegistry.get("ai.continuations").tag("result", "completed").counter().count());
+    }
+
+    @Test
+    @DisplayName("complete - Still Truncated - Continued Until Max Attempts")
+    void test_Complete_StillTruncated_ContinuedUntilMaxAttempts() {
+        // Given
+        given(this.chatClient.generate(any(ChatRequest.class))).willReturn(
+                new ChatResponse(List.of(new Choice(0, new Message("assistant", "<p>more</p>"), Choice.FINISH_REASON_LENGTH))),
+                new ChatResponse(List.of(new Choice(0, new Message("assistant", "<p>and more</p>"), Choice.FINISH_REASON_LENGTH))));
+
+        // When
+        String completed = this.continuationService.complete(this.job, "<!DOCTYPE html><html><body>");
+
+        // Then
+        assertEquals("<!DOCTYPE html><html><body><p>more</p><p>and more</p>", completed);
+        then(this.chatClient).should(times(2)).generate(any(ChatRequest.class));
+        assertEquals(1.0, this.meterRegistry.get("ai.continuations").tag("result", "exhausted").counter().count());
+    }
+
+    @Test
+    @DisplayName("complete - Complete Document - No AI Call")
+    void test_Complete_CompleteDocument_NoAiCall() {
+        String response = "<!DOCTYPE html><html><body>ad</body></html>";
+
+        // When
+        String completed = this.continuationService.complete(this.job, response);
+
+        // Then
+        assertEquals(response, completed);
+        then(this.chatClient).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("completeStream - Truncated Stream - Continuation Streamed")
+    void test_CompleteStream_TruncatedStream_ContinuationStreamed() {
+        String response = "<!DOCTYPE html><html><body><p>generate con";
+        HtmlExtractor htmlExtractor = new HtmlExtractor().feed(response);
+        List<String> deltas = new ArrayList<>();
+
+        // Given
+        given(this.chatClient.generate(any(ChatRequest.class))).willReturn(new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", "```html\ntent</p></body></html>"), "stop"))));
+
+        // When
+        assertThat(ContinuationService.isTruncated(new Choice(0, new Message("assistant", response)), htmlExtractor)).isTrue();
+        this.continuationService.completeStream(this.job, response, htmlExtractor, deltas::add);
+
+        // Then
+        assertEquals(List.of("tent</p></body></html>"), deltas);
+        assertEquals("<!DOCTYPE html><html><body><p>generate content</p></body></html>", htmlExtractor.finish());
+    }
+
+    @Test
+    @DisplayName("stitch - Repeated Tail - Repetition Dropped")
+    void test_Stitch_RepeatedTail_RepetitionDropped() {
+        String response = "<ul><li>Java</li><li>Spring Boot</li><li>Rea";
+
+        assertEquals("ct</li></ul>", ContinuationService.stitch(response, "<li>Spring Boot</li><li>React</li></ul>", 2000));
+        assertEquals("ct</li></ul>", ContinuationService.stitch(response, "ct</li></ul>", 2000));
+        // Too short to tell a repetition from a coincidence
+        assertEquals("a</li>", ContinuationService.stitch(response, "a</li>", 2000));
+    }
+}
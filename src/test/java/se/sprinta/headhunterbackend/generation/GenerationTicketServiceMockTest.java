@@ -0,0 +1,219 @@
+package se.sprinta.headhunterbackend.generation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import se.sprinta.headhunterbackend.ad.AdService;
+import se.sprinta.headhunterbackend.generation.dto.GenerationTicketDtoView;
+import se.sprinta.headhunterbackend.job.JobRepository;
+import se.sprinta.headhunterbackend.job.JobService;
+import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class GenerationTicketServiceMockTest {
+
+    @Mock
+    private GenerationTicketRepository generationTicketRepository;
+    @Mock
+    private JobRepository jobRepository;
+    @Mock
+    private AdService adService;
+    @Mock
+    private JobService jobService;
+    @Mock
+    private GenerationWorkerPool generationWorkerPool;
+
+    private GenerationTicketService generationTicketService;
+
+    @BeforeEach
+    void setUp() {
+        this.generationTicketService = new GenerationTicketService(
+                this.generationTicketRepository,
+                this.jobRepository,
+                this.adService,
+                this.jobService,
+                this.generationWorkerPool,
+                1800000);
+    }
+
+    @Test
+    @DisplayName("POST - enqueue - Success")
+    void test_Enqueue_Success() {
+        GenerationTicket ticket = new GenerationTicket(1L);
+        ticket.setId("ticket 1");
+
+        // Given
+        given(this.jobRepository.existsById(1L)).willReturn(true);
+        given(this.generationTicketRepository.save(any(GenerationTicket.class))).willReturn(ticket);
+        given(this.generationWorkerPool.availableSlots()).willReturn(0);
+
+        // When
+        GenerationTicket savedTicket = this.generationTicketService.enqueue(1L);
+
+        // Then
+        assertEquals("ticket 1", savedTicket.getId());
+        assertEquals(GenerationStatus.QUEUED, savedTicket.getStatus());
+
+        // Verify
+        then(this.generationTicketRepository).should().save(any(GenerationTicket.class));
+        then(this.jobService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("POST - enqueue - Invalid Job Id - Exception")
+    void test_Enqueue_InvalidJobId_Exception() {
+        // Given
+        given(this.jobRepository.existsById(Long.MAX_VALUE)).willReturn(false);
+
+        // When
+        Throwable thrown = assertThrows(ObjectNotFoundException.class,
+                () -> this.generationTicketService.enqueue(Long.MAX_VALUE));
+
+        // Then
+        assertThat(thrown)
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find job with Id " + Long.MAX_VALUE);
+
+        // Verify
+        then(this.generationTicketRepository).should(never()).save(any(GenerationTicket.class));
+    }
+
+    @Test
+    @DisplayName("GET - getTicketDto - Done - Success")
+    void test_GetTicketDto_Done_Success() {
+        GenerationTicket ticket = new GenerationTicket(1L);
+        ticket.setId("ticket 1");
+        ticket.markDone("id 1");
+
+        // Given
+        given(this.generationTicketRepository.findById("ticket 1")).willReturn(Optional.of(ticket));
+        given(this.adService.getHtmlCode("id 1")).willReturn("htmlCode 1");
+
+        // When
+        GenerationTicketDtoView ticketDtoView = this.generationTicketService.getTicketDto("ticket 1");
+
+        // Then
+        assertEquals(GenerationStatus.DONE, ticketDtoView.status());
+        assertEquals("id 1", ticketDtoView.adId());
+        assertEquals("htmlCode 1", ticketDtoView.htmlCode());
+
+        // Verify
+        then(this.adService).should().getHtmlCode("id 1");
+    }
+
+    @Test
+    @DisplayName("GET - getTicketDto - Done Ad Deleted - No Html Code")
+    void test_GetTicketDto_DoneAdDeleted_NoHtmlCode() {
+        GenerationTicket ticket = new GenerationTicket(1L);
+        ticket.setId("ticket 1");
+        ticket.markDone("id 1");
+
+        // Given
+        given(this.generationTicketRepository.findById("ticket 1")).willReturn(Optional.of(ticket));
+        given(this.adService.getHtmlCode("id 1")).willThrow(new ObjectNotFoundException("ad", "id 1"));
+
+        // When
+        GenerationTicketDtoView ticketDtoView = this.generationTicketService.getTicketDto("ticket 1");
+
+        // Then
+        assertEquals(GenerationStatus.DONE, ticketDtoView.status());
+        assertEquals("id 1", ticketDtoView.adId());
+        assertNull(ticketDtoView.htmlCode());
+    }
+
+    @Test
+    @DisplayName("GET - getTicketDto - Invalid Ticket Id - Exception")
+    void test_GetTicketDto_InvalidTicketId_Exception() {
+        // Given
+        given(this.generationTicketRepository.findById("Invalid Id")).willReturn(Optional.empty());
+
+        // When
+        Throwable thrown = assertThrows(ObjectNotFoundException.class,
+                () -> this.generationTicketService.getTicketDto("Invalid Id"));
+
+        // Then
+        assertThat(thrown)
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find generation ticket with Id Invalid Id");
+    }
+
+    @Test
+    @DisplayName("run - Generation Fails - Ticket Marked Failed")
+    void test_Run_GenerationFails_TicketFailed() {
+        GenerationTicket ticket = new GenerationTicket(1L);
+        ticket.setId("ticket 1");
+
+        // Given
+        given(this.generationTicketRepository.findById("ticket 1")).willReturn(Optional.of(ticket));
+        given(this.jobService.generateAd(1L)).willThrow(new IllegalArgumentException("AI response is not valid HTML code"));
+
+        // When
+        this.generationTicketService.run("ticket 1");
+
+        // Then
+        ArgumentCaptor<GenerationTicket> ticketArgumentCaptor = ArgumentCaptor.forClass(GenerationTicket.class);
+        then(this.generationTicketRepository).should().save(ticketArgumentCaptor.capture());
+        assertEquals(GenerationStatus.FAILED, ticketArgumentCaptor.getValue().getStatus());
+        assertEquals("AI response is not valid HTML code", ticketArgumentCaptor.getValue().getErrorMessage());
+    }
+
+    @Test
+    @DisplayName("run - Generation Throws Error - Ticket Marked Failed")
+    void test_Run_GenerationThrowsError_TicketFailed() {
+        GenerationTicket ticket = new GenerationTicket(1L);
+        ticket.setId("ticket 1");
+        ticket.setStatus(GenerationStatus.RUNNING);
+
+        // Given
+        given(this.generationTicketRepository.findById("ticket 1")).willReturn(Optional.of(ticket));
+        given(this.jobService.generateAd(1L)).willThrow(new OutOfMemoryError("Java heap space"));
+
+        // When
+        assertThrows(OutOfMemoryError.class, () -> this.generationTicketService.run("ticket 1"));
+
+        // Then
+        ArgumentCaptor<GenerationTicket> ticketArgumentCaptor = ArgumentCaptor.forClass(GenerationTicket.class);
+        then(this.generationTicketRepository).should().save(ticketArgumentCaptor.capture());
+        assertEquals(GenerationStatus.FAILED, ticketArgumentCaptor.getValue().getStatus());
+        assertEquals("Generation was interrupted", ticketArgumentCaptor.getValue().getErrorMessage());
+        then(this.generationWorkerPool).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("recover - Requeues Only Stale Running Tickets")
+    void test_Recover_RequeuesOnlyStaleTickets() {
+        // Given
+        given(this.generationTicketRepository.transitionAllUpdatedBefore(
+                eq(GenerationStatus.RUNNING), eq(GenerationStatus.QUEUED), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .willReturn(1);
+        given(this.generationWorkerPool.availableSlots()).willReturn(0);
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        this.generationTicketService.recover();
+        LocalDateTime after = LocalDateTime.now();
+
+        // Then
+        ArgumentCaptor<LocalDateTime> updatedBeforeCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        then(this.generationTicketRepository).should().transitionAllUpdatedBefore(
+                eq(GenerationStatus.RUNNING), eq(GenerationStatus.QUEUED), updatedBeforeCaptor.capture(), any(LocalDateTime.class));
+        assertThat(updatedBeforeCaptor.getValue()).isBetween(before.minusMinutes(30), after.minusMinutes(30));
+    }
+}
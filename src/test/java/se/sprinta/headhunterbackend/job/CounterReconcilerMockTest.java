@@ -0,0 +1,107 @@
+package se.sprinta.headhunterbackend.job;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
+import se.sprinta.headhunterbackend.account.AccountRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class CounterReconcilerMockTest {
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountPrincipalCache accountPrincipalCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CounterReconciler counterReconciler;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.counterReconciler = new CounterReconciler(this.jobRepository, this.accountRepository, this.accountPrincipalCache, this.meterRegistry, 2);
+    }
+
+    @Test
+    @DisplayName("reconcile - Jobs In Batches - Repaired Rows Counted")
+    void test_Reconcile_JobsInBatches_RepairedRowsCounted() {
+        // Given
+        given(this.jobRepository.findIdsAfter(eq(0L), any(Pageable.class))).willReturn(List.of(1L, 2L));
+        given(this.jobRepository.findIdsAfter(eq(2L), any(Pageable.class))).willReturn(List.of(3L));
+        given(this.jobRepository.reconcileNumberOfAds(List.of(1L, 2L))).willReturn(1);
+        given(this.jobRepository.reconcileNumberOfAds(List.of(3L))).willReturn(1);
+        given(this.accountRepository.findEmailsAfter(eq(""), any(Pageable.class))).willReturn(List.of());
+
+        // When
+        this.counterReconciler.reconcile();
+
+        // Then
+        assertEquals(2.0, this.meterRegistry.get("counters.reconciled").tag("counter", "job.number_of_ads").counter().count());
+        assertEquals(0.0, this.meterRegistry.get("counters.reconciled").tag("counter", "account.number_of_jobs").counter().count());
+
+        // Verify
+        then(this.jobRepository).should(times(2)).findIdsAfter(anyLong(), any(Pageable.class));
+        then(this.accountRepository).should(never()).reconcileNumberOfJobs(any());
+    }
+
+    @Test
+    @DisplayName("reconcile - Full Last Batch - Stops At Empty Batch")
+    void test_Reconcile_FullLastBatch_StopsAtEmptyBatch() {
+        // Given
+        given(this.jobRepository.findIdsAfter(eq(0L), any(Pageable.class))).willReturn(List.of());
+        given(this.accountRepository.findEmailsAfter(eq(""), any(Pageable.class))).willReturn(List.of("a@hh.se", "b@hh.se"));
+        given(this.accountRepository.findEmailsAfter(eq("b@hh.se"), any(Pageable.class))).willReturn(List.of());
+        given(this.accountRepository.reconcileNumberOfJobs(List.of("a@hh.se", "b@hh.se"))).willReturn(0);
+
+        // When
+        this.counterReconciler.reconcile();
+
+        // Then
+        assertEquals(0.0, this.meterRegistry.get("counters.reconciled").tag("counter", "account.number_of_jobs").counter().count());
+
+        // Verify
+        then(this.accountRepository).should().reconcileNumberOfJobs(List.of("a@hh.se", "b@hh.se"));
+        then(this.jobRepository).should(never()).reconcileNumberOfAds(any());
+        then(this.accountPrincipalCache).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("reconcile - Accounts Repaired - Cached Credentials Of Batch Invalidated")
+    void test_Reconcile_AccountsRepaired_CachedCredentialsOfBatchInvalidated() {
+        // Given
+        given(this.jobRepository.findIdsAfter(eq(0L), any(Pageable.class))).willReturn(List.of());
+        given(this.accountRepository.findEmailsAfter(eq(""), any(Pageable.class))).willReturn(List.of("a@hh.se", "b@hh.se"));
+        given(this.accountRepository.findEmailsAfter(eq("b@hh.se"), any(Pageable.class))).willReturn(List.of("c@hh.se"));
+        given(this.accountRepository.reconcileNumberOfJobs(List.of("a@hh.se", "b@hh.se"))).willReturn(1);
+        given(this.accountRepository.reconcileNumberOfJobs(List.of("c@hh.se"))).willReturn(0);
+
+        // When
+        this.counterReconciler.reconcile();
+
+        // Then
+        assertEquals(1.0, this.meterRegistry.get("counters.reconciled").tag("counter", "account.number_of_jobs").counter().count());
+
+        // Verify
+        then(this.accountPrincipalCache).should().invalidate("a@hh.se");
+        then(this.accountPrincipalCache).should().invalidate("b@hh.se");
+        then(this.accountPrincipalCache).should(never()).invalidate("c@hh.se");
+    }
+}
@@ -0,0 +1,197 @@
+package se.sprinta.headhunterbackend.job;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import se.sprinta.headhunterbackend.TestsDatabaseInitializer;
+import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.account.AccountRepository;
+import se.sprinta.headhunterbackend.client.chat.FakeOpenAiServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Drives JobController.generateAd end to end, through security, JobService, the whole ChatClient stack and H2,
+ * against FakeOpenAiServer, and reports throughput and p50/p95/p99.
+ * <p>
+ * Tagged "load", so it only runs with mvn test -P load-test. The size of the run can be changed with
+ * -Dload.requests, -Dload.concurrency, -Dload.jobs and -Dload.latency-ms. Every run adds a line to
+ * target/load-test/generate-ad.csv, to compare releases with.
+ */
+
+@Tag("load")
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GenerateAdLoadTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerateAdLoadTest.class);
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 1000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int JOBS = Integer.getInteger("load.jobs", 200);
+    private static final long LATENCY_MILLIS = Long.getLong("load.latency-ms", 200);
+
+    private static final Path REPORT = Path.of("target", "load-test", "generate-ad.csv");
+
+    // 1% 429 and 0.5% 500, which RateLimitedChatClient retries
+    private static final FakeOpenAiServer SERVER = startServer();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private TestsDatabaseInitializer h2DbInit;
+
+    @Value("${api.endpoint.base-url-job}")
+    private String baseUrlJob;
+
+    private final List<Long> jobIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void aiProperties(DynamicPropertyRegistry registry) {
+        registry.add("ai.openai.endpoint", SERVER::url);
+        registry.add("ai.openai.api-key", () -> "load-test");
+        registry.add("ai.openai.model", () -> "gpt-fake");
+        registry.add("ai.cache.enabled", () -> "false");
+        registry.add("ai.rate-limit.requests-per-minute", () -> "1000000");
+        registry.add("ai.rate-limit.tokens-per-minute", () -> "1000000000");
+        registry.add("ai.rate-limit.max-concurrency", () -> String.valueOf(CONCURRENCY));
+        registry.add("ai.rate-limit.base-backoff-ms", () -> "50");
+        registry.add("usage.daily-token-quota", () -> "0");
+    }
+
+    @BeforeEach
+    void setUp() {
+        Account account = new Account("load-test@hh.se", "user");
+        account.setPassword("a");
+
+        List<Job> jobs = new ArrayList<>(JOBS);
+        for (int i = 1; i <= JOBS; i++) {
+            Job job = new Job("title " + i, "Description " + i + " of a job that needs an ad.", "Write a job ad in HTML.");
+            account.addJob(job);
+            jobs.add(job);
+        }
+
+        this.accountRepository.save(account);
+        this.jobRepository.saveAll(jobs).forEach(job -> this.jobIds.add(job.getId()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.h2DbInit.clearH2Database();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        SERVER.close();
+    }
+
+    @Test
+    @DisplayName("GET - generate - Load - Throughput And Latency Reported")
+    void test_Generate_Load_ThroughputAndLatencyReported() throws Exception {
+        long[] latencies = new long[REQUESTS];
+        List<Future<Integer>> statuses = new ArrayList<>(REQUESTS);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY)) {
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                Long jobId = this.jobIds.get(request % this.jobIds.size());
+                statuses.add(executor.submit(() -> {
+                    long requestStart = System.nanoTime();
+                    MvcResult result = this.mockMvc.perform(get(this.baseUrlJob + "/generate/" + jobId)
+                                    .param("cache", "false")
+                                    .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_user"))))
+                            .andReturn();
+                    latencies[request] = System.nanoTime() - requestStart;
+                    return result.getResponse().getStatus();
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long failed = 0;
+        for (Future<Integer> status : statuses)
+            if (status.get() != 200) failed++;
+
+        Arrays.sort(latencies);
+        double throughput = REQUESTS / (elapsed / 1e9);
+        long p50 = millis(percentile(latencies, 0.50));
+        long p95 = millis(percentile(latencies, 0.95));
+        long p99 = millis(percentile(latencies, 0.99));
+
+        LOGGER.info("generate: {} requests, concurrency {}, upstream latency {} ms, {} upstream calls ({} 429, {} 500)",
+                REQUESTS, CONCURRENCY, LATENCY_MILLIS, SERVER.getRequests(), SERVER.getRateLimited(), SERVER.getServerErrors());
+        LOGGER.info("generate: {} req/s, p50 {} ms, p95 {} ms, p99 {} ms, {} failed",
+                String.format("%.1f", throughput), p50, p95, p99, failed);
+        report(throughput, p50, p95, p99, failed);
+
+        assertThat(failed).isZero();
+    }
+
+    private static FakeOpenAiServer startServer() {
+        try {
+            return new FakeOpenAiServer(42)
+                    .withLatency(FakeOpenAiServer.LatencyDistribution.logNormal(LATENCY_MILLIS, 0.5))
+                    .withErrors(0.01, 0.005)
+                    .start();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static void report(double throughput, long p50, long p95, long p99, long failed) throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        if (Files.notExists(REPORT))
+            Files.writeString(REPORT, "timestamp,requests,concurrency,latency_ms,throughput,p50_ms,p95_ms,p99_ms,failed\n");
+
+        Files.writeString(REPORT, String.format("%s,%d,%d,%d,%.1f,%d,%d,%d,%d%n",
+                        Instant.now(), REQUESTS, CONCURRENCY, LATENCY_MILLIS, throughput, p50, p95, p99, failed),
+                StandardOpenOption.APPEND);
+    }
+}
@@ -17,22 +17,28 @@ import org.springframework.test.web.servlet.ResultActions;
 import se.sprinta.headhunterbackend.MockDatabaseInitializer;
 import se.sprinta.headhunterbackend.TestUtils;
 import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.ad.Ad;
 import se.sprinta.headhunterbackend.job.converter.JobDtoFormAddToJobConverter;
 import se.sprinta.headhunterbackend.job.dto.JobDtoFormAdd;
 import se.sprinta.headhunterbackend.job.dto.JobDtoFormUpdate;
 import se.sprinta.headhunterbackend.job.dto.JobDtoView;
 import se.sprinta.headhunterbackend.system.StatusCode;
+import se.sprinta.headhunterbackend.system.exception.AiServiceUnavailableException;
+import se.sprinta.headhunterbackend.system.exception.InvalidVariantCountException;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("mock-test")
 @WebMvcTest(JobController.class)
@@ -51,6 +57,9 @@ class JobControllerMockTest {
     @MockBean
     private JobDtoFormAddToJobConverter jobDtoFormAddToJobConverter;
 
+    @MockBean
+    private AdStreamService adStreamService;
+
     @Value("${api.endpoint.base-url-job}")
     String baseUrlJob;
 
@@ -301,4 +310,74 @@ class JobControllerMockTest {
                 .andExpect(jsonPath("$.message").value("Could not find account with Email Invalid Email"))
                 .andExpect(jsonPath("$.data").isEmpty());
     }
+
+    @Test
+    @DisplayName("GET - generateVariants - Success")
+    void test_GenerateVariants_Success() throws Exception {
+        List<Ad> ads = List.of(
+                new Ad("id 1", "<!DOCTYPE html><html>1</html>"),
+                new Ad("id 2", "<!DOCTYPE html><html>2</html>"));
+
+        // Given
+        given(this.jobService.generateVariants(1L, 2)).willReturn(ads);
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlJob + "/generateVariants/1/2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Generate Variants Success"))
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].id").value("id 1"))
+                .andExpect(jsonPath("$.data[1].htmlCode").value("<!DOCTYPE html><html>2</html>"));
+    }
+
+    @Test
+    @DisplayName("GET - generateVariants - Invalid Number Of Variants - Exception")
+    void test_GenerateVariants_InvalidNumberOfVariants_Exception() throws Exception {
+        // Given
+        given(this.jobService.generateVariants(1L, 0)).willThrow(new InvalidVariantCountException(0, JobService.MAX_VARIANTS));
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlJob + "/generateVariants/1/0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Number of variants must be between 1 and 5, was 0"))
+                .andExpect(jsonPath("$.data").isEmpty());
+    }
+
+    @Test
+    @DisplayName("GET - generate - AI Service Unavailable - Exception")
+    void test_Generate_AiServiceUnavailable_Exception() throws Exception {
+        // Given
+        given(this.jobService.generate(1L, true)).willThrow(new AiServiceUnavailableException(30));
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlJob + "/generate/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.SERVICE_UNAVAILABLE))
+                .andExpect(jsonPath("$.message").value("The AI service is temporarily unavailable, try again in 30 seconds"))
+                .andExpect(jsonPath("$.data").isEmpty());
+    }
+
+    @Test
+    @DisplayName("GET - generate - AI Service Unavailable With Fallback - Latest Ad")
+    void test_Generate_AiServiceUnavailableWithFallback_LatestAd() throws Exception {
+        // Given
+        given(this.jobService.generate(1L, true)).willThrow(new AiServiceUnavailableException(30));
+        given(this.jobService.findLatestAd(1L)).willReturn(Optional.of(new Ad("id 1", "htmlCode 1")));
+
+        // When and Then
+        this.mockMvc.perform(get(this.baseUrlJob + "/generate/1")
+                        .param("fallback", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Generate Ad Fallback Success"))
+                .andExpect(jsonPath("$.data").value("htmlCode 1"));
+    }
 }
@@ -8,28 +8,41 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.test.context.ActiveProfiles;
 import se.sprinta.headhunterbackend.MockDatabaseInitializer;
 import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
 import se.sprinta.headhunterbackend.account.AccountRepository;
 import se.sprinta.headhunterbackend.ad.Ad;
 import se.sprinta.headhunterbackend.ad.AdRepository;
+import se.sprinta.headhunterbackend.ad.AdService;
 import se.sprinta.headhunterbackend.client.chat.ChatClient;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatRequest;
 import se.sprinta.headhunterbackend.client.chat.dto.ChatResponse;
 import se.sprinta.headhunterbackend.client.chat.dto.Choice;
 import se.sprinta.headhunterbackend.client.chat.dto.Message;
+import se.sprinta.headhunterbackend.client.chat.prompt.PromptPreparer;
+import se.sprinta.headhunterbackend.generation.ContinuationService;
 import se.sprinta.headhunterbackend.job.dto.JobCardDtoView;
 import se.sprinta.headhunterbackend.job.dto.JobDtoFormUpdate;
 import se.sprinta.headhunterbackend.job.dto.JobDtoView;
+import se.sprinta.headhunterbackend.system.exception.InvalidVariantCountException;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
+import se.sprinta.headhunterbackend.usage.TokenUsageService;
+import se.sprinta.headhunterbackend.utils.HtmlExtractor;
 import se.sprinta.headhunterbackend.utils.HtmlUtilities;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -46,11 +59,21 @@ class JobServiceMockTest {
     @Mock
     private AdRepository adRepository;
     @Mock
+    private AdService adService;
+    @Mock
     private AccountRepository accountRepository;
     @Mock
     private ChatClient chatClient;
     @Mock
     private HtmlUtilities htmlUtilities;
+    @Mock
+    private TokenUsageService tokenUsageService;
+    @Spy
+    private PromptPreparer promptPreparer = new PromptPreparer(4000, 20000);
+    @Mock
+    private ContinuationService continuationService;
+    @Mock
+    private AccountPrincipalCache accountPrincipalCache;
 
     @InjectMocks
     private JobService jobService;
@@ -304,8 +327,12 @@ class JobServiceMockTest {
         assertEquals(savedJob.getDescription(), capturedJob.getDescription());
         assertEquals(savedJob.getInstruction(), capturedJob.getInstruction());
 
+        assertEquals(1, account.getNumber_of_jobs());
+
         // Verify
         then(this.accountRepository).should().findAccountByEmail("email");
+        then(this.accountRepository).should().incrementNumberOfJobs("email", 1);
+        then(this.accountPrincipalCache).should().invalidate("email");
         then(this.jobRepository).should().save(jobArgumentCaptor.capture());
     }
 
@@ -407,6 +434,8 @@ class JobServiceMockTest {
         // Verify
         then(this.accountRepository).should().findById("user1-mock@hh.se");
         then(this.jobRepository).should().findById(1L);
+        then(this.accountRepository).should().decrementNumberOfJobs("user1-mock@hh.se", 1);
+        then(this.accountPrincipalCache).should().invalidate("user1-mock@hh.se");
     }
 
     @Test
@@ -479,19 +508,20 @@ class JobServiceMockTest {
         given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
         given(this.chatClient.generate(chatRequest)).willReturn(chatResponse);
         given(this.htmlUtilities.makeHtmlResponseSubstring(response)).willReturn(response);
-        given(this.adRepository.save(ad)).willReturn(ad);
+        given(this.adService.addGeneratedAd(job, response)).willReturn(ad);
 
         // When
         String substringResponse = this.jobService.generate(job.getId());
 
         // Then
         ArgumentCaptor<ChatRequest> chatRequestArgumentCaptor = ArgumentCaptor.forClass(ChatRequest.class);
-        ArgumentCaptor<Ad> adArgumentCaptor = ArgumentCaptor.forClass(Ad.class);
+        ArgumentCaptor<String> htmlCodeArgumentCaptor = ArgumentCaptor.forClass(String.class);
 
         // Verify
         then(this.jobRepository).should().findById(job.getId());
         verify(this.chatClient).generate(chatRequestArgumentCaptor.capture());
-        then(this.adRepository).should().save(adArgumentCaptor.capture());
+        then(this.adService).should().addGeneratedAd(eq(job), htmlCodeArgumentCaptor.capture());
+        then(this.adRepository).shouldHaveNoInteractions();
 
         // Assert
         ChatRequest capturedChatRequest = chatRequestArgumentCaptor.getValue();
@@ -501,11 +531,50 @@ class JobServiceMockTest {
         assertEquals("instruction", capturedMessages.get(0).content());
         assertEquals("user", capturedMessages.get(1).role());
 
-        Ad capturedAd = adArgumentCaptor.getValue();
-        assertEquals("<!DOCTYPE html><html><body>generate content</body></html>", capturedAd.getHtmlCode());
+        assertEquals("<!DOCTYPE html><html><body>generate content</body></html>", htmlCodeArgumentCaptor.getValue());
         assertEquals("<!DOCTYPE html><html><body>generate content</body></html>", substringResponse);
     }
 
+    @Test
+    @DisplayName("POST - generateAdStream - Success")
+    void test_GenerateAdStreamSuccess() {
+        Job job = new Job();
+        job.setId(1L);
+        job.setInstruction("instruction");
+        job.setDescription("description");
+
+        String response = "<!DOCTYPE html><html><body>generate content</body></html>";
+
+        // The whole document arrived, so the content of the choice isn't needed for a continuation
+        ChatResponse chatResponse = new ChatResponse(List.of(mock(Choice.class)));
+
+        Ad ad = new Ad(response);
+        List<String> deltas = new ArrayList<>();
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(this.htmlUtilities.newExtractor()).willReturn(new HtmlExtractor());
+        given(this.chatClient.generateStream(any(ChatRequest.class), any())).willAnswer(invocation -> {
+            Consumer<String> onDelta = invocation.getArgument(1);
+            onDelta.accept(response.substring(0, 20));
+            onDelta.accept(response.substring(20));
+            return chatResponse;
+        });
+        given(this.adService.addGeneratedAd(job, response)).willReturn(ad);
+
+        // When
+        Ad generatedAd = this.jobService.generateAdStream(job.getId(), deltas::add);
+
+        // Then
+        assertEquals(ad, generatedAd);
+        assertEquals(List.of(response.substring(0, 20), response.substring(20)), deltas);
+
+        // Verify
+        then(this.adService).should().addGeneratedAd(job, response);
+        then(this.adRepository).shouldHaveNoInteractions();
+        then(this.continuationService).shouldHaveNoInteractions();
+    }
+
     @Test
     @DisplayName("POST - generate - Invalid Job Id - Exception")
     void test_Generate_InvalidJobId_Exception() {
@@ -524,4 +593,267 @@ class JobServiceMockTest {
         // Verify
         then(this.jobRepository).should().findById(Long.MAX_VALUE);
     }
+
+    @Test
+    @DisplayName("POST - generate - Concurrent Calls For Same Job - One AI Call")
+    void test_Generate_ConcurrentCallsSameJob_OneAiCall() throws InterruptedException {
+        Job job = new Job();
+        job.setId(1L);
+        job.setInstruction("instruction");
+        job.setDescription("description");
+
+        String response = "<!DOCTYPE html><html><body>generate content</body></html>";
+
+        Choice choice = mock(Choice.class);
+        given(choice.message()).willReturn(new Message("assistant", response));
+        ChatResponse chatResponse = new ChatResponse(List.of(choice));
+
+        CountDownLatch aiCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseAiCall = new CountDownLatch(1);
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(this.chatClient.generate(any(ChatRequest.class))).willAnswer(invocation -> {
+            aiCallStarted.countDown();
+            releaseAiCall.await(5, TimeUnit.SECONDS);
+            return chatResponse;
+        });
+        given(this.htmlUtilities.makeHtmlResponseSubstring(response)).willReturn(response);
+        given(this.adService.addGeneratedAd(job, response)).willAnswer(invocation -> new Ad(response));
+
+        // When
+        AtomicReference<Ad> firstAd = new AtomicReference<>();
+        AtomicReference<Ad> secondAd = new AtomicReference<>();
+
+        Thread first = new Thread(() -> firstAd.set(this.jobService.generateAd(1L)));
+        first.start();
+        assertThat(aiCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread second = new Thread(() -> secondAd.set(this.jobService.generateAd(1L)));
+        second.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (second.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10); // Wait until the second call is waiting for the first one
+        }
+
+        releaseAiCall.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        // Then
+        assertThat(firstAd.get()).isNotNull();
+        assertThat(secondAd.get()).isSameAs(firstAd.get());
+
+        // Verify
+        then(this.chatClient).should(times(1)).generate(any(ChatRequest.class));
+        then(this.adService).should(times(1)).addGeneratedAd(job, response);
+    }
+
+    @Test
+    @DisplayName("POST - generate - Concurrent Cached And Uncached Calls For Same Job - Two AI Calls")
+    void test_Generate_ConcurrentCachedAndUncachedCallsSameJob_TwoAiCalls() throws InterruptedException {
+        Job job = new Job();
+        job.setId(1L);
+        job.setInstruction("instruction");
+        job.setDescription("description");
+
+        String response = "<!DOCTYPE html><html><body>generate content</body></html>";
+
+        Choice choice = mock(Choice.class);
+        given(choice.message()).willReturn(new Message("assistant", response));
+        ChatResponse chatResponse = new ChatResponse(List.of(choice));
+
+        CountDownLatch aiCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseAiCall = new CountDownLatch(1);
+        AtomicInteger aiCalls = new AtomicInteger();
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(this.chatClient.generate(any(ChatRequest.class))).willAnswer(invocation -> {
+            if (aiCalls.incrementAndGet() == 1) {
+                aiCallStarted.countDown();
+                releaseAiCall.await(5, TimeUnit.SECONDS);
+            }
+            return chatResponse;
+        });
+        given(this.htmlUtilities.makeHtmlResponseSubstring(response)).willReturn(response);
+        given(this.adService.addGeneratedAd(job, response)).willAnswer(invocation -> new Ad(response));
+
+        // When
+        AtomicReference<Ad> cachedAd = new AtomicReference<>();
+
+        Thread cached = new Thread(() -> cachedAd.set(this.jobService.generateAd(1L, true)));
+        cached.start();
+        assertThat(aiCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The uncached call doesn't wait for the cached one, it makes its own AI call
+        Ad uncachedAd = this.jobService.generateAd(1L, false);
+
+        releaseAiCall.countDown();
+        cached.join(5000);
+
+        // Then
+        assertThat(cachedAd.get()).isNotNull();
+        assertThat(uncachedAd).isNotSameAs(cachedAd.get());
+
+        // Verify
+        then(this.chatClient).should(times(2)).generate(any(ChatRequest.class));
+    }
+
+    @Test
+    @DisplayName("POST - generate - Concurrent Calls For Same Job, Save Fails - Exception For Every Call")
+    void test_Generate_ConcurrentCallsSameJobSaveFails_ExceptionForEveryCall() throws InterruptedException {
+        Job job = new Job();
+        job.setId(1L);
+        job.setInstruction("instruction");
+        job.setDescription("description");
+
+        String response = "<!DOCTYPE html><html><body>generate content</body></html>";
+
+        Choice choice = mock(Choice.class);
+        given(choice.message()).willReturn(new Message("assistant", response));
+        ChatResponse chatResponse = new ChatResponse(List.of(choice));
+
+        CountDownLatch aiCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseAiCall = new CountDownLatch(1);
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(this.chatClient.generate(any(ChatRequest.class))).willAnswer(invocation -> {
+            aiCallStarted.countDown();
+            releaseAiCall.await(5, TimeUnit.SECONDS);
+            return chatResponse;
+        });
+        given(this.htmlUtilities.makeHtmlResponseSubstring(response)).willReturn(response);
+        // The job was deleted while its ad was being generated, so the ad is never committed
+        given(this.adService.addGeneratedAd(job, response)).willThrow(new ObjectNotFoundException("job", 1L));
+
+        // When
+        AtomicReference<Object> firstOutcome = new AtomicReference<>();
+        AtomicReference<Object> secondOutcome = new AtomicReference<>();
+
+        Thread first = new Thread(() -> firstOutcome.set(generateAdOrException(1L)));
+        first.start();
+        assertThat(aiCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread second = new Thread(() -> secondOutcome.set(generateAdOrException(1L)));
+        second.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (second.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10); // Wait until the second call is waiting for the first one
+        }
+
+        releaseAiCall.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        // Then
+        assertThat(firstOutcome.get()).isInstanceOf(ObjectNotFoundException.class);
+        assertThat(secondOutcome.get()).isInstanceOf(ObjectNotFoundException.class);
+
+        // Verify
+        then(this.chatClient).should(times(1)).generate(any(ChatRequest.class));
+        then(this.adService).should(times(1)).addGeneratedAd(job, response);
+    }
+
+    @Test
+    @DisplayName("POST - generateAd - Truncated Response - Continued")
+    void test_GenerateAd_TruncatedResponse_Continued() {
+        Job job = new Job();
+        job.setId(1L);
+        job.setInstruction("instruction");
+        job.setDescription("description");
+
+        String truncatedResponse = "<!DOCTYPE html><html><body><p>generate con";
+        String completedResponse = "<!DOCTYPE html><html><body><p>generate content</p></body></html>";
+        ChatResponse chatResponse = new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", truncatedResponse), Choice.FINISH_REASON_LENGTH)));
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(this.chatClient.generate(any(ChatRequest.class))).willReturn(chatResponse);
+        given(this.continuationService.complete(job, truncatedResponse)).willReturn(completedResponse);
+        given(this.htmlUtilities.makeHtmlResponseSubstring(completedResponse)).willReturn(completedResponse);
+        given(this.adService.addGeneratedAd(job, completedResponse)).willAnswer(invocation -> new Ad(completedResponse));
+
+        // When
+        Ad ad = this.jobService.generateAd(1L);
+
+        // Then
+        assertEquals(completedResponse, ad.getHtmlCode());
+
+        // Verify
+        then(this.chatClient).should(times(1)).generate(any(ChatRequest.class));
+        then(this.continuationService).should().complete(job, truncatedResponse);
+        then(this.adService).should().addGeneratedAd(job, completedResponse);
+    }
+
+    @Test
+    @DisplayName("GET - generateVariants - Invalid Choice Skipped - Success")
+    void test_GenerateVariants_InvalidChoiceSkipped_Success() {
+        Job job = new Job();
+        job.setId(1L);
+        job.setInstruction("instruction");
+        job.setDescription("description");
+
+        String validResponse1 = "<!DOCTYPE html><html><body>variant 1</body></html>";
+        String invalidResponse = "Sorry, I can't do that";
+        String validResponse2 = "<!DOCTYPE html><html><body>variant 2</body></html>";
+
+        ChatResponse chatResponse = new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", validResponse1)),
+                new Choice(1, new Message("assistant", invalidResponse)),
+                new Choice(2, new Message("assistant", validResponse2))));
+
+        // Given
+        given(this.jobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(this.chatClient.generate(any(ChatRequest.class))).willReturn(chatResponse);
+        given(this.htmlUtilities.makeHtmlResponseSubstring(validResponse1)).willReturn(validResponse1);
+        given(this.htmlUtilities.makeHtmlResponseSubstring(invalidResponse)).willThrow(new IllegalArgumentException("AI response is not valid HTML code"));
+        given(this.htmlUtilities.makeHtmlResponseSubstring(validResponse2)).willReturn(validResponse2);
+        given(this.adRepository.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        List<Ad> ads = this.jobService.generateVariants(1L, 3);
+
+        // Then
+        ArgumentCaptor<ChatRequest> chatRequestArgumentCaptor = ArgumentCaptor.forClass(ChatRequest.class);
+        then(this.chatClient).should(times(1)).generate(chatRequestArgumentCaptor.capture());
+        assertEquals(3, chatRequestArgumentCaptor.getValue().n());
+
+        assertEquals(2, ads.size());
+        assertEquals(validResponse1, ads.get(0).getHtmlCode());
+        assertEquals(validResponse2, ads.get(1).getHtmlCode());
+        assertEquals(2, job.getNumberOfAds());
+
+        // Verify
+        then(this.jobRepository).should().incrementNumberOfAds(1L, 2);
+        then(this.jobRepository).should(never()).save(job);
+        then(this.adRepository).should(times(1)).saveAll(anyList());
+        then(this.adRepository).should(never()).save(any(Ad.class));
+    }
+
+    @Test
+    @DisplayName("GET - generateVariants - Invalid Number Of Variants - Exception")
+    void test_GenerateVariants_InvalidNumberOfVariants_Exception() {
+        // When
+        Throwable thrown = assertThrows(InvalidVariantCountException.class,
+                () -> this.jobService.generateVariants(1L, JobService.MAX_VARIANTS + 1));
+
+        // Then
+        assertThat(thrown)
+                .isInstanceOf(InvalidVariantCountException.class)
+                .hasMessage("Number of variants must be between 1 and 5, was 6");
+
+        // Verify
+        then(this.chatClient).shouldHaveNoInteractions();
+    }
+
+    private Object generateAdOrException(Long jobId) {
+        try {
+            return this.jobService.generateAd(jobId);
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
 }
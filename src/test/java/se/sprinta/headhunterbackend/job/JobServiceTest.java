@@ -9,6 +9,7 @@ import org.springframework.test.context.ActiveProfiles;
 import se.sprinta.headhunterbackend.TestsDatabaseInitializer;
 import se.sprinta.headhunterbackend.account.AccountRepository;
 import se.sprinta.headhunterbackend.account.dto.AccountDtoView;
+import se.sprinta.headhunterbackend.ad.Ad;
 import se.sprinta.headhunterbackend.job.dto.JobCardDtoView;
 import se.sprinta.headhunterbackend.job.dto.JobDtoFormUpdate;
 import se.sprinta.headhunterbackend.job.dto.JobDtoView;
@@ -224,6 +225,15 @@ public class JobServiceTest {
                 .hasMessage("Could not find job with Id " + Long.MAX_VALUE);
     }
 
+    @Test
+    @DisplayName("GET - findLatestAd - Ads From The Same Day - Last Saved Ad")
+    void test_FindLatestAd_SameDayAds_LastSavedAd() {
+        Optional<Ad> latestAd = this.jobService.findLatestAd(1L);
+
+        assertThat(latestAd).isPresent();
+        assertEquals("htmlCode 2", latestAd.get().getHtmlCode());
+    }
+
     @Test
     @DisplayName("POST - addJob - Success")
     void test_AddJob_Success() {
@@ -0,0 +1,60 @@
+package se.sprinta.headhunterbackend.system.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Uuid7Test {
+
+    @Test
+    @DisplayName("of - Time And Sequence - Version 7 Layout")
+    void test_Of_TimeAndSequence_Version7Layout() {
+        UUID uuid = Uuid7.of(0x0192A3B4C5D6L, 0xABC, -1L);
+
+        assertEquals("0192a3b4-c5d6-7abc-bfff-ffffffffffff", uuid.toString());
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    @DisplayName("next - Many Ids - Ordered As Strings And Bytes")
+    void test_Next_ManyIds_OrderedAsStringsAndBytes() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) ids.add(Uuid7.next().toString());
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        for (int i = 1; i < ids.size(); i++)
+            assertThat(Arrays.compareUnsigned(BinaryUuidType.toBytes(ids.get(i - 1)), BinaryUuidType.toBytes(ids.get(i))))
+                    .isNegative();
+    }
+
+    @Test
+    @DisplayName("toBytes - Uuid - Round Trip")
+    void test_ToBytes_Uuid_RoundTrip() {
+        String id = Uuid7.next().toString();
+        byte[] bytes = BinaryUuidType.toBytes(id);
+
+        assertEquals(BinaryUuidType.LENGTH, bytes.length);
+        assertEquals(id, BinaryUuidType.fromBytes(bytes));
+        // Existing version 4 ids keep working
+        assertEquals("6f1c2b7e-3d4a-4b5c-9d8e-7f6a5b4c3d2e",
+                BinaryUuidType.fromBytes(BinaryUuidType.toBytes("6f1c2b7e-3d4a-4b5c-9d8e-7f6a5b4c3d2e")));
+    }
+
+    @Test
+    @DisplayName("toBytes - Not A Uuid - Utf8 Bytes")
+    void test_ToBytes_NotAUuid_Utf8Bytes() {
+        assertArrayEquals("ad-1".getBytes(StandardCharsets.UTF_8), BinaryUuidType.toBytes("ad-1"));
+        // Accepted by UUID.fromString, but not how an id is written
+        assertArrayEquals("1-2-3-4-5".getBytes(StandardCharsets.UTF_8), BinaryUuidType.toBytes("1-2-3-4-5"));
+    }
+}
@@ -0,0 +1,140 @@
+package se.sprinta.headhunterbackend.usage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.client.chat.dto.Usage;
+import se.sprinta.headhunterbackend.job.Job;
+import se.sprinta.headhunterbackend.system.exception.TokenQuotaExceededException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.*;
+
+@ActiveProfiles("mock-test")
+@ExtendWith(MockitoExtension.class)
+class TokenUsageServiceMockTest {
+
+    @Mock
+    private TokenUsageRepository tokenUsageRepository;
+
+    @InjectMocks
+    private TokenUsageService tokenUsageService;
+
+    private Job job;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(this.tokenUsageService, "dailyTokenQuota", 1000L);
+
+        Account account = new Account("user1@hh.se", "user");
+        this.job = new Job("title 1", "description 1", "instruction 1");
+        this.job.setId(1L);
+        account.addJob(this.job);
+    }
+
+    @Test
+    @DisplayName("checkQuota - Quota Not Used Up - Success")
+    void test_CheckQuota_QuotaNotUsedUp_Success() {
+        // Given
+        given(this.tokenUsageRepository.sumTotalTokensByEmailAndDate("user1@hh.se", LocalDate.now())).willReturn(400L);
+
+        // When
+        this.tokenUsageService.checkQuota(this.job);
+        this.tokenUsageService.record(this.job, new Usage(100, 200, 300));
+
+        // Then
+        assertEquals(700L, this.tokenUsageService.getTokensUsedToday("user1@hh.se"));
+        then(this.tokenUsageRepository).should(times(1)).sumTotalTokensByEmailAndDate("user1@hh.se", LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("checkQuota - Quota Used Up - Exception")
+    void test_CheckQuota_QuotaUsedUp_Exception() {
+        // Given
+        given(this.tokenUsageRepository.sumTotalTokensByEmailAndDate("user1@hh.se", LocalDate.now())).willReturn(900L);
+        this.tokenUsageService.record(this.job, new Usage(50, 50, 100));
+
+        // When
+        Throwable thrown = assertThrows(TokenQuotaExceededException.class,
+                () -> this.tokenUsageService.checkQuota(this.job));
+
+        // Then
+        assertEquals("The daily quota of 1000 AI tokens is used up for user1@hh.se", thrown.getMessage());
+    }
+
+    @Test
+    @DisplayName("checkQuota - No Quota - Database Not Read")
+    void test_CheckQuota_NoQuota_DatabaseNotRead() {
+        // Given
+        ReflectionTestUtils.setField(this.tokenUsageService, "dailyTokenQuota", 0L);
+
+        // When
+        this.tokenUsageService.checkQuota(this.job);
+
+        // Then
+        then(this.tokenUsageRepository).should(never()).sumTotalTokensByEmailAndDate(any(), any());
+    }
+
+    @Test
+    @DisplayName("flush - Usage Recorded - Deltas Saved Once")
+    @SuppressWarnings("unchecked")
+    void test_Flush_UsageRecorded_DeltasSavedOnce() {
+        // Given
+        given(this.tokenUsageRepository.sumTotalTokensByEmailAndDate("user1@hh.se", LocalDate.now())).willReturn(0L);
+        this.tokenUsageService.record(this.job, new Usage(100, 200, 300));
+        this.tokenUsageService.record(this.job, new Usage(10, 20, 30));
+        this.tokenUsageService.record(this.job, null); // A cached completion costs nothing
+
+        ArgumentCaptor<List<TokenUsage>> captor = ArgumentCaptor.forClass(List.class);
+
+        // When
+        this.tokenUsageService.flush();
+        this.tokenUsageService.flush(); // Nothing new since the first flush
+
+        // Then
+        then(this.tokenUsageRepository).should(times(1)).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        TokenUsage tokenUsage = captor.getValue().get(0);
+        assertEquals("user1@hh.se", tokenUsage.getEmail());
+        assertEquals(1L, tokenUsage.getJobId());
+        assertEquals(110L, tokenUsage.getPromptTokens());
+        assertEquals(220L, tokenUsage.getCompletionTokens());
+        assertEquals(330L, tokenUsage.getTotalTokens());
+        assertEquals(2L, tokenUsage.getRequests());
+    }
+
+    @Test
+    @DisplayName("flush - Save Fails - Retried By Next Flush")
+    @SuppressWarnings("unchecked")
+    void test_Flush_SaveFails_RetriedByNextFlush() {
+        // Given
+        given(this.tokenUsageRepository.sumTotalTokensByEmailAndDate("user1@hh.se", LocalDate.now())).willReturn(0L);
+        given(this.tokenUsageRepository.saveAll(anyList()))
+                .willThrow(new RuntimeException("Database is down"))
+                .willReturn(List.of());
+        this.tokenUsageService.record(this.job, new Usage(100, 200, 300));
+
+        ArgumentCaptor<List<TokenUsage>> captor = ArgumentCaptor.forClass(List.class);
+
+        // When
+        assertThrows(RuntimeException.class, () -> this.tokenUsageService.flush());
+        this.tokenUsageService.flush();
+
+        // Then
+        then(this.tokenUsageRepository).should(times(2)).saveAll(captor.capture());
+        assertEquals(300L, captor.getAllValues().get(1).get(0).getTotalTokens());
+    }
+}
@@ -0,0 +1,108 @@
+package se.sprinta.headhunterbackend.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares HtmlExtractor with the indexOf/lastIndexOf substring that HtmlUtilities used before, on a response of
+ * about the size the AI model writes, both as a whole and as streamed chunks. With the old implementation a stream
+ * had to be collected into one String before it could be scanned.
+ * <p>
+ * Tagged "benchmark", so it only runs with mvn test -P benchmark.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlExtractorBenchmark {
+
+    @Param({"4", "40"})
+    public int paragraphs;
+
+    private String response;
+
+    private List<String> chunks;
+
+    @Setup
+    public void setUp() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < this.paragraphs; i++)
+            body.append("<h2>Section ").append(i).append("</h2><p>We are looking for a developer who knows Java, ")
+                    .append("Spring Boot and React, and who likes to work in a team.</p><ul><li>Java</li><li>React</li></ul>\n");
+
+        this.response = "Here is the job ad:\n```html\n<!DOCTYPE html><html><head><style>body { font-family: sans-serif; }</style>"
+                + "</head><body>" + body + "</body></html>\n```\nGood luck with the hiring!";
+
+        this.chunks = new ArrayList<>();
+        for (int start = 0; start < this.response.length(); start += 16)
+            this.chunks.add(this.response.substring(start, Math.min(this.response.length(), start + 16)));
+    }
+
+    @Benchmark
+    public String substringWhole() {
+        return substring(this.response);
+    }
+
+    @Benchmark
+    public String extractWhole() {
+        return HtmlExtractor.extract(this.response);
+    }
+
+    @Benchmark
+    public String substringStreamed() {
+        StringBuilder collected = new StringBuilder();
+        for (String chunk : this.chunks) collected.append(chunk);
+        return substring(collected.toString());
+    }
+
+    @Benchmark
+    public String extractStreamed() {
+        HtmlExtractor htmlExtractor = new HtmlExtractor();
+        for (String chunk : this.chunks) htmlExtractor.feed(chunk);
+        return htmlExtractor.finish();
+    }
+
+    /**
+     * What HtmlUtilities.makeHtmlResponseSubstring did before HtmlExtractor.
+     */
+
+    private static String substring(String response) {
+        int cutBeginning = response.indexOf("<!D");
+        int cutEnd = response.lastIndexOf("</html>") + "</html>".length();
+
+        if (cutBeginning == -1 || cutEnd <= cutBeginning)
+            throw new IllegalArgumentException("AI response is not valid HTML code");
+
+        return response.substring(cutBeginning, cutEnd);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void runBenchmarks() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HtmlExtractorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,108 @@
+package se.sprinta.headhunterbackend.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HtmlExtractorTest {
+
+    private static final String RESPONSE = """
+            Here is the job ad:
+            ```html
+            <!doctype html>
+            <HTML lang="en"><head><title>Developer</title><style>p > a { color: red; }</style></head>
+            <body><p>We are hiring<p>Apply now<ul><li>Java<li>React</ul><br><img src="a>b.png"/></body></html>
+            ```
+            Good luck with the hiring!""";
+
+    private static final String DOCUMENT = """
+            <!doctype html>
+            <HTML lang="en"><head><title>Developer</title><style>p > a { color: red; }</style></head>
+            <body><p>We are hiring<p>Apply now<ul><li>Java<li>React</ul><br><img src="a>b.png"/></body></html>""";
+
+    @Test
+    @DisplayName("extract - Fenced Response - Document Only")
+    void test_Extract_FencedResponse_DocumentOnly() {
+        assertEquals(DOCUMENT, HtmlExtractor.extract(RESPONSE));
+    }
+
+    @Test
+    @DisplayName("feed - Any Chunk Size - Same Document")
+    void test_Feed_AnyChunkSize_SameDocument() {
+        for (int chunkSize = 1; chunkSize <= 16; chunkSize++) {
+            HtmlExtractor htmlExtractor = new HtmlExtractor();
+            for (int start = 0; start < RESPONSE.length(); start += chunkSize)
+                htmlExtractor.feed(RESPONSE.substring(start, Math.min(RESPONSE.length(), start + chunkSize)));
+
+            assertEquals(DOCUMENT, htmlExtractor.finish(), "chunk size " + chunkSize);
+        }
+        assertEquals(DOCUMENT, HtmlExtractor.extract(new StringReader(RESPONSE)));
+    }
+
+    @Test
+    @DisplayName("feed - Closing Html Tag - Complete And Rest Ignored")
+    void test_Feed_ClosingHtmlTag_CompleteAndRestIgnored() {
+        HtmlExtractor htmlExtractor = new HtmlExtractor().feed("<!DOCTYPE html><html><body>ad</body>");
+        assertThat(htmlExtractor.isComplete()).isFalse();
+
+        htmlExtractor.feed("</html> and another </html>");
+
+        assertThat(htmlExtractor.isComplete()).isTrue();
+        assertEquals("<!DOCTYPE html><html><body>ad</body></html>", htmlExtractor.finish());
+    }
+
+    @Test
+    @DisplayName("extract - Missing Closing Tags - Closed")
+    void test_Extract_MissingClosingTags_Closed() {
+        String htmlCode = HtmlExtractor.extract("```html\n<!DOCTYPE html><html><body><div><p>cut off\n```\nThat's it.");
+
+        assertEquals("<!DOCTYPE html><html><body><div><p>cut off</p></div></body></html>", htmlCode);
+    }
+
+    @Test
+    @DisplayName("extract - Cut Off Inside Tag - Partial Tag Dropped")
+    void test_Extract_CutOffInsideTag_PartialTagDropped() {
+        String htmlCode = HtmlExtractor.extract("<!DOCTYPE html><html><body><p>text</p><div cla");
+
+        assertEquals("<!DOCTYPE html><html><body><p>text</p></body></html>", htmlCode);
+    }
+
+    @Test
+    @DisplayName("extract - No Doctype - Doctype Added")
+    void test_Extract_NoDoctype_DoctypeAdded() {
+        String htmlCode = HtmlExtractor.extract("Sure! <html><body>ad</body></html>");
+
+        assertEquals("<!DOCTYPE html><html><body>ad</body></html>", htmlCode);
+    }
+
+    @Test
+    @DisplayName("extract - Tags In Script And Comment - Not Counted")
+    void test_Extract_TagsInScriptAndComment_NotCounted() {
+        String html = "<!DOCTYPE html><html><body><script>if (a < b) x = '</div>';</script><!-- </p> --></body></html>";
+
+        assertEquals(html, HtmlExtractor.extract(html));
+    }
+
+    @Test
+    @DisplayName("extract - Mismatched End Tag - Exception")
+    void test_Extract_MismatchedEndTag_Exception() {
+        HtmlExtractor htmlExtractor = new HtmlExtractor().feed("<!DOCTYPE html><html><body><div><span>x</div></body></html>");
+
+        Throwable thrown = assertThrows(IllegalArgumentException.class, htmlExtractor::finish);
+
+        assertThat(thrown).hasMessage("AI response is not valid HTML code");
+        assertEquals("</div> while <span> is open", htmlExtractor.getError());
+    }
+
+    @Test
+    @DisplayName("extract - No Element - Exception")
+    void test_Extract_NoElement_Exception() {
+        assertThrows(IllegalArgumentException.class, () -> HtmlExtractor.extract("<!DOCTYPE html> and nothing else"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlExtractor.extract("<htmlx>Some Text</htmlx>"));
+    }
+}
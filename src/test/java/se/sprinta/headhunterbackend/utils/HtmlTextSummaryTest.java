@@ -0,0 +1,47 @@
+package se.sprinta.headhunterbackend.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HtmlTextSummaryTest {
+
+    private static final String DOCUMENT = """
+            <!doctype html>
+            <HTML lang="en"><head><title>Developer</title><style>p > a { color: red; }</style></head>
+            <body><h1>Java&nbsp;Developer</h1><!-- <p>hidden</p> -->
+            <p>We are looking for a <b>Java</b>Script &amp; Spring developer &ndash; apply now&#x21;</p>
+            <script>if (a < b) { show(); }</script><ul><li>Java<li>React</ul><img src="a>b.png"/></body></html>""";
+
+    @Test
+    @DisplayName("toText - Document - Visible Text Only")
+    void test_ToText_Document_VisibleTextOnly() {
+        assertEquals("Java Developer We are looking for a JavaScript & Spring developer – apply now! Java React",
+                HtmlTextSummary.toText(DOCUMENT));
+    }
+
+    @Test
+    @DisplayName("of - Short Text - Whole Text And Word Count")
+    void test_Of_ShortText_WholeTextAndWordCount() {
+        assertEquals(new HtmlTextSummary("Java Developer We are looking for a JavaScript & Spring developer – apply now! Java React", 14),
+                HtmlTextSummary.of(DOCUMENT, 200));
+    }
+
+    @Test
+    @DisplayName("of - Long Text - Excerpt Cut At Word")
+    void test_Of_LongText_ExcerptCutAtWord() {
+        HtmlTextSummary textSummary = HtmlTextSummary.of(DOCUMENT, 30);
+
+        assertEquals("Java Developer We are looking…", textSummary.excerpt());
+        assertEquals(14, textSummary.wordCount());
+        assertEquals("aaaaaaaaa…", HtmlTextSummary.of("<p>" + "a".repeat(40) + "</p>", 10).excerpt());
+    }
+
+    @Test
+    @DisplayName("of - Cut Off Or Empty Html - No Error")
+    void test_Of_CutOffOrEmptyHtml_NoError() {
+        assertEquals(new HtmlTextSummary("", 0), HtmlTextSummary.of("", 10));
+        assertEquals(new HtmlTextSummary("Java &amp", 2), HtmlTextSummary.of("<p>Java &amp <b class=\"", 10));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import se.sprinta.headhunterbackend.MockDatabaseInitializer;
 import se.sprinta.headhunterbackend.account.Account;
+import se.sprinta.headhunterbackend.account.AccountPrincipalCache;
 import se.sprinta.headhunterbackend.account.AccountRepository;
 import se.sprinta.headhunterbackend.system.exception.ObjectNotFoundException;
 
@@ -33,6 +34,8 @@ class VerificationServiceMockTest {
     VerificationRepository verificationRepository;
     @Mock
     AccountRepository accountRepository;
+    @Mock
+    AccountPrincipalCache accountPrincipalCache;
     @InjectMocks
     VerificationService verificationService;
 
@@ -113,6 +116,7 @@ class VerificationServiceMockTest {
 
         // Then
         then(this.verificationRepository).should().deleteByEmail(this.accounts.get(0).getEmail());
+        then(this.accountPrincipalCache).should().invalidate(this.accounts.get(0).getEmail());
     }
 
     @Test